@@ -413,18 +413,24 @@ public class CompletableFutureExamples {
     public void bestPractices() {
         System.out.println("8. Best Practices:");
         
-        // Use custom executor for CPU-intensive tasks
-        ExecutorService cpuExecutor = Executors.newFixedThreadPool(
-                Runtime.getRuntime().availableProcessors()
-        );
-        
-        CompletableFuture<String> cpuTask = CompletableFuture.supplyAsync(() -> {
+        // Use custom executor for CPU-intensive tasks, instrumented so queueing
+        // and run latencies are visible through JMX. The work-stealing pool gives
+        // each worker its own deque instead of one shared blocking queue.
+        WorkStealingExecutor workStealing = new WorkStealingExecutor(
+                Runtime.getRuntime().availableProcessors(), true);
+        InstrumentedExecutorService cpuExecutor = new InstrumentedExecutorService("cpu", workStealing)
+                .registerMBean();
+        
+        // The executor's own supplyAsync also counts suppliers that throw as failed
+        CompletableFuture<String> cpuTask = cpuExecutor.supplyAsync(() -> {
             // CPU-intensive work
             return "CPU Task Result";
-        }, cpuExecutor);
+        });
         
         // Use different executor for I/O tasks
-        ExecutorService ioExecutor = Executors.newCachedThreadPool();
+        InstrumentedExecutorService ioExecutor = new InstrumentedExecutorService("io",
+                Executors.newCachedThreadPool())
+                .registerMBean();
         
         CompletableFuture<String> ioTask = CompletableFuture.supplyAsync(() -> {
             // I/O work
@@ -437,6 +443,11 @@ public class CompletableFutureExamples {
         
         System.out.println("Combined tasks: " + combined.join());
         
+        // Tiny continuations can run on the completing worker thread
+        CompletableFuture<Integer> inlined = CompletableFuture.supplyAsync(() -> 21, cpuExecutor)
+                .thenApplyAsync(x -> x * 2, workStealing.continuations());
+        System.out.println("Inlined continuation: " + inlined.join());
+        
         // Proper exception handling
         CompletableFuture<String> robust = CompletableFuture.supplyAsync(() -> {
             if (Math.random() > 0.7) {
@@ -455,6 +466,10 @@ public class CompletableFutureExamples {
         
         System.out.println("Robust result: " + robust.join());
         
+        // Executor saturation metrics
+        System.out.println(cpuExecutor.snapshot());
+        System.out.println(ioExecutor.snapshot());
+        
         // Cleanup
         cpuExecutor.shutdown();
         ioExecutor.shutdown();
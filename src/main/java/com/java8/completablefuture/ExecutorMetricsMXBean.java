@@ -0,0 +1,34 @@
+package com.java8.completablefuture;
+
+/**
+ * JMX view of an {@link InstrumentedExecutorService}.
+ * Latencies are reported in microseconds.
+ */
+public interface ExecutorMetricsMXBean {
+
+    String getName();
+
+    long getSubmittedCount();
+
+    long getCompletedCount();
+
+    long getFailedCount();
+
+    long getRejectedCount();
+
+    int getQueuedCount();
+
+    int getRunningCount();
+
+    double getQueueLatencyMeanMicros();
+
+    double getQueueLatencyP99Micros();
+
+    double getRunLatencyMeanMicros();
+
+    double getRunLatencyP99Micros();
+
+    double getRunLatencyMaxMicros();
+
+    void resetLatencies();
+}
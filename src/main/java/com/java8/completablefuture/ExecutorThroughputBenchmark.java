@@ -0,0 +1,99 @@
+package com.java8.completablefuture;
+
+import com.java8.datetime.NanoClock;
+
+import java.util.concurrent.*;
+
+/**
+ * Throughput benchmark for short CompletableFuture pipelines
+ * ({@code supplyAsync -> thenApplyAsync -> thenAccept}) on:
+ * a fixed thread pool, the common pool, and {@link WorkStealingExecutor}
+ * with and without inline continuations, for 1-64 producer threads.
+ */
+public class ExecutorThroughputBenchmark {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final int TASKS_PER_ROUND = 200_000;
+    private static final int[] PRODUCERS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : TASKS_PER_ROUND;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("=== Executor Throughput Benchmark ===");
+        System.out.println("Pipelines per round: " + tasks + ", worker threads: " + threads + "\n");
+        System.out.printf("%-10s %14s %14s %14s %14s%n",
+                "producers", "fixed", "commonPool", "workStealing", "ws+inline");
+
+        for (int producers : PRODUCERS) {
+            ExecutorService fixed = Executors.newFixedThreadPool(threads);
+            WorkStealingExecutor workStealing = new WorkStealingExecutor(threads, false);
+            WorkStealingExecutor inline = new WorkStealingExecutor(threads, true);
+            ForkJoinPool common = ForkJoinPool.commonPool();
+
+            double fixedOps = measure(fixed, fixed, producers, tasks);
+            double commonOps = measure(common, common, producers, tasks);
+            double wsOps = measure(workStealing, workStealing, producers, tasks);
+            double inlineOps = measure(inline, inline.continuations(), producers, tasks);
+
+            System.out.printf("%-10d %14s %14s %14s %14s%n", producers,
+                    format(fixedOps), format(commonOps), format(wsOps), format(inlineOps));
+
+            fixed.shutdown();
+            workStealing.shutdown();
+            inline.shutdown();
+        }
+        System.out.println("\n(pipelines/second, best of 3 rounds after warm-up)");
+    }
+
+    private static double measure(Executor executor, Executor continuations, int producers, int tasks)
+            throws InterruptedException {
+        runRound(executor, continuations, producers, tasks);
+        double best = 0;
+        for (int round = 0; round < 3; round++) {
+            best = Math.max(best, runRound(executor, continuations, producers, tasks));
+        }
+        return best;
+    }
+
+    private static double runRound(Executor executor, Executor continuations, int producers, int tasks)
+            throws InterruptedException {
+        int perProducer = tasks / producers;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(perProducer * producers);
+        Thread[] threads = new Thread[producers];
+
+        for (int p = 0; p < producers; p++) {
+            threads[p] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    int seed = i;
+                    CompletableFuture.supplyAsync(() -> seed * 31, executor)
+                            .thenApplyAsync(x -> x + 1, continuations)
+                            .thenAccept(x -> done.countDown());
+                }
+            }, "producer-" + p);
+            threads[p].start();
+        }
+
+        long startTime = CLOCK.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = CLOCK.elapsedNanos(startTime);
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return (double) (perProducer * producers) / elapsed * 1_000_000_000L;
+    }
+
+    private static String format(double opsPerSecond) {
+        return String.format("%,.0f", opsPerSecond);
+    }
+}
@@ -0,0 +1,320 @@
+package com.java8.completablefuture;
+
+import com.java8.datetime.NanoClock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * ExecutorService decorator that measures how long each task waited in the
+ * delegate's queue (enqueue-to-start) and how long it ran (start-to-complete).
+ *
+ * Works transparently with {@code CompletableFuture.supplyAsync(supplier, executor)}
+ * and friends, since every async stage ends up in {@link #execute(Runnable)}.
+ * A task counts as failed when it throws, or when it is a {@link Future}
+ * (as from {@link #submit}) that completed exceptionally. The stages of
+ * {@code CompletableFuture.supplyAsync(supplier, executor)} catch the
+ * supplier's exception themselves and never expose it to the executor, so
+ * use {@link #supplyAsync(Supplier)} and {@link #runAsync(Runnable)} when
+ * failures should be counted. Metrics are exposed through
+ * {@link ExecutorMetricsMXBean} and can be logged periodically with
+ * {@link #startReporting(long, TimeUnit)}.
+ */
+public class InstrumentedExecutorService extends AbstractExecutorService implements ExecutorMetricsMXBean {
+
+    private static final Logger log = LoggerFactory.getLogger(InstrumentedExecutorService.class);
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final ScheduledExecutorService REPORTER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "executor-metrics-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final ExecutorService delegate;
+
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+    private final LatencyHistogram runLatency = new LatencyHistogram();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+
+    private volatile ObjectName objectName;
+    private volatile ScheduledFuture<?> reporting;
+
+    public InstrumentedExecutorService(String name, ExecutorService delegate) {
+        this.name = name;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        InstrumentedTask task = new InstrumentedTask(command, CLOCK.nanoTime());
+        submitted.increment();
+        queued.incrementAndGet();
+        try {
+            delegate.execute(task);
+        } catch (RejectedExecutionException e) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Like {@code CompletableFuture.supplyAsync(supplier, this)}, except that
+     * a supplier that throws is counted as failed. Cancelling the returned
+     * future cancels the task if it has not started yet.
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        FutureTask<T> task = new FutureTask<T>(supplier::get) {
+            @Override
+            protected void done() {
+                try {
+                    result.complete(get());
+                } catch (ExecutionException e) {
+                    result.completeExceptionally(e.getCause());
+                } catch (CancellationException | InterruptedException e) {
+                    result.cancel(false);
+                }
+            }
+        };
+        result.whenComplete((value, failure) -> {
+            if (result.isCancelled()) {
+                task.cancel(false);
+            }
+        });
+        execute(task);
+        return result;
+    }
+
+    /**
+     * Like {@code CompletableFuture.runAsync(task, this)}, except that a task
+     * that throws is counted as failed.
+     */
+    public CompletableFuture<Void> runAsync(Runnable task) {
+        return supplyAsync(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Registers this executor with the platform MBeanServer under
+     * {@code com.java8.completablefuture:type=Executor,name=<name>}.
+     */
+    public InstrumentedExecutorService registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName candidate = new ObjectName("com.java8.completablefuture:type=Executor,name=" + name);
+            if (server.isRegistered(candidate)) {
+                server.unregisterMBean(candidate);
+            }
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register executor MBean " + name, e);
+        }
+        return this;
+    }
+
+    /**
+     * Logs a metrics snapshot at a fixed rate until the executor is shut down.
+     */
+    public InstrumentedExecutorService startReporting(long period, TimeUnit unit) {
+        stopReporting();
+        reporting = REPORTER.scheduleAtFixedRate(() -> log.info("{}", snapshot()), period, period, unit);
+        return this;
+    }
+
+    public String snapshot() {
+        return "Executor[" + name + "] submitted=" + submitted.sum()
+                + ", completed=" + completed.sum()
+                + ", failed=" + failed.sum()
+                + ", rejected=" + rejected.sum()
+                + ", queued=" + queued.get()
+                + ", running=" + running.get()
+                + "\n  queue wait: " + queueLatency
+                + "\n  run time:   " + runLatency;
+    }
+
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    public LatencyHistogram getRunLatency() {
+        return runLatency;
+    }
+
+    // ExecutorMetricsMXBean
+
+    @Override
+    public String getName() { return name; }
+
+    @Override
+    public long getSubmittedCount() { return submitted.sum(); }
+
+    @Override
+    public long getCompletedCount() { return completed.sum(); }
+
+    @Override
+    public long getFailedCount() { return failed.sum(); }
+
+    @Override
+    public long getRejectedCount() { return rejected.sum(); }
+
+    @Override
+    public int getQueuedCount() { return queued.get(); }
+
+    @Override
+    public int getRunningCount() { return running.get(); }
+
+    @Override
+    public double getQueueLatencyMeanMicros() { return queueLatency.getMean() / 1_000.0; }
+
+    @Override
+    public double getQueueLatencyP99Micros() { return queueLatency.getValueAtPercentile(99) / 1_000.0; }
+
+    @Override
+    public double getRunLatencyMeanMicros() { return runLatency.getMean() / 1_000.0; }
+
+    @Override
+    public double getRunLatencyP99Micros() { return runLatency.getValueAtPercentile(99) / 1_000.0; }
+
+    @Override
+    public double getRunLatencyMaxMicros() { return runLatency.getMax() / 1_000.0; }
+
+    @Override
+    public void resetLatencies() {
+        queueLatency.reset();
+        runLatency.reset();
+    }
+
+    // ExecutorService lifecycle
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+        release();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> pending = delegate.shutdownNow();
+        release();
+        List<Runnable> unwrapped = new ArrayList<>(pending.size());
+        for (Runnable runnable : pending) {
+            if (runnable instanceof InstrumentedTask) {
+                queued.decrementAndGet();
+                unwrapped.add(((InstrumentedTask) runnable).command);
+            } else {
+                unwrapped.add(runnable);
+            }
+        }
+        return unwrapped;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    private void stopReporting() {
+        ScheduledFuture<?> current = reporting;
+        if (current != null) {
+            current.cancel(false);
+            reporting = null;
+        }
+    }
+
+    private void release() {
+        stopReporting();
+        ObjectName current = objectName;
+        if (current != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(current);
+            } catch (JMException e) {
+                log.debug("Executor MBean {} already unregistered", current);
+            }
+            objectName = null;
+        }
+    }
+
+    /** Whether the command is a future that captured an exception instead of throwing it. */
+    private static boolean completedExceptionally(Runnable command) {
+        if (!(command instanceof Future)) {
+            return false;
+        }
+        Future<?> future = (Future<?>) command;
+        if (!future.isDone() || future.isCancelled()) {
+            return false;
+        }
+        try {
+            future.get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private final class InstrumentedTask implements Runnable {
+        private final Runnable command;
+        private final long enqueuedAt;
+
+        InstrumentedTask(Runnable command, long enqueuedAt) {
+            this.command = command;
+            this.enqueuedAt = enqueuedAt;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = CLOCK.nanoTime();
+            queued.decrementAndGet();
+            running.incrementAndGet();
+            queueLatency.record(startedAt - enqueuedAt);
+            try {
+                command.run();
+                if (completedExceptionally(command)) {
+                    failed.increment();
+                } else {
+                    completed.increment();
+                }
+            } catch (RuntimeException | Error e) {
+                failed.increment();
+                throw e;
+            } finally {
+                running.decrementAndGet();
+                runLatency.record(CLOCK.elapsedNanos(startedAt));
+            }
+        }
+    }
+}
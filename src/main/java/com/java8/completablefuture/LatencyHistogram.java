@@ -0,0 +1,83 @@
+package com.java8.completablefuture;
+
+import com.java8.datetime.LogLinearBuckets;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram in the style of HdrHistogram.
+ *
+ * Values (nanoseconds) below 128 are counted exactly; above that every
+ * power-of-two range is split into 64 linear sub-buckets, which keeps the
+ * relative error of any reported percentile below ~1.6% across the full
+ * {@code long} range with a fixed 3712-slot array (see
+ * {@link LogLinearBuckets}).
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_COUNT = LogLinearBuckets.COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(LogLinearBuckets.indexOf(value));
+        totalCount.increment();
+        totalSum.add(value);
+        long max = maxValue.get();
+        while (value > max && !maxValue.compareAndSet(max, value)) {
+            max = maxValue.get();
+        }
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.sum();
+        return count == 0 ? 0.0 : (double) totalSum.sum() / count;
+    }
+
+    /**
+     * Returns the highest value equivalent to the given percentile (0-100).
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        return LogLinearBuckets.valueAtPercentile(snapshot, count, maxValue.get(), percentile);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        maxValue.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, mean=%.1fus, p50=%.1fus, p99=%.1fus, max=%.1fus",
+                getCount(), getMean() / 1_000.0,
+                getValueAtPercentile(50) / 1_000.0,
+                getValueAtPercentile(99) / 1_000.0,
+                getMax() / 1_000.0);
+    }
+}
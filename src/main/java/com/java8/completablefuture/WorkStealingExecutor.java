@@ -0,0 +1,129 @@
+package com.java8.completablefuture;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * CPU executor backed by a {@link ForkJoinPool} in async (FIFO) mode.
+ *
+ * Unlike {@code Executors.newFixedThreadPool}, which funnels every task
+ * through one shared {@code LinkedBlockingQueue}, each worker owns a deque:
+ * tasks submitted from a worker (e.g. async continuations) are pushed onto
+ * its local deque (from Java 9 on) and idle workers steal from the others.
+ * As with any executor, a task that throws reaches the worker thread's
+ * uncaught-exception handler, and tasks are rejected after shutdown.
+ *
+ * With {@code inlineContinuations} enabled, {@link #continuations()} runs
+ * tiny stages directly on the completing worker thread instead of
+ * re-dispatching them, up to a bounded nesting depth.
+ */
+public class WorkStealingExecutor extends AbstractExecutorService {
+
+    private static final int MAX_INLINE_DEPTH = 16;
+    private static final ThreadLocal<int[]> INLINE_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final ForkJoinPool pool;
+    private final boolean inlineContinuations;
+    private final Executor continuationExecutor = this::executeContinuation;
+
+    public WorkStealingExecutor() {
+        this(Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    public WorkStealingExecutor(int parallelism, boolean inlineContinuations) {
+        this(parallelism, inlineContinuations, "cpu-worker");
+    }
+
+    public WorkStealingExecutor(int parallelism, boolean inlineContinuations, String threadNamePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        ForkJoinPool.ForkJoinWorkerThreadFactory factory = p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(threadNamePrefix + "-" + counter.incrementAndGet());
+            return thread;
+        };
+        this.pool = new ForkJoinPool(parallelism, factory, null, true);
+        this.inlineContinuations = inlineContinuations;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        // The pool only checks for shutdown on external submissions
+        if (pool.isShutdown()) {
+            throw new RejectedExecutionException("WorkStealingExecutor has been shut down");
+        }
+        // Called from a worker this is a local push onto its own deque; unlike
+        // ForkJoinTask.adapt(task).fork() the task reports its failure
+        pool.execute(task);
+    }
+
+    /**
+     * Executor for short continuation stages, e.g.
+     * {@code future.thenApplyAsync(fn, executor.continuations())}.
+     */
+    public Executor continuations() {
+        return continuationExecutor;
+    }
+
+    public boolean isWorkerThread() {
+        Thread thread = Thread.currentThread();
+        return thread instanceof ForkJoinWorkerThread
+                && ((ForkJoinWorkerThread) thread).getPool() == pool;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public long getStealCount() {
+        return pool.getStealCount();
+    }
+
+    private void executeContinuation(Runnable task) {
+        if (inlineContinuations && isWorkerThread()) {
+            int[] depth = INLINE_DEPTH.get();
+            if (depth[0] < MAX_INLINE_DEPTH) {
+                depth[0]++;
+                try {
+                    task.run();
+                } finally {
+                    depth[0]--;
+                }
+                return;
+            }
+        }
+        execute(task);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return pool.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return pool.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return pool.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "WorkStealingExecutor{parallelism=" + pool.getParallelism()
+                + ", inlineContinuations=" + inlineContinuations
+                + ", steals=" + pool.getStealCount() + "}";
+    }
+}
@@ -0,0 +1,86 @@
+package com.java8.datetime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Best-of-rounds timing shared by the benchmark mains: one warm-up run,
+ * then {@link #ROUNDS} timed runs, of which the fastest counts. Each run
+ * returns a checksum so the JIT cannot drop the work; all runs of a variant
+ * are expected to return the same one.
+ */
+public final class BenchmarkHarness {
+
+    public static final int ROUNDS = 5;
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    public interface Run {
+        long run();
+    }
+
+    private BenchmarkHarness() {
+    }
+
+    public static Result measure(Run run) {
+        long checksum = run.run();
+        long best = Long.MAX_VALUE;
+        long bytes = -1;
+        for (int i = 0; i < ROUNDS; i++) {
+            long allocated = allocatedBytes();
+            long start = CLOCK.nanoTime();
+            checksum = run.run();
+            best = Math.min(best, CLOCK.elapsedNanos(start));
+            bytes = allocated < 0 ? -1 : allocatedBytes() - allocated;
+        }
+        return new Result(best, checksum, bytes);
+    }
+
+    /**
+     * Measures the run and prints its name (left-aligned in
+     * {@code nameWidth} columns), operations per second and checksum.
+     */
+    public static void report(String name, int nameWidth, long operations, Run run) {
+        Result result = measure(run);
+        System.out.printf("%-" + nameWidth + "s %,16.0f   (checksum %d)%n", name, result.perSecond(operations),
+                result.getChecksum());
+    }
+
+    /** Bytes allocated so far by the current thread, or -1 if the JVM does not tell. */
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static final class Result {
+        private final long bestNanos;
+        private final long checksum;
+        private final long allocatedBytes;
+
+        Result(long bestNanos, long checksum, long allocatedBytes) {
+            this.bestNanos = bestNanos;
+            this.checksum = checksum;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getBestNanos() {
+            return bestNanos;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public double perSecond(long operations) {
+            return operations * 1_000_000_000.0 / bestNanos;
+        }
+
+        /** Bytes allocated per operation in the last round, or -1 if not measured. */
+        public double bytesPer(long operations) {
+            return allocatedBytes < 0 ? -1 : (double) allocatedBytes / operations;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.java8.datetime;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Working-day arithmetic on epoch days without visiting each date.
+ *
+ * The calendar has a configurable weekend and a holiday set kept as a
+ * sorted {@code long[]} of epoch days. Working days between two dates are
+ * counted in constant time from whole weeks plus a per-weekday prefix
+ * table, minus the holidays in range (two binary searches). Adding N working
+ * days inverts the same count, so SLA deadlines cost the same for 3 days and
+ * for 3000. Instances are immutable and thread-safe.
+ */
+public final class BusinessCalendar {
+
+    /** Epoch day of Monday 1970-01-05; weeks are counted from here. */
+    private static final long ORIGIN = 4;
+
+    private static final BusinessCalendar WEEKDAYS =
+            new BusinessCalendar(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), new long[0]);
+
+    private final Set<DayOfWeek> weekend;
+    private final long[] holidays;
+    private final int workingDaysPerWeek;
+    /** prefix[i] = working days among the first i days of a Monday-based week. */
+    private final int[] prefix = new int[8];
+    /** workingDay[r] = offset from Monday of the r-th working day of a week. */
+    private final int[] workingDay;
+
+    private BusinessCalendar(Set<DayOfWeek> weekend, long[] holidays) {
+        this.weekend = EnumSet.noneOf(DayOfWeek.class);
+        this.weekend.addAll(weekend);
+        if (this.weekend.size() == 7) {
+            throw new IllegalArgumentException("A calendar needs at least one working day per week");
+        }
+        this.workingDaysPerWeek = 7 - this.weekend.size();
+        this.workingDay = new int[workingDaysPerWeek];
+        for (int i = 0, r = 0; i < 7; i++) {
+            boolean working = !this.weekend.contains(DayOfWeek.of(i + 1));
+            prefix[i + 1] = prefix[i] + (working ? 1 : 0);
+            if (working) {
+                workingDay[r++] = i;
+            }
+        }
+        this.holidays = normalize(holidays);
+    }
+
+    /** Monday to Friday, no holidays. */
+    public static BusinessCalendar weekdays() {
+        return WEEKDAYS;
+    }
+
+    public static BusinessCalendar of(Set<DayOfWeek> weekend) {
+        return new BusinessCalendar(weekend, new long[0]);
+    }
+
+    /**
+     * A copy with the given epoch days added as holidays. Holidays falling
+     * on the weekend are ignored.
+     */
+    public BusinessCalendar withHolidays(long... epochDays) {
+        long[] merged = Arrays.copyOf(holidays, holidays.length + epochDays.length);
+        System.arraycopy(epochDays, 0, merged, holidays.length, epochDays.length);
+        return new BusinessCalendar(weekend, merged);
+    }
+
+    public BusinessCalendar withHolidays(Collection<LocalDate> dates) {
+        return withHolidays(dates.stream().mapToLong(LocalDate::toEpochDay).toArray());
+    }
+
+    public boolean isWorkingDay(long epochDay) {
+        return !weekend.contains(dayOfWeek(epochDay)) && Arrays.binarySearch(holidays, epochDay) < 0;
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return isWorkingDay(date.toEpochDay());
+    }
+
+    /**
+     * Working days in {@code [startInclusive, endExclusive)}; negative when
+     * the end is before the start, like {@code ChronoUnit.DAYS.between}.
+     */
+    public long workingDaysBetween(long startInclusive, long endExclusive) {
+        return ordinal(endExclusive) - ordinal(startInclusive);
+    }
+
+    public long workingDaysBetween(LocalDate startInclusive, LocalDate endExclusive) {
+        return workingDaysBetween(startInclusive.toEpochDay(), endExclusive.toEpochDay());
+    }
+
+    /**
+     * The working day {@code days} working days after (or, if negative,
+     * before) the given day; the day itself does not count. Zero returns
+     * the day unchanged.
+     */
+    public long addWorkingDays(long epochDay, long days) {
+        if (days == 0) {
+            return epochDay;
+        }
+        long k = days > 0 ? ordinal(epochDay + 1) + days - 1 : ordinal(epochDay) + days;
+        return nthWorkingDay(k);
+    }
+
+    public LocalDate addWorkingDays(LocalDate date, long days) {
+        return LocalDate.ofEpochDay(addWorkingDays(date.toEpochDay(), days));
+    }
+
+    /**
+     * Bulk form of {@link #addWorkingDays(long, long)} for deadline batches.
+     */
+    public long[] addWorkingDays(long[] epochDays, long days, long[] result) {
+        for (int i = 0; i < epochDays.length; i++) {
+            result[i] = addWorkingDays(epochDays[i], days);
+        }
+        return result;
+    }
+
+    /**
+     * Number of working days before {@code epochDay}, counted from
+     * {@link #ORIGIN} (negative before it).
+     */
+    private long ordinal(long epochDay) {
+        return weekdaysBefore(epochDay) - holidaysBefore(epochDay);
+    }
+
+    private long weekdaysBefore(long epochDay) {
+        long days = epochDay - ORIGIN;
+        return Math.floorDiv(days, 7) * workingDaysPerWeek + prefix[(int) Math.floorMod(days, 7)];
+    }
+
+    /** The non-weekend day with {@code weekdaysBefore(day) == k}. */
+    private long nthWeekday(long k) {
+        return ORIGIN + Math.floorDiv(k, workingDaysPerWeek) * 7 + workingDay[(int) Math.floorMod(k, workingDaysPerWeek)];
+    }
+
+    /**
+     * The working day with {@code ordinal(day) == k}. Holidays only push the
+     * answer forward, so iterate the holiday count up to its fixed point;
+     * each step skips at least one holiday.
+     */
+    private long nthWorkingDay(long k) {
+        long skipped = holidaysBefore(nthWeekday(k));
+        while (true) {
+            long day = nthWeekday(k + skipped);
+            long upToDay = holidaysBefore(day + 1);
+            if (upToDay == skipped) {
+                return day;
+            }
+            skipped = upToDay;
+        }
+    }
+
+    private int holidaysBefore(long epochDay) {
+        int index = Arrays.binarySearch(holidays, epochDay);
+        return index < 0 ? -index - 1 : index;
+    }
+
+    private DayOfWeek dayOfWeek(long epochDay) {
+        return DayOfWeek.of((int) Math.floorMod(epochDay - ORIGIN, 7) + 1);
+    }
+
+    private long[] normalize(long[] epochDays) {
+        long[] sorted = epochDays.clone();
+        Arrays.sort(sorted);
+        int size = 0;
+        for (long day : sorted) {
+            if ((size == 0 || sorted[size - 1] != day) && !weekend.contains(dayOfWeek(day))) {
+                sorted[size++] = day;
+            }
+        }
+        return Arrays.copyOf(sorted, size);
+    }
+
+    public Set<DayOfWeek> getWeekend() {
+        return EnumSet.copyOf(weekend);
+    }
+
+    public int getHolidayCount() {
+        return holidays.length;
+    }
+
+    @Override
+    public String toString() {
+        return "BusinessCalendar{weekend=" + weekend + ", holidays=" + holidays.length + "}";
+    }
+}
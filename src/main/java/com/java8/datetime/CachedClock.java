@@ -0,0 +1,115 @@
+package com.java8.datetime;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A clock whose readings are refreshed by a daemon ticker thread every
+ * {@code resolution}, so reading it is a single volatile load instead of a
+ * system call. Timestamps may lag by up to one resolution; use
+ * {@link MonotonicClock} to measure durations shorter than that.
+ *
+ * Only the clock that started a ticker can stop it: closing the shared
+ * {@link NanoClock#coarse()} clock or a {@link #withZone(ZoneId)} view does
+ * nothing.
+ */
+public final class CachedClock extends NanoClock implements AutoCloseable {
+
+    private final Ticker ticker;
+    private final ZoneId zone;
+    private final boolean owner;
+
+    /**
+     * @param owner whether {@link #close()} stops the new ticker; false for
+     *              clocks shared by unrelated callers
+     */
+    CachedClock(Duration resolution, ZoneId zone, boolean owner) {
+        this(new Ticker(resolution.toNanos()), zone, owner);
+        ticker.start();
+    }
+
+    private CachedClock(Ticker ticker, ZoneId zone, boolean owner) {
+        this.ticker = ticker;
+        this.zone = zone;
+        this.owner = owner;
+    }
+
+    @Override
+    public long nanoTime() {
+        return ticker.nanoTime;
+    }
+
+    @Override
+    public long millis() {
+        return ticker.millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(ticker.millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /** A view in another zone sharing this clock's ticker, which it cannot stop. */
+    @Override
+    public CachedClock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new CachedClock(ticker, zone, false);
+    }
+
+    public Duration getResolution() {
+        return Duration.ofNanos(ticker.resolutionNanos);
+    }
+
+    /**
+     * Stops the ticker, so readings freeze at the last tick; does nothing
+     * unless this clock started the ticker.
+     */
+    @Override
+    public void close() {
+        if (owner) {
+            ticker.running = false;
+            ticker.interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CachedClock[" + zone + ", " + getResolution() + "]";
+    }
+
+    private static final class Ticker extends Thread {
+        private final long resolutionNanos;
+        private volatile long millis;
+        private volatile long nanoTime;
+        private volatile boolean running = true;
+
+        Ticker(long resolutionNanos) {
+            super("cached-clock-ticker");
+            if (resolutionNanos <= 0) {
+                throw new IllegalArgumentException("Resolution must be positive");
+            }
+            this.resolutionNanos = resolutionNanos;
+            setDaemon(true);
+            tick();
+        }
+
+        private void tick() {
+            nanoTime = System.nanoTime();
+            millis = System.currentTimeMillis();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                LockSupport.parkNanos(resolutionNanos);
+                tick();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.java8.datetime;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A half-open range of epoch days {@code [start, endExclusive)} held as two
+ * longs. Iteration is lazy and splittable ({@link #epochDays()} is a
+ * {@code LongStream.range}), so a range can be streamed in parallel
+ * without materializing a {@code List<LocalDate>}. Empty ranges are all
+ * equal to {@link #EMPTY}. Instances are immutable.
+ */
+public final class DateRange {
+
+    public static final DateRange EMPTY = new DateRange(0, 0);
+
+    private final long start;
+    private final long endExclusive;
+
+    private DateRange(long start, long endExclusive) {
+        this.start = start;
+        this.endExclusive = endExclusive;
+    }
+
+    public static DateRange ofEpochDays(long start, long endExclusive) {
+        return endExclusive <= start ? EMPTY : new DateRange(start, endExclusive);
+    }
+
+    /** The dates from {@code start} to {@code endInclusive}, both included. */
+    public static DateRange closed(LocalDate start, LocalDate endInclusive) {
+        return ofEpochDays(start.toEpochDay(), endInclusive.toEpochDay() + 1);
+    }
+
+    public static DateRange halfOpen(LocalDate start, LocalDate endExclusive) {
+        return ofEpochDays(start.toEpochDay(), endExclusive.toEpochDay());
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEndExclusive() {
+        return endExclusive;
+    }
+
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(start);
+    }
+
+    /** The last date in the range; undefined for {@link #EMPTY}. */
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(endExclusive - 1);
+    }
+
+    public long length() {
+        return endExclusive - start;
+    }
+
+    public boolean isEmpty() {
+        return endExclusive == start;
+    }
+
+    public boolean contains(long epochDay) {
+        return epochDay >= start && epochDay < endExclusive;
+    }
+
+    public boolean contains(LocalDate date) {
+        return contains(date.toEpochDay());
+    }
+
+    public boolean contains(DateRange other) {
+        return other.isEmpty() || (other.start >= start && other.endExclusive <= endExclusive);
+    }
+
+    public boolean overlaps(DateRange other) {
+        return !isEmpty() && !other.isEmpty() && start < other.endExclusive && other.start < endExclusive;
+    }
+
+    public DateRange intersect(DateRange other) {
+        return ofEpochDays(Math.max(start, other.start), Math.min(endExclusive, other.endExclusive));
+    }
+
+    /**
+     * The union of two overlapping or adjacent ranges.
+     *
+     * @throws IllegalArgumentException if a gap separates the ranges
+     */
+    public DateRange union(DateRange other) {
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (start > other.endExclusive || other.start > endExclusive) {
+            throw new IllegalArgumentException(this + " and " + other + " are not contiguous");
+        }
+        return span(other);
+    }
+
+    /** The smallest range covering both ranges, including any gap. */
+    public DateRange span(DateRange other) {
+        if (isEmpty()) {
+            return other;
+        }
+        if (other.isEmpty()) {
+            return this;
+        }
+        return new DateRange(Math.min(start, other.start), Math.max(endExclusive, other.endExclusive));
+    }
+
+    public LongStream epochDays() {
+        return LongStream.range(start, endExclusive);
+    }
+
+    /**
+     * Epoch days as ints, which covers years -5,877,641 to 5,881,580.
+     *
+     * @throws ArithmeticException if the range does not fit
+     */
+    public IntStream epochDaysAsInt() {
+        return IntStream.range(Math.toIntExact(start), Math.toIntExact(endExclusive));
+    }
+
+    public Stream<LocalDate> dates() {
+        return epochDays().mapToObj(LocalDate::ofEpochDay);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DateRange)) {
+            return false;
+        }
+        DateRange other = (DateRange) o;
+        return start == other.start && endExclusive == other.endExclusive;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(start) * 31 + Long.hashCode(endExclusive);
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "[]" : "[" + getStartDate() + ", " + LocalDate.ofEpochDay(endExclusive) + ")";
+    }
+}
@@ -0,0 +1,208 @@
+package com.java8.datetime;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Static interval tree answering "which ranges overlap this one" over
+ * millions of half-open {@code [start, end)} ranges, e.g. bookings.
+ *
+ * Ranges are sorted by start into flat arrays; the array is read as an
+ * implicit balanced binary tree (the middle of each slice is its root) and
+ * every node stores the largest end in its subtree, so a query prunes whole
+ * slices and runs in O(log n + matches) without per-node objects. Bounds are
+ * plain longs, so the index works for epoch days as well as epoch seconds or
+ * nanos. Build with {@link #builder()}; a built index is immutable and
+ * thread-safe.
+ */
+public final class DateRangeIndex {
+
+    private final long[] starts;
+    private final long[] ends;
+    private final int[] ids;
+    private final long[] maxEnd;
+
+    private DateRangeIndex(long[] starts, long[] ends, int[] ids) {
+        this.starts = starts;
+        this.ends = ends;
+        this.ids = ids;
+        this.maxEnd = new long[starts.length];
+        computeMaxEnd(0, starts.length);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Passes the id of every range overlapping {@code [start, endExclusive)}
+     * to the action, in order of range start.
+     */
+    public void forEachOverlapping(long start, long endExclusive, IntConsumer action) {
+        if (start < endExclusive) {
+            visit(0, starts.length, start, endExclusive, action);
+        }
+    }
+
+    public void forEachOverlapping(DateRange range, IntConsumer action) {
+        forEachOverlapping(range.getStart(), range.getEndExclusive(), action);
+    }
+
+    public int[] overlapping(DateRange range) {
+        IntStream.Builder result = IntStream.builder();
+        forEachOverlapping(range, result::add);
+        return result.build().toArray();
+    }
+
+    public int countOverlapping(DateRange range) {
+        int[] count = new int[1];
+        forEachOverlapping(range, id -> count[0]++);
+        return count[0];
+    }
+
+    /** Ranges containing the given epoch day. */
+    public int[] containing(long epochDay) {
+        return overlapping(DateRange.ofEpochDays(epochDay, epochDay + 1));
+    }
+
+    /**
+     * True if no indexed range overlaps {@code [start, endExclusive)}; stops
+     * at the first conflict.
+     */
+    public boolean isFree(long start, long endExclusive) {
+        return start >= endExclusive || !anyOverlap(0, starts.length, start, endExclusive);
+    }
+
+    public boolean isFree(DateRange range) {
+        return isFree(range.getStart(), range.getEndExclusive());
+    }
+
+    private long computeMaxEnd(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(computeMaxEnd(lo, mid), computeMaxEnd(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    private void visit(int lo, int hi, long start, long end, IntConsumer action) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] <= start) {
+                return;
+            }
+            visit(lo, mid, start, end, action);
+            if (starts[mid] >= end) {
+                return;
+            }
+            if (ends[mid] > start) {
+                action.accept(ids[mid]);
+            }
+            lo = mid + 1;
+        }
+    }
+
+    private boolean anyOverlap(int lo, int hi, long start, long end) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (maxEnd[mid] <= start) {
+                return false;
+            }
+            if (starts[mid] < end && ends[mid] > start) {
+                return true;
+            }
+            if (anyOverlap(lo, mid, start, end)) {
+                return true;
+            }
+            if (starts[mid] >= end) {
+                return false;
+            }
+            lo = mid + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Collects ranges; each {@code add} returns the id reported by queries.
+     * Empty ranges get an id but never match.
+     */
+    public static final class Builder {
+        private long[] starts = new long[16];
+        private long[] ends = new long[16];
+        private int size;
+
+        private Builder() {
+        }
+
+        public int add(long start, long endExclusive) {
+            if (size == starts.length) {
+                starts = Arrays.copyOf(starts, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+            starts[size] = start;
+            ends[size] = endExclusive;
+            return size++;
+        }
+
+        public int add(DateRange range) {
+            return add(range.getStart(), range.getEndExclusive());
+        }
+
+        public DateRangeIndex build() {
+            int[] order = sortByStart();
+            int count = 0;
+            for (int id : order) {
+                count += starts[id] < ends[id] ? 1 : 0;
+            }
+            long[] sortedStarts = new long[count];
+            long[] sortedEnds = new long[count];
+            int[] ids = new int[count];
+            int n = 0;
+            for (int id : order) {
+                if (starts[id] < ends[id]) {
+                    sortedStarts[n] = starts[id];
+                    sortedEnds[n] = ends[id];
+                    ids[n++] = id;
+                }
+            }
+            return new DateRangeIndex(sortedStarts, sortedEnds, ids);
+        }
+
+        /**
+         * Ids ordered by start. When the starts span less than 2^31 the
+         * offset and id are packed into one long and sorted as primitives.
+         */
+        private int[] sortByStart() {
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, starts[i]);
+                max = Math.max(max, starts[i]);
+            }
+            if (size > 0 && max - min >= 0 && max - min < Integer.MAX_VALUE) {
+                long[] packed = new long[size];
+                for (int i = 0; i < size; i++) {
+                    packed[i] = (starts[i] - min) << 32 | i;
+                }
+                Arrays.parallelSort(packed);
+                int[] order = new int[size];
+                for (int i = 0; i < size; i++) {
+                    order[i] = (int) packed[i];
+                }
+                return order;
+            }
+            long[] keys = starts;
+            return IntStream.range(0, size).boxed()
+                    .sorted((a, b) -> Long.compare(keys[a], keys[b]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+    }
+}
@@ -4,12 +4,27 @@ import java.time.*;
 import java.time.format.*;
 import java.time.temporal.*;
 import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Comprehensive examples of Date/Time API in Java 8
  */
 public class DateTimeExamples {
     
+    private final Clock clock;
+    
+    /** Examples reading the shared coarse clock in the system default zone. */
+    public DateTimeExamples() {
+        this(NanoClock.coarse().withZone(ZoneId.systemDefault()));
+    }
+    
+    /**
+     * @param clock source of "now" for every example, e.g. a {@link TestClock}
+     */
+    public DateTimeExamples(Clock clock) {
+        this.clock = clock;
+    }
+    
     public static void main(String[] args) {
         DateTimeExamples examples = new DateTimeExamples();
         
@@ -33,7 +48,7 @@ public class DateTimeExamples {
         System.out.println("1. LocalDate Examples:");
         
         // Creating LocalDate
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         System.out.println("Today: " + today);
         
         LocalDate specificDate = LocalDate.of(2023, 12, 25);
@@ -85,7 +100,7 @@ public class DateTimeExamples {
         System.out.println("2. LocalTime Examples:");
         
         // Creating LocalTime
-        LocalTime now = LocalTime.now();
+        LocalTime now = LocalTime.now(clock);
         System.out.println("Current time: " + now);
         
         LocalTime specificTime = LocalTime.of(14, 30, 45);
@@ -134,7 +149,7 @@ public class DateTimeExamples {
         System.out.println("3. LocalDateTime Examples:");
         
         // Creating LocalDateTime
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         System.out.println("Current date and time: " + now);
         
         LocalDateTime specificDateTime = LocalDateTime.of(2023, 12, 25, 14, 30, 45);
@@ -224,9 +239,30 @@ public class DateTimeExamples {
         System.out.println("Forty-five seconds: " + fortyFiveSeconds);
         System.out.println("One day: " + oneDay);
         
+        // Aggregating many durations: collectors keep primitive accumulators
+        // instead of allocating a Duration per step
+        Random random = new Random(42);
+        List<Duration> responseTimes = random.longs(1_000_000, 50_000, 5_000_000)
+                .mapToObj(Duration::ofNanos)
+                .collect(Collectors.toList());
+        DurationStatistics latencyStats = responseTimes.parallelStream().collect(DurationCollectors.summarizing());
+        DurationHistogram latencyPercentiles = responseTimes.parallelStream()
+                .collect(DurationCollectors.percentiles());
+        System.out.println("Latency " + latencyStats);
+        System.out.println("Latency percentiles: " + latencyPercentiles);
+        
+        Map<DayOfWeek, Duration> timesheet = new EnumMap<>(DayOfWeek.class);
+        timesheet.put(DayOfWeek.MONDAY, duration);
+        timesheet.put(DayOfWeek.TUESDAY, Duration.between(LocalTime.of(8, 30), LocalTime.of(16, 45)));
+        timesheet.put(DayOfWeek.WEDNESDAY, Duration.between(LocalTime.of(9, 15), LocalTime.of(18, 0)));
+        timesheet.put(DayOfWeek.THURSDAY, Duration.between(LocalTime.of(9, 0), LocalTime.of(13, 0)));
+        Duration weekTotal = timesheet.values().stream().collect(DurationCollectors.summing());
+        Duration longestDay = timesheet.values().stream().collect(DurationCollectors.maximum()).orElse(Duration.ZERO);
+        System.out.println("Timesheet total: " + weekTotal + " (longest day " + longestDay + ")");
+        
         // Using Period and Duration with dates/times
-        LocalDate futureDate = LocalDate.now().plus(Period.ofMonths(3));
-        LocalTime futureTime = LocalTime.now().plus(Duration.ofHours(2));
+        LocalDate futureDate = LocalDate.now(clock).plus(Period.ofMonths(3));
+        LocalTime futureTime = LocalTime.now(clock).plus(Duration.ofHours(2));
         
         System.out.println("Date plus 3 months: " + futureDate);
         System.out.println("Time plus 2 hours: " + futureTime);
@@ -240,7 +276,7 @@ public class DateTimeExamples {
     public void dateTimeFormatter() {
         System.out.println("5. DateTimeFormatter Examples:");
         
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         
         // Predefined formatters
         System.out.println("ISO_LOCAL_DATE: " + now.format(DateTimeFormatter.ISO_LOCAL_DATE));
@@ -248,13 +284,13 @@ public class DateTimeExamples {
         System.out.println("ISO_LOCAL_DATE_TIME: " + now.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         
         // Custom formatters
-        DateTimeFormatter customFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+        DateTimeFormatter customFormatter = DateTimeFormatterRegistry.ofPattern("dd/MM/yyyy HH:mm:ss");
         System.out.println("Custom format: " + now.format(customFormatter));
         
-        DateTimeFormatter dateOnlyFormatter = DateTimeFormatter.ofPattern("EEEE, MMMM dd, yyyy");
+        DateTimeFormatter dateOnlyFormatter = DateTimeFormatterRegistry.ofPattern("EEEE, MMMM dd, yyyy");
         System.out.println("Date only: " + now.format(dateOnlyFormatter));
         
-        DateTimeFormatter timeOnlyFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+        DateTimeFormatter timeOnlyFormatter = DateTimeFormatterRegistry.ofPattern("hh:mm a");
         System.out.println("Time only: " + now.format(timeOnlyFormatter));
         
         // Parsing with formatters
@@ -262,22 +298,47 @@ public class DateTimeExamples {
         LocalDateTime parsed = LocalDateTime.parse(dateString, customFormatter);
         System.out.println("Parsed date: " + parsed);
         
-        // Localized formatters
-        DateTimeFormatter localizedFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
-        ZonedDateTime zonedNow = ZonedDateTime.now();
+        // Allocation-free parsing of fixed-width timestamps to a primitive epoch value
+        FixedWidthFormat logTimestamp = DateTimeFormatterRegistry.fixedWidth("dd/MM/yyyy HH:mm:ss");
+        long parsedMillis = logTimestamp.parseEpochMilli(dateString, 0, ZoneOffset.UTC);
+        System.out.println("Parsed epoch millis (UTC): " + parsedMillis
+                + " -> " + logTimestamp.parseLocalDateTime(dateString));
+        
+        // Localized formatters (cached per style, locale and zone)
+        DateTimeFormatter localizedFormatter = DateTimeFormatterRegistry.ofLocalizedDateTime(FormatStyle.MEDIUM,
+                Locale.getDefault(Locale.Category.FORMAT));
+        ZonedDateTime zonedNow = ZonedDateTime.now(clock);
         System.out.println("Localized format: " + zonedNow.format(localizedFormatter));
         
         // Formatter with locale
-        DateTimeFormatter frenchFormatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.FULL)
-                .withLocale(Locale.FRENCH);
+        DateTimeFormatter frenchFormatter = DateTimeFormatterRegistry.ofLocalizedDateTime(FormatStyle.FULL,
+                Locale.FRENCH);
         System.out.println("French format: " + zonedNow.format(frenchFormatter));
         
         // Formatting individual components
-        LocalDate date = LocalDate.now();
-        LocalTime time = LocalTime.now();
-        
-        System.out.println("Date: " + date.format(DateTimeFormatter.ofPattern("yyyy-MM-dd")));
-        System.out.println("Time: " + time.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+        LocalDate date = LocalDate.now(clock);
+        LocalTime time = LocalTime.now(clock);
+        
+        System.out.println("Date: " + date.format(DateTimeFormatterRegistry.ofPattern("yyyy-MM-dd")));
+        System.out.println("Time: " + time.format(DateTimeFormatterRegistry.ofPattern("HH:mm:ss")));
+        
+        // Fixed-width fast path: digits written straight into a reused StringBuilder
+        StringBuilder line = new StringBuilder(32);
+        FixedWidthFormat isoMillis = FixedWidthFormat.ISO_LOCAL_DATE_TIME_MILLIS;
+        System.out.println("Fast ISO format: " + isoMillis.format(now, line));
+        long epochMilli = clock.millis();
+        int count = 2_000_000;
+        long checksum = 0;
+        long start = NanoClock.monotonic().nanoTime();
+        for (int i = 0; i < count; i++) {
+            line.setLength(0);
+            isoMillis.formatEpochMilli(epochMilli + i, ZoneOffset.UTC, line);
+            checksum += line.charAt(line.length() - 1);
+        }
+        long elapsed = NanoClock.monotonic().elapsedNanos(start);
+        System.out.printf("Fast-path formatting: %,.0f timestamps/s (checksum %d)%n",
+                count * 1_000_000_000.0 / elapsed, checksum);
+        System.out.println("Cached formatters: " + DateTimeFormatterRegistry.size());
         
         System.out.println();
     }
@@ -288,7 +349,7 @@ public class DateTimeExamples {
     public void temporalAdjusters() {
         System.out.println("6. Temporal Adjusters Examples:");
         
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         
         // Predefined adjusters
         LocalDate firstDayOfMonth = today.with(TemporalAdjusters.firstDayOfMonth());
@@ -324,6 +385,14 @@ public class DateTimeExamples {
         
         System.out.println("Next working day: " + nextWorkingDay);
         
+        // Recurrence rules compiled to adjusters, with cached yearly occurrence tables
+        RecurrenceRule lastFriday = RecurrenceRule.compile("every last friday");
+        RecurrenceRule firstBusinessDay = RecurrenceRule.compile("first business day of month");
+        System.out.println("Next last Friday of a month: " + today.with(lastFriday));
+        System.out.println("Upcoming first business days: " + firstBusinessDay.occurrences(today)
+                .limit(3)
+                .collect(Collectors.toList()));
+        
         System.out.println();
     }
     
@@ -334,15 +403,15 @@ public class DateTimeExamples {
         System.out.println("7. Time Zones Examples:");
         
         // Getting current time in different zones
-        ZoneId utc = ZoneId.of("UTC");
-        ZoneId newYork = ZoneId.of("America/New_York");
-        ZoneId tokyo = ZoneId.of("Asia/Tokyo");
-        ZoneId london = ZoneId.of("Europe/London");
+        ZoneId utc = ZoneService.zone("UTC");
+        ZoneId newYork = ZoneService.zone("America/New_York");
+        ZoneId tokyo = ZoneService.zone("Asia/Tokyo");
+        ZoneId london = ZoneService.zone("Europe/London");
         
-        ZonedDateTime utcTime = ZonedDateTime.now(utc);
-        ZonedDateTime newYorkTime = ZonedDateTime.now(newYork);
-        ZonedDateTime tokyoTime = ZonedDateTime.now(tokyo);
-        ZonedDateTime londonTime = ZonedDateTime.now(london);
+        ZonedDateTime utcTime = ZonedDateTime.now(clock.withZone(utc));
+        ZonedDateTime newYorkTime = ZonedDateTime.now(clock.withZone(newYork));
+        ZonedDateTime tokyoTime = ZonedDateTime.now(clock.withZone(tokyo));
+        ZonedDateTime londonTime = ZonedDateTime.now(clock.withZone(london));
         
         System.out.println("UTC: " + utcTime);
         System.out.println("New York: " + newYorkTime);
@@ -350,15 +419,29 @@ public class DateTimeExamples {
         System.out.println("London: " + londonTime);
         
         // Converting between zones
-        LocalDateTime localDateTime = LocalDateTime.now();
-        ZonedDateTime converted = localDateTime.atZone(ZoneId.systemDefault())
+        LocalDateTime localDateTime = LocalDateTime.now(clock);
+        ZonedDateTime converted = localDateTime.atZone(clock.getZone())
                 .withZoneSameInstant(newYork);
         
         System.out.println("Local time: " + localDateTime);
         System.out.println("Converted to New York: " + converted);
         
+        // Bulk conversion of epoch seconds through a cached transition table
+        ZoneOffsetTable newYorkTable = ZoneService.offsetTable(newYork);
+        long[] instants = new long[100_000];
+        long firstInstant = LocalDateTime.of(2023, 3, 12, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < instants.length; i++) {
+            instants[i] = firstInstant + i * 60L;
+        }
+        long[] newYorkLocal = newYorkTable.toLocalEpochSeconds(instants, new long[instants.length]);
+        long[] tokyoLocal = ZoneService.convertLocal(newYorkLocal, newYork, tokyo, new long[instants.length]);
+        System.out.println("Converted " + instants.length + " instants; last one in New York: "
+                + LocalDateTime.ofEpochSecond(newYorkLocal[instants.length - 1], 0, ZoneOffset.UTC)
+                + ", in Tokyo: " + LocalDateTime.ofEpochSecond(tokyoLocal[instants.length - 1], 0, ZoneOffset.UTC)
+                + " (" + newYorkTable.getTransitionCount() + " New York transitions cached)");
+        
         // Available zones
-        Set<String> availableZones = ZoneId.getAvailableZoneIds();
+        Set<String> availableZones = ZoneService.availableZoneIds();
         System.out.println("Number of available zones: " + availableZones.size());
         
         // System default zone
@@ -367,7 +450,7 @@ public class DateTimeExamples {
         
         // Offset
         ZoneOffset offset = ZoneOffset.of("+05:30");
-        OffsetDateTime offsetDateTime = OffsetDateTime.now(offset);
+        OffsetDateTime offsetDateTime = OffsetDateTime.now(clock.withZone(offset));
         System.out.println("Offset date time: " + offsetDateTime);
         
         System.out.println();
@@ -380,7 +463,7 @@ public class DateTimeExamples {
         System.out.println("8. Legacy Date Conversion Examples:");
         
         // Converting from legacy Date to new API
-        Date legacyDate = new Date();
+        Date legacyDate = new Date(clock.millis());
         Instant instant = legacyDate.toInstant();
         LocalDateTime localDateTime = LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
         
@@ -388,7 +471,7 @@ public class DateTimeExamples {
         System.out.println("Converted to LocalDateTime: " + localDateTime);
         
         // Converting from new API to legacy Date
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         Instant newInstant = now.atZone(ZoneId.systemDefault()).toInstant();
         Date newLegacyDate = Date.from(newInstant);
         
@@ -397,14 +480,26 @@ public class DateTimeExamples {
         
         // Converting Calendar
         Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(clock.millis());
         Instant calendarInstant = calendar.toInstant();
         LocalDateTime calendarDateTime = LocalDateTime.ofInstant(calendarInstant, ZoneId.systemDefault());
         
         System.out.println("Calendar: " + calendar.getTime());
         System.out.println("Converted to LocalDateTime: " + calendarDateTime);
         
+        // Bulk conversion of legacy rows through cached zone offsets
+        Date[] legacyRows = new Date[100_000];
+        for (int i = 0; i < legacyRows.length; i++) {
+            legacyRows[i] = new Date(legacyDate.getTime() - i * 3_600_000L);
+        }
+        LegacyDateConverter converter = new LegacyDateConverter(clock.getZone());
+        long[] packed = converter.toPacked(LegacyDateConverter.epochMillis(legacyRows), true);
+        String[] isoRows = converter.toIsoStrings(LegacyDateConverter.epochMillis(legacyRows), true);
+        System.out.println("Converted " + legacyRows.length + " legacy rows; oldest: "
+                + PackedDateTime.toLocalDateTime(packed[packed.length - 1]) + " / " + isoRows[isoRows.length - 1]);
+        
         // Working with Instant
-        Instant nowInstant = Instant.now();
+        Instant nowInstant = clock.instant();
         System.out.println("Current instant: " + nowInstant);
         
         Instant plusOneHour = nowInstant.plus(Duration.ofHours(1));
@@ -421,24 +516,40 @@ public class DateTimeExamples {
         
         // Age calculation
         LocalDate birthDate = LocalDate.of(1990, 5, 15);
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         Period age = Period.between(birthDate, today);
         
         System.out.println("Birth date: " + birthDate);
         System.out.println("Age: " + age.getYears() + " years, " + 
                           age.getMonths() + " months, " + age.getDays() + " days");
         
+        // Ages for a whole population from epoch-day arrays, without LocalDate objects
+        Random random = new Random(7);
+        long[] birthDays = random.longs(1_000_000, LocalDate.of(1930, 1, 1).toEpochDay(),
+                LocalDate.of(2010, 1, 1).toEpochDay()).toArray();
+        long[] periods = PeriodCalculator.between(birthDays, today.toEpochDay(), new long[birthDays.length], true);
+        System.out.println("First of " + birthDays.length + " customers: born " + LocalDate.ofEpochDay(birthDays[0])
+                + ", age " + PackedPeriod.toPeriod(periods[0]));
+        System.out.println("Average age: " + String.format("%.1f",
+                Arrays.stream(PeriodCalculator.ages(birthDays, today.toEpochDay(), true)).average().orElse(0)));
+        
         // Working days calculation
         LocalDate startDate = LocalDate.of(2023, 1, 1);
         LocalDate endDate = LocalDate.of(2023, 1, 31);
         
-        long workingDays = startDate.datesUntil(endDate.plusDays(1))
-                .filter(date -> date.getDayOfWeek() != DayOfWeek.SATURDAY 
-                        && date.getDayOfWeek() != DayOfWeek.SUNDAY)
-                .count();
+        long workingDays = BusinessCalendar.weekdays().workingDaysBetween(startDate, endDate.plusDays(1));
         
         System.out.println("Working days in January 2023: " + workingDays);
         
+        // Holidays and SLA deadlines in working days
+        BusinessCalendar calendar = BusinessCalendar.weekdays()
+                .withHolidays(Arrays.asList(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 16)));
+        System.out.println("Working days excluding holidays: "
+                + calendar.workingDaysBetween(startDate, endDate.plusDays(1)));
+        LocalDate ticketOpened = LocalDate.of(2023, 1, 13);
+        System.out.println("3-working-day SLA for a ticket opened " + ticketOpened + ": "
+                + calendar.addWorkingDays(ticketOpened, 3));
+        
         // Time difference calculation
         LocalTime startTime = LocalTime.of(9, 0);
         LocalTime endTime = LocalTime.of(17, 30);
@@ -448,8 +559,8 @@ public class DateTimeExamples {
                           workDuration.toMinutesPart() + " minutes");
         
         // Business hours calculation
-        LocalDateTime businessStart = LocalDateTime.of(LocalDate.now(), LocalTime.of(9, 0));
-        LocalDateTime businessEnd = LocalDateTime.of(LocalDate.now(), LocalTime.of(17, 0));
+        LocalDateTime businessStart = LocalDateTime.of(LocalDate.now(clock), LocalTime.of(9, 0));
+        LocalDateTime businessEnd = LocalDateTime.of(LocalDate.now(clock), LocalTime.of(17, 0));
         
         Duration businessHours = Duration.between(businessStart, businessEnd);
         System.out.println("Business hours: " + businessHours.toHours() + " hours");
@@ -458,10 +569,25 @@ public class DateTimeExamples {
         LocalDate start = LocalDate.of(2023, 1, 1);
         LocalDate end = LocalDate.of(2023, 1, 10);
         
-        List<LocalDate> dateRange = start.datesUntil(end.plusDays(1))
-                .collect(java.util.stream.Collectors.toList());
-        
-        System.out.println("Date range: " + dateRange);
+        DateRange dateRange = DateRange.closed(start, end);
+        
+        System.out.println("Date range: " + dateRange + " (" + dateRange.length() + " days)");
+        System.out.println("Weekend days in range: " + dateRange.dates()
+                .filter(date -> !BusinessCalendar.weekdays().isWorkingDay(date))
+                .count());
+        
+        DateRange overlap = dateRange.intersect(DateRange.closed(LocalDate.of(2023, 1, 8), LocalDate.of(2023, 1, 20)));
+        System.out.println("Intersection with [2023-01-08, 2023-01-20]: " + overlap);
+        
+        // Overlap queries over many bookings
+        DateRangeIndex.Builder bookings = DateRangeIndex.builder();
+        for (int i = 0; i < 100_000; i++) {
+            long checkIn = start.toEpochDay() + (i * 7L) % 365;
+            bookings.add(checkIn, checkIn + 1 + i % 14);
+        }
+        DateRangeIndex index = bookings.build();
+        System.out.println("Bookings overlapping " + dateRange + ": " + index.countOverlapping(dateRange)
+                + " of " + index.size());
         
         System.out.println();
     }
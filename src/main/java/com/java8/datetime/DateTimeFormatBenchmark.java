@@ -0,0 +1,66 @@
+package com.java8.datetime;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Formatting throughput for {@code "dd/MM/yyyy HH:mm:ss"} and ISO
+ * timestamps: a formatter rebuilt per call, a cached
+ * {@link DateTimeFormatter}, and the {@link FixedWidthFormat} fast path.
+ */
+public class DateTimeFormatBenchmark {
+
+    private static final int COUNT = 2_000_000;
+
+    public static void main(String[] args) {
+        System.out.println("=== Date/Time Format Benchmark ===");
+        LocalDateTime[] times = new LocalDateTime[1024];
+        LocalDateTime base = LocalDateTime.of(2023, 12, 25, 14, 30, 45, 123_000_000);
+        for (int i = 0; i < times.length; i++) {
+            times[i] = base.plusSeconds(i * 7919L);
+        }
+        String pattern = "dd/MM/yyyy HH:mm:ss";
+        DateTimeFormatter cached = DateTimeFormatterRegistry.ofPattern(pattern);
+        FixedWidthFormat fixed = DateTimeFormatterRegistry.fixedWidth(pattern);
+        StringBuilder out = new StringBuilder(32);
+        long epochMilli = base.toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        System.out.printf("%-40s %16s%n", "variant", "formats/s");
+        report("ofPattern(...) per call", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += DateTimeFormatter.ofPattern(pattern).format(times[i & 1023]).length();
+            }
+            return sum;
+        });
+        report("cached DateTimeFormatter", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += cached.format(times[i & 1023]).length();
+            }
+            return sum;
+        });
+        report("FixedWidthFormat -> StringBuilder", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                out.setLength(0);
+                sum += fixed.format(times[i & 1023], out).length();
+            }
+            return sum;
+        });
+        report("ISO millis from epoch -> StringBuilder", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                out.setLength(0);
+                sum += FixedWidthFormat.ISO_LOCAL_DATE_TIME_MILLIS
+                        .formatEpochMilli(epochMilli + i * 1001L, ZoneOffset.UTC, out).length();
+            }
+            return sum;
+        });
+    }
+
+    private static void report(String name, BenchmarkHarness.Run run) {
+        BenchmarkHarness.report(name, 40, COUNT, run);
+    }
+}
@@ -0,0 +1,158 @@
+package com.java8.datetime;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.time.temporal.TemporalAccessor;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Shared cache of compiled {@link DateTimeFormatter}s keyed by pattern,
+ * locale and zone, so a pattern is parsed once per process instead of on
+ * every {@code ofPattern}/{@code withLocale} call.
+ *
+ * Fixed-width numeric patterns are additionally compiled to a
+ * {@link FixedWidthFormat}; {@link #format(LocalDateTime, String, StringBuilder)}
+ * uses it when available and falls back to the cached formatter otherwise.
+ *
+ * Entries are never evicted, so pass constant patterns only: each cache
+ * stops growing at {@link #MAX_CACHED} entries, after which new patterns
+ * are compiled on every call rather than retained.
+ */
+public final class DateTimeFormatterRegistry {
+
+    /** Upper bound on the entries of each cache. */
+    public static final int MAX_CACHED = 256;
+
+    private static final ConcurrentMap<Key, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Optional<FixedWidthFormat>> FIXED_WIDTH = new ConcurrentHashMap<>();
+
+    private DateTimeFormatterRegistry() {
+    }
+
+    public static DateTimeFormatter ofPattern(String pattern) {
+        return ofPattern(pattern, Locale.getDefault(Locale.Category.FORMAT), null);
+    }
+
+    public static DateTimeFormatter ofPattern(String pattern, Locale locale) {
+        return ofPattern(pattern, locale, null);
+    }
+
+    /**
+     * @param zone override zone, or null for none
+     */
+    public static DateTimeFormatter ofPattern(String pattern, Locale locale, ZoneId zone) {
+        return cached(FORMATTERS, new Key(pattern, null, null, locale, zone), k -> {
+            DateTimeFormatter compiled = DateTimeFormatter.ofPattern(pattern, locale);
+            return zone == null ? compiled : compiled.withZone(zone);
+        });
+    }
+
+    public static DateTimeFormatter ofLocalizedDateTime(FormatStyle style, Locale locale) {
+        return ofLocalizedDateTime(style, style, locale, null);
+    }
+
+    public static DateTimeFormatter ofLocalizedDateTime(FormatStyle dateStyle, FormatStyle timeStyle,
+                                                        Locale locale, ZoneId zone) {
+        return cached(FORMATTERS, new Key(null, dateStyle, timeStyle, locale, zone), k -> {
+            DateTimeFormatter localized = DateTimeFormatter.ofLocalizedDateTime(dateStyle, timeStyle)
+                    .withLocale(locale);
+            return zone == null ? localized : localized.withZone(zone);
+        });
+    }
+
+    /**
+     * The compiled fixed-width form of the pattern, or null if it has none.
+     */
+    public static FixedWidthFormat fixedWidth(String pattern) {
+        return cached(FIXED_WIDTH, pattern, p -> Optional.ofNullable(FixedWidthFormat.tryCompile(p))).orElse(null);
+    }
+
+    /**
+     * Appends the formatted value using the fixed-width fast path when the
+     * pattern and the year allow it.
+     */
+    public static StringBuilder format(LocalDateTime dateTime, String pattern, StringBuilder out) {
+        FixedWidthFormat fast = fixedWidth(pattern);
+        if (fast != null && fast.supportsYear(dateTime.getYear())) {
+            return fast.format(dateTime, out);
+        }
+        ofPattern(pattern).formatTo(dateTime, out);
+        return out;
+    }
+
+    public static StringBuilder format(LocalDate date, String pattern, StringBuilder out) {
+        FixedWidthFormat fast = fixedWidth(pattern);
+        if (fast != null && !fast.hasTime() && fast.supportsYear(date.getYear())) {
+            return fast.format(date, out);
+        }
+        ofPattern(pattern).formatTo(date, out);
+        return out;
+    }
+
+    public static String format(TemporalAccessor temporal, String pattern) {
+        return ofPattern(pattern).format(temporal);
+    }
+
+    /** Number of cached {@link DateTimeFormatter}s. */
+    public static int size() {
+        return FORMATTERS.size();
+    }
+
+    /**
+     * The cached value, or a new one that is cached only while the cache
+     * holds fewer than {@link #MAX_CACHED} entries (a concurrent burst may
+     * overshoot by a few).
+     */
+    private static <K, V> V cached(ConcurrentMap<K, V> cache, K key, Function<K, V> compile) {
+        V value = cache.get(key);
+        if (value == null) {
+            value = cache.size() < MAX_CACHED ? cache.computeIfAbsent(key, compile) : compile.apply(key);
+        }
+        return value;
+    }
+
+    private static final class Key {
+        private final String pattern;
+        private final FormatStyle dateStyle;
+        private final FormatStyle timeStyle;
+        private final Locale locale;
+        private final ZoneId zone;
+        private final int hash;
+
+        Key(String pattern, FormatStyle dateStyle, FormatStyle timeStyle, Locale locale, ZoneId zone) {
+            this.pattern = pattern;
+            this.dateStyle = dateStyle;
+            this.timeStyle = timeStyle;
+            this.locale = locale;
+            this.zone = zone;
+            this.hash = Objects.hash(pattern, dateStyle, timeStyle, locale, zone);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return Objects.equals(pattern, other.pattern) && dateStyle == other.dateStyle
+                    && timeStyle == other.timeStyle && Objects.equals(locale, other.locale)
+                    && Objects.equals(zone, other.zone);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
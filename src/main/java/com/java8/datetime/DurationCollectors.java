@@ -0,0 +1,66 @@
+package com.java8.datetime;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collector;
+
+/**
+ * Stream collectors aggregating durations without allocating a
+ * {@code Duration} per accumulation step (compare
+ * {@code reduce(Duration.ZERO, Duration::plus)}). The {@code ...Nanos}
+ * variants read a primitive nanosecond value from each element, so events
+ * never need a {@code Duration} at all. All collectors are unordered and
+ * support parallel streams.
+ */
+public final class DurationCollectors {
+
+    private DurationCollectors() {
+    }
+
+    public static Collector<Duration, ?, DurationStatistics> summarizing() {
+        return Collector.of(DurationStatistics::new, DurationStatistics::accept, DurationStatistics::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, ?, DurationStatistics> summarizingNanos(ToLongFunction<? super T> nanos) {
+        return Collector.of(DurationStatistics::new, (stats, t) -> stats.acceptNanos(nanos.applyAsLong(t)),
+                DurationStatistics::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * @throws ArithmeticException (on collection) if the sum overflows
+     */
+    public static Collector<Duration, ?, Duration> summing() {
+        return Collector.of(DurationStatistics::new, DurationStatistics::accept, DurationStatistics::combine,
+                DurationStatistics::getSum, Collector.Characteristics.UNORDERED);
+    }
+
+    /** The mean, truncated to nanoseconds; zero for an empty stream. */
+    public static Collector<Duration, ?, Duration> averaging() {
+        return Collector.of(DurationStatistics::new, DurationStatistics::accept, DurationStatistics::combine,
+                DurationStatistics::getAverage, Collector.Characteristics.UNORDERED);
+    }
+
+    public static Collector<Duration, ?, Optional<Duration>> minimum() {
+        return Collector.of(DurationStatistics::new, DurationStatistics::accept, DurationStatistics::combine,
+                stats -> Optional.ofNullable(stats.getMin()), Collector.Characteristics.UNORDERED);
+    }
+
+    public static Collector<Duration, ?, Optional<Duration>> maximum() {
+        return Collector.of(DurationStatistics::new, DurationStatistics::accept, DurationStatistics::combine,
+                stats -> Optional.ofNullable(stats.getMax()), Collector.Characteristics.UNORDERED);
+    }
+
+    public static Collector<Duration, ?, DurationHistogram> percentiles() {
+        return Collector.of(DurationHistogram::new, DurationHistogram::accept, DurationHistogram::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    public static <T> Collector<T, ?, DurationHistogram> percentilesNanos(ToLongFunction<? super T> nanos) {
+        return Collector.of(DurationHistogram::new, (histogram, t) -> histogram.acceptNanos(nanos.applyAsLong(t)),
+                DurationHistogram::combine,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+}
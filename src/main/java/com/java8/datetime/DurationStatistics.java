@@ -0,0 +1,114 @@
+package com.java8.datetime;
+
+import java.math.BigInteger;
+import java.time.Duration;
+
+/**
+ * Count, sum, average, min and max of durations, kept as primitive
+ * seconds/nanos so accumulating does not allocate a {@code Duration} per
+ * value. Like {@code LongSummaryStatistics} it is a mutable container meant
+ * for {@link DurationCollectors#summarizing()}; it is not thread-safe, and
+ * parallel streams combine one instance per task. A sum beyond the
+ * {@code Duration} range throws {@link ArithmeticException}, as
+ * {@link Duration#plus(Duration)} does.
+ */
+public class DurationStatistics {
+
+    private static final BigInteger NANOS_PER_SECOND = BigInteger.valueOf(1_000_000_000L);
+
+    private long count;
+    private long sumSeconds;
+    private int sumNanos;
+    private long minSeconds = Long.MAX_VALUE;
+    private int minNanos;
+    private long maxSeconds = Long.MIN_VALUE;
+    private int maxNanos;
+
+    public void accept(Duration duration) {
+        accept(duration.getSeconds(), duration.getNano());
+    }
+
+    /** Records a duration given in nanoseconds. */
+    public void acceptNanos(long nanos) {
+        accept(Math.floorDiv(nanos, 1_000_000_000L), (int) Math.floorMod(nanos, 1_000_000_000L));
+    }
+
+    /**
+     * @param nanoAdjustment 0 to 999,999,999, as from {@link Duration#getNano()}
+     */
+    public void accept(long seconds, int nanoAdjustment) {
+        count++;
+        add(seconds, nanoAdjustment);
+        if (seconds < minSeconds || (seconds == minSeconds && nanoAdjustment < minNanos)) {
+            minSeconds = seconds;
+            minNanos = nanoAdjustment;
+        }
+        if (seconds > maxSeconds || (seconds == maxSeconds && nanoAdjustment > maxNanos)) {
+            maxSeconds = seconds;
+            maxNanos = nanoAdjustment;
+        }
+    }
+
+    /** Merges another instance into this one, for parallel collection. */
+    public DurationStatistics combine(DurationStatistics other) {
+        if (other.count == 0) {
+            return this;
+        }
+        count += other.count;
+        add(other.sumSeconds, other.sumNanos);
+        if (other.minSeconds < minSeconds || (other.minSeconds == minSeconds && other.minNanos < minNanos)) {
+            minSeconds = other.minSeconds;
+            minNanos = other.minNanos;
+        }
+        if (other.maxSeconds > maxSeconds || (other.maxSeconds == maxSeconds && other.maxNanos > maxNanos)) {
+            maxSeconds = other.maxSeconds;
+            maxNanos = other.maxNanos;
+        }
+        return this;
+    }
+
+    private void add(long seconds, int nanos) {
+        int totalNanos = sumNanos + nanos;
+        long carry = 0;
+        if (totalNanos >= 1_000_000_000) {
+            totalNanos -= 1_000_000_000;
+            carry = 1;
+        }
+        sumSeconds = Math.addExact(Math.addExact(sumSeconds, seconds), carry);
+        sumNanos = totalNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Duration getSum() {
+        return Duration.ofSeconds(sumSeconds, sumNanos);
+    }
+
+    /** The mean, truncated to whole nanoseconds; zero when empty. */
+    public Duration getAverage() {
+        if (count == 0) {
+            return Duration.ZERO;
+        }
+        BigInteger total = BigInteger.valueOf(sumSeconds).multiply(NANOS_PER_SECOND).add(BigInteger.valueOf(sumNanos));
+        BigInteger[] secondsAndNanos = total.divide(BigInteger.valueOf(count)).divideAndRemainder(NANOS_PER_SECOND);
+        return Duration.ofSeconds(secondsAndNanos[0].longValue(), secondsAndNanos[1].longValue());
+    }
+
+    /** The shortest duration, or null when empty. */
+    public Duration getMin() {
+        return count == 0 ? null : Duration.ofSeconds(minSeconds, minNanos);
+    }
+
+    /** The longest duration, or null when empty. */
+    public Duration getMax() {
+        return count == 0 ? null : Duration.ofSeconds(maxSeconds, maxNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("DurationStatistics{count=%d, sum=%s, min=%s, average=%s, max=%s}",
+                count, getSum(), getMin(), getAverage(), getMax());
+    }
+}
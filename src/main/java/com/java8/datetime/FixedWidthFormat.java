@@ -0,0 +1,551 @@
+package com.java8.datetime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precompiled fixed-width numeric date/time pattern such as
+ * {@code "yyyy-MM-dd'T'HH:mm:ss"} or {@code "dd/MM/yyyy HH:mm:ss"}.
+ *
+ * Every field sits at a known offset, so formatting writes digits straight
+ * into a {@code char[]} or {@code StringBuilder}, and parsing reads them
+ * straight from a {@code CharSequence} or an ASCII {@code ByteBuffer} into
+ * a primitive epoch value; nothing is allocated per call (parse errors
+ * excepted). Supported letters are {@code uuuu} (years 0-9999), {@code yyyy}
+ * (year-of-era, so years 1-9999 only), {@code MM}, {@code dd}, {@code HH},
+ * {@code mm}, {@code ss} and {@code S}..{@code SSSSSSSSS}; other characters
+ * and quoted text are literals. Patterns with optional sections or the
+ * reserved characters {@code [ ] { } #} are not compiled. Instances are
+ * immutable and thread-safe.
+ */
+public final class FixedWidthFormat {
+
+    public static final FixedWidthFormat ISO_LOCAL_DATE = compile("yyyy-MM-dd");
+    public static final FixedWidthFormat ISO_LOCAL_TIME = compile("HH:mm:ss");
+    public static final FixedWidthFormat ISO_LOCAL_DATE_TIME = compile("yyyy-MM-dd'T'HH:mm:ss");
+    public static final FixedWidthFormat ISO_LOCAL_DATE_TIME_MILLIS = compile("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    static final int YEAR = 0;
+    static final int MONTH = 1;
+    static final int DAY = 2;
+    static final int HOUR = 3;
+    static final int MINUTE = 4;
+    static final int SECOND = 5;
+    static final int FRACTION = 6;
+
+    private static final int[] POWERS_OF_TEN = {
+        1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000
+    };
+    private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[64]);
+
+    private final String pattern;
+    private final char[] template;
+    final int[] fieldType;
+    final int[] fieldOffset;
+    final int[] fieldWidth;
+    private final int[] literalOffsets;
+    private final boolean hasDate;
+    private final boolean hasTime;
+    /** 1 for {@code yyyy}, which is year-of-era and has no year 0; 0 for {@code uuuu}. */
+    private final int minYear;
+
+    private FixedWidthFormat(String pattern, char[] template, int[] fieldType, int[] fieldOffset, int[] fieldWidth,
+                             int minYear) {
+        this.pattern = pattern;
+        this.minYear = minYear;
+        this.template = template;
+        this.fieldType = fieldType;
+        this.fieldOffset = fieldOffset;
+        this.fieldWidth = fieldWidth;
+        boolean date = false;
+        boolean time = false;
+        for (int type : fieldType) {
+            date |= type <= DAY;
+            time |= type >= HOUR;
+        }
+        this.hasDate = date;
+        this.hasTime = time;
+        boolean[] isField = new boolean[template.length];
+        int literals = template.length;
+        for (int f = 0; f < fieldType.length; f++) {
+            for (int k = 0; k < fieldWidth[f]; k++) {
+                isField[fieldOffset[f] + k] = true;
+            }
+            literals -= fieldWidth[f];
+        }
+        this.literalOffsets = new int[literals];
+        for (int i = 0, l = 0; i < template.length; i++) {
+            if (!isField[i]) {
+                literalOffsets[l++] = i;
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the pattern is not fixed-width numeric
+     */
+    public static FixedWidthFormat compile(String pattern) {
+        FixedWidthFormat format = tryCompile(pattern);
+        if (format == null) {
+            throw new IllegalArgumentException("Not a fixed-width numeric pattern: " + pattern);
+        }
+        return format;
+    }
+
+    /**
+     * Compiles the pattern, or returns null if it has text fields, variable
+     * widths or letters this class does not handle.
+     */
+    public static FixedWidthFormat tryCompile(String pattern) {
+        StringBuilder template = new StringBuilder();
+        List<int[]> fields = new ArrayList<>();
+        int seen = 0;
+        int minYear = 0;
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                i = appendQuoted(pattern, i, template);
+                if (i < 0) {
+                    return null;
+                }
+                continue;
+            }
+            if (c == '[' || c == ']' || c == '{' || c == '}' || c == '#') {
+                // Optional sections and reserved characters: leave them to DateTimeFormatter
+                return null;
+            }
+            if (!Character.isLetter(c)) {
+                template.append(c);
+                i++;
+                continue;
+            }
+            int run = i;
+            while (run < pattern.length() && pattern.charAt(run) == c) {
+                run++;
+            }
+            int width = run - i;
+            int type;
+            switch (c) {
+                case 'y':
+                case 'u':
+                    type = width == 4 ? YEAR : -1;
+                    break;
+                case 'M':
+                    type = width == 2 ? MONTH : -1;
+                    break;
+                case 'd':
+                    type = width == 2 ? DAY : -1;
+                    break;
+                case 'H':
+                    type = width == 2 ? HOUR : -1;
+                    break;
+                case 'm':
+                    type = width == 2 ? MINUTE : -1;
+                    break;
+                case 's':
+                    type = width == 2 ? SECOND : -1;
+                    break;
+                case 'S':
+                    type = width <= 9 ? FRACTION : -1;
+                    break;
+                default:
+                    type = -1;
+            }
+            if (type < 0 || (seen & (1 << type)) != 0) {
+                return null;
+            }
+            seen |= 1 << type;
+            if (c == 'y') {
+                minYear = 1;
+            }
+            fields.add(new int[] {type, template.length(), width});
+            for (int k = 0; k < width; k++) {
+                template.append('0');
+            }
+            i = run;
+        }
+        if (fields.isEmpty()) {
+            return null;
+        }
+        int[] fieldType = new int[fields.size()];
+        int[] fieldOffset = new int[fields.size()];
+        int[] fieldWidth = new int[fields.size()];
+        for (int f = 0; f < fields.size(); f++) {
+            fieldType[f] = fields.get(f)[0];
+            fieldOffset[f] = fields.get(f)[1];
+            fieldWidth[f] = fields.get(f)[2];
+        }
+        char[] chars = new char[template.length()];
+        template.getChars(0, chars.length, chars, 0);
+        return new FixedWidthFormat(pattern, chars, fieldType, fieldOffset, fieldWidth, minYear);
+    }
+
+    /**
+     * Appends the quoted text starting at {@code quote}, where {@code ''}
+     * stands for one quote, and returns the index after it, or -1 if the
+     * quote is not closed.
+     */
+    private static int appendQuoted(String pattern, int quote, StringBuilder template) {
+        if (quote + 1 < pattern.length() && pattern.charAt(quote + 1) == '\'') {
+            template.append('\'');
+            return quote + 2;
+        }
+        int start = quote + 1;
+        while (true) {
+            int end = pattern.indexOf('\'', start);
+            if (end < 0) {
+                return -1;
+            }
+            template.append(pattern, start, end);
+            if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                template.append('\'');
+                start = end + 2;
+            } else {
+                return end + 1;
+            }
+        }
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * True if the year can be formatted; {@code DateTimeFormatter} prints
+     * the others with a sign or as a year-of-era.
+     */
+    public boolean supportsYear(int year) {
+        return year >= minYear && year <= 9999;
+    }
+
+    /** Whether the pattern has an hour, minute, second or fraction field. */
+    boolean hasTime() {
+        return hasTime;
+    }
+
+    /** Number of characters every formatted value has. */
+    public int width() {
+        return template.length;
+    }
+
+    public String format(LocalDateTime dateTime) {
+        char[] out = new char[template.length];
+        format(dateTime, out, 0);
+        return new String(out);
+    }
+
+    public StringBuilder format(LocalDateTime dateTime, StringBuilder out) {
+        char[] scratch = scratch();
+        format(dateTime, scratch, 0);
+        return out.append(scratch, 0, template.length);
+    }
+
+    /**
+     * Writes {@link #width()} characters at {@code offset}.
+     */
+    public void format(LocalDateTime dateTime, char[] out, int offset) {
+        write(out, offset, dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(),
+                dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond(), dateTime.getNano());
+    }
+
+    public StringBuilder format(LocalDate date, StringBuilder out) {
+        if (hasTime) {
+            throw new DateTimeException("Pattern " + pattern + " needs a time");
+        }
+        char[] scratch = scratch();
+        write(scratch, 0, date.getYear(), date.getMonthValue(), date.getDayOfMonth(), 0, 0, 0, 0);
+        return out.append(scratch, 0, template.length);
+    }
+
+    public StringBuilder format(LocalTime time, StringBuilder out) {
+        if (hasDate) {
+            throw new DateTimeException("Pattern " + pattern + " needs a date");
+        }
+        char[] scratch = scratch();
+        write(scratch, 0, 0, 1, 1, time.getHour(), time.getMinute(), time.getSecond(), time.getNano());
+        return out.append(scratch, 0, template.length);
+    }
+
+    /**
+     * Formats an epoch-millisecond instant at the given offset without
+     * creating any temporal objects.
+     */
+    public void formatEpochMilli(long epochMilli, ZoneOffset offset, char[] out, int position) {
+        long local = epochMilli + offset.getTotalSeconds() * 1000L;
+        long epochDay = Math.floorDiv(local, 86_400_000L);
+        int millisOfDay = (int) Math.floorMod(local, 86_400_000L);
+        long date = civilFromEpochDay(epochDay);
+        int secondOfDay = millisOfDay / 1000;
+        write(out, position, (int) (date >> 9), (int) (date >> 5) & 0xF, (int) date & 0x1F,
+                secondOfDay / 3600, secondOfDay / 60 % 60, secondOfDay % 60, millisOfDay % 1000 * 1_000_000);
+    }
+
+    public StringBuilder formatEpochMilli(long epochMilli, ZoneOffset offset, StringBuilder out) {
+        char[] scratch = scratch();
+        formatEpochMilli(epochMilli, offset, scratch, 0);
+        return out.append(scratch, 0, template.length);
+    }
+
+    /**
+     * Parses the text at {@code position} as a local date-time at the given
+     * offset and returns epoch milliseconds. Missing date fields default to
+     * 1970-01-01, missing time fields to zero.
+     *
+     * @throws DateTimeParseException on a literal mismatch, a non-digit or
+     *         an out-of-range field
+     */
+    public long parseEpochMilli(CharSequence text, int position, ZoneOffset offset) {
+        checkLength(text, null, position);
+        long seconds = localEpochSecond(text, null, position) - offset.getTotalSeconds();
+        return seconds * 1000 + nanoOfSecond(text, null, position) / 1_000_000;
+    }
+
+    public long parseEpochMilli(CharSequence text) {
+        return parseEpochMilli(text, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Like {@link #parseEpochMilli(CharSequence, int, ZoneOffset)}, reading
+     * ASCII bytes at an absolute buffer index (the buffer position is not
+     * changed).
+     */
+    public long parseEpochMilli(ByteBuffer ascii, int index, ZoneOffset offset) {
+        checkLength(null, ascii, index);
+        long seconds = localEpochSecond(null, ascii, index) - offset.getTotalSeconds();
+        return seconds * 1000 + nanoOfSecond(null, ascii, index) / 1_000_000;
+    }
+
+    /**
+     * Epoch nanoseconds; representable up to the year 2262.
+     */
+    public long parseEpochNano(CharSequence text, int position, ZoneOffset offset) {
+        checkLength(text, null, position);
+        long seconds = localEpochSecond(text, null, position) - offset.getTotalSeconds();
+        return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), nanoOfSecond(text, null, position));
+    }
+
+    public long parseEpochNano(ByteBuffer ascii, int index, ZoneOffset offset) {
+        checkLength(null, ascii, index);
+        long seconds = localEpochSecond(null, ascii, index) - offset.getTotalSeconds();
+        return Math.addExact(Math.multiplyExact(seconds, 1_000_000_000L), nanoOfSecond(null, ascii, index));
+    }
+
+    /**
+     * Materializes the parsed value, for callers that need an object.
+     */
+    public LocalDateTime parseLocalDateTime(CharSequence text, int position) {
+        checkLength(text, null, position);
+        long seconds = localEpochSecond(text, null, position);
+        return LocalDateTime.ofEpochSecond(seconds, nanoOfSecond(text, null, position), ZoneOffset.UTC);
+    }
+
+    public LocalDateTime parseLocalDateTime(CharSequence text) {
+        return parseLocalDateTime(text, 0);
+    }
+
+    private void checkLength(CharSequence text, ByteBuffer bytes, int position) {
+        int available = text != null ? text.length() - position : bytes.limit() - position;
+        if (position < 0 || available < template.length) {
+            throw error("Text too short for pattern " + pattern, text, bytes, position, position);
+        }
+    }
+
+    private long localEpochSecond(CharSequence text, ByteBuffer bytes, int position) {
+        for (int literal : literalOffsets) {
+            if (charAt(text, bytes, position + literal) != template[literal]) {
+                throw error("Expected '" + template[literal] + "'", text, bytes, position, position + literal);
+            }
+        }
+        int year = 1970;
+        int month = 1;
+        int day = 1;
+        int secondOfDay = 0;
+        for (int f = 0; f < fieldType.length; f++) {
+            int type = fieldType[f];
+            if (type == FRACTION) {
+                continue;
+            }
+            int start = position + fieldOffset[f];
+            int value = digits(text, bytes, position, start, fieldWidth[f]);
+            switch (type) {
+                case YEAR:
+                    year = checkRange(value, minYear, 9999, "year", text, bytes, position, start);
+                    break;
+                case MONTH:
+                    month = checkRange(value, 1, 12, "month", text, bytes, position, start);
+                    break;
+                case DAY:
+                    day = checkRange(value, 1, 31, "day", text, bytes, position, start);
+                    break;
+                case HOUR:
+                    secondOfDay += checkRange(value, 0, 23, "hour", text, bytes, position, start) * 3600;
+                    break;
+                case MINUTE:
+                    secondOfDay += checkRange(value, 0, 59, "minute", text, bytes, position, start) * 60;
+                    break;
+                default:
+                    secondOfDay += checkRange(value, 0, 59, "second", text, bytes, position, start);
+            }
+        }
+        if (day > 28 && day > lengthOfMonth(year, month)) {
+            throw error("Invalid date " + year + "-" + month + "-" + day, text, bytes, position, position);
+        }
+        return epochDayFromCivil(year, month, day) * 86_400L + secondOfDay;
+    }
+
+    private int nanoOfSecond(CharSequence text, ByteBuffer bytes, int position) {
+        for (int f = 0; f < fieldType.length; f++) {
+            if (fieldType[f] == FRACTION) {
+                int width = fieldWidth[f];
+                return digits(text, bytes, position, position + fieldOffset[f], width) * POWERS_OF_TEN[9 - width];
+            }
+        }
+        return 0;
+    }
+
+    private int digits(CharSequence text, ByteBuffer bytes, int position, int start, int width) {
+        int value = 0;
+        for (int i = start; i < start + width; i++) {
+            int digit = charAt(text, bytes, i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw error("Expected a digit", text, bytes, position, i);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private int checkRange(int value, int min, int max, String field, CharSequence text, ByteBuffer bytes,
+                           int position, int index) {
+        if (value < min || value > max) {
+            throw error("Invalid " + field + " " + value, text, bytes, position, index);
+        }
+        return value;
+    }
+
+    private static char charAt(CharSequence text, ByteBuffer bytes, int index) {
+        return text != null ? text.charAt(index) : (char) (bytes.get(index) & 0xFF);
+    }
+
+    private DateTimeParseException error(String message, CharSequence text, ByteBuffer bytes,
+                                         int position, int index) {
+        CharSequence parsed;
+        if (text != null) {
+            parsed = text;
+        } else {
+            int end = Math.min(bytes.limit(), Math.max(position, 0) + template.length);
+            byte[] copy = new byte[Math.max(0, end - position)];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = bytes.get(position + i);
+            }
+            parsed = new String(copy, StandardCharsets.ISO_8859_1);
+            index -= position;
+        }
+        return new DateTimeParseException(message + " (pattern " + pattern + ")", parsed, index);
+    }
+
+    static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Epoch day of a proleptic Gregorian date; the inverse of
+     * {@link #civilFromEpochDay(long)}.
+     */
+    static long epochDayFromCivil(long year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private char[] scratch() {
+        char[] scratch = SCRATCH.get();
+        if (scratch.length < template.length) {
+            scratch = new char[template.length];
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    private void write(char[] out, int offset, int year, int month, int day,
+                       int hour, int minute, int second, int nano) {
+        System.arraycopy(template, 0, out, offset, template.length);
+        for (int f = 0; f < fieldType.length; f++) {
+            int width = fieldWidth[f];
+            int value;
+            switch (fieldType[f]) {
+                case YEAR:
+                    if (!supportsYear(year)) {
+                        throw new DateTimeException("Year " + year + " does not fit pattern " + pattern);
+                    }
+                    value = year;
+                    break;
+                case MONTH:
+                    value = month;
+                    break;
+                case DAY:
+                    value = day;
+                    break;
+                case HOUR:
+                    value = hour;
+                    break;
+                case MINUTE:
+                    value = minute;
+                    break;
+                case SECOND:
+                    value = second;
+                    break;
+                default:
+                    value = nano / POWERS_OF_TEN[9 - width];
+            }
+            for (int pos = offset + fieldOffset[f] + width - 1; pos >= offset + fieldOffset[f]; pos--) {
+                out[pos] = (char) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+    }
+
+    /**
+     * Proleptic Gregorian date for an epoch day, packed as
+     * {@code year << 9 | month << 5 | day}.
+     */
+    static long civilFromEpochDay(long epochDay) {
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year << 9 | month << 5 | day;
+    }
+
+    @Override
+    public String toString() {
+        return "FixedWidthFormat{" + pattern + "}";
+    }
+}
@@ -0,0 +1,78 @@
+package com.java8.datetime;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Converting legacy {@link Date} rows to local date-times in New York: the
+ * per-row {@code LocalDateTime.ofInstant(date.toInstant(), zone)} path
+ * versus {@link LegacyDateConverter} producing packed longs and ISO text,
+ * sequentially and in parallel chunks. Pass the row count as the first
+ * argument.
+ */
+public class LegacyDateConversionBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 4_000_000;
+        System.out.println("=== Legacy Date Conversion Benchmark ===");
+        System.out.printf("Rows: %,d, processors: %d%n", rows, Runtime.getRuntime().availableProcessors());
+        ZoneId zone = ZoneService.zone("America/New_York");
+        LegacyDateConverter converter = new LegacyDateConverter(zone);
+        DateTimeFormatter iso = DateTimeFormatterRegistry.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        Date[] dates = new Date[rows];
+        long first = java.time.Instant.parse("2000-01-01T00:00:00Z").toEpochMilli();
+        java.util.Random random = new java.util.Random(1);
+        for (int i = 0; i < rows; i++) {
+            dates[i] = new Date(first + i * 60_000L + random.nextInt(60_000));
+        }
+        long[] out = new long[rows];
+
+        System.out.printf("%-40s %16s%n", "variant", "rows/s");
+        report("ofInstant per row -> packed", rows, () -> {
+            long sum = 0;
+            for (Date date : dates) {
+                sum += PackedDateTime.pack(LocalDateTime.ofInstant(date.toInstant(), zone));
+            }
+            return sum;
+        });
+        report("LegacyDateConverter packed", rows, () ->
+                sum(converter.toPacked(LegacyDateConverter.epochMillis(dates), out, false)));
+        report("LegacyDateConverter packed, parallel", rows, () ->
+                sum(converter.toPacked(LegacyDateConverter.epochMillis(dates), out, true)));
+        report("ofInstant per row -> ISO string", rows, () -> {
+            long sum = 0;
+            for (Date date : dates) {
+                sum += iso.format(LocalDateTime.ofInstant(date.toInstant(), zone)).hashCode();
+            }
+            return sum;
+        });
+        report("LegacyDateConverter ISO strings", rows, () ->
+                hashSum(converter.toIsoStrings(LegacyDateConverter.epochMillis(dates), false)));
+        report("LegacyDateConverter ISO strings, parallel", rows, () ->
+                hashSum(converter.toIsoStrings(LegacyDateConverter.epochMillis(dates), true)));
+        report("LegacyDateConverter ISO chars, parallel", rows, () ->
+                converter.toIsoChars(LegacyDateConverter.epochMillis(dates), true).length);
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static long hashSum(String[] values) {
+        long sum = 0;
+        for (String value : values) {
+            sum += value.hashCode();
+        }
+        return sum;
+    }
+
+    private static void report(String name, int rows, BenchmarkHarness.Run run) {
+        BenchmarkHarness.report(name, 40, rows, run);
+    }
+}
@@ -0,0 +1,121 @@
+package com.java8.datetime;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Bulk conversion of legacy {@link Date} values (as epoch milliseconds) to
+ * local date-times in one zone, for migrations of many rows.
+ *
+ * Offsets come from the zone's cached {@link ZoneOffsetTable} instead of a
+ * {@code ZonedDateTime} per value, and results are either
+ * {@link PackedDateTime} longs or fixed-width ISO text
+ * ({@code yyyy-MM-dd'T'HH:mm:ss.SSS}). Array conversions run in chunks of
+ * 64K values, in parallel on the common pool when requested.
+ * Instances are immutable and thread-safe.
+ */
+public final class LegacyDateConverter {
+
+    private static final FixedWidthFormat ISO = FixedWidthFormat.ISO_LOCAL_DATE_TIME_MILLIS;
+
+    private final ZoneOffsetTable table;
+
+    public LegacyDateConverter(ZoneId zone) {
+        this.table = ZoneService.offsetTable(zone);
+    }
+
+    public static LegacyDateConverter systemDefault() {
+        return new LegacyDateConverter(ZoneId.systemDefault());
+    }
+
+    public ZoneId getZone() {
+        return table.getZone();
+    }
+
+    public static long[] epochMillis(Date[] dates) {
+        long[] millis = new long[dates.length];
+        for (int i = 0; i < dates.length; i++) {
+            millis[i] = dates[i].getTime();
+        }
+        return millis;
+    }
+
+    public static long[] epochMillis(Calendar[] calendars) {
+        long[] millis = new long[calendars.length];
+        for (int i = 0; i < calendars.length; i++) {
+            millis[i] = calendars[i].getTimeInMillis();
+        }
+        return millis;
+    }
+
+    public long toPacked(long epochMilli) {
+        return PackedDateTime.ofLocalEpochMilli(toLocalEpochMilli(epochMilli));
+    }
+
+    /**
+     * Packed local date-times; {@code result} may be the input array.
+     */
+    public long[] toPacked(long[] epochMillis, long[] result, boolean parallel) {
+        ParallelChunks.forEach(epochMillis.length, parallel, (from, to) -> {
+            table.toLocalEpochMillis(epochMillis, from, result, from, to - from);
+            for (int i = from; i < to; i++) {
+                result[i] = PackedDateTime.ofLocalEpochMilli(result[i]);
+            }
+        });
+        return result;
+    }
+
+    public long[] toPacked(long[] epochMillis, boolean parallel) {
+        return toPacked(epochMillis, new long[epochMillis.length], parallel);
+    }
+
+    public LongStream toPacked(LongStream epochMillis) {
+        return epochMillis.map(this::toPacked);
+    }
+
+    /**
+     * ISO text for every value, written back to back into one array of
+     * {@code 23 * length} chars so no per-row {@code String} is created.
+     */
+    public char[] toIsoChars(long[] epochMillis, boolean parallel) {
+        int width = ISO.width();
+        char[] out = new char[Math.multiplyExact(epochMillis.length, width)];
+        ParallelChunks.forEach(epochMillis.length, parallel, (from, to) -> {
+            long[] local = table.toLocalEpochMillis(epochMillis, from, new long[to - from], 0, to - from);
+            for (int i = from; i < to; i++) {
+                ISO.formatEpochMilli(local[i - from], ZoneOffset.UTC, out, i * width);
+            }
+        });
+        return out;
+    }
+
+    public String[] toIsoStrings(long[] epochMillis, boolean parallel) {
+        int width = ISO.width();
+        String[] out = new String[epochMillis.length];
+        ParallelChunks.forEach(epochMillis.length, parallel, (from, to) -> {
+            long[] local = table.toLocalEpochMillis(epochMillis, from, new long[to - from], 0, to - from);
+            char[] text = new char[width];
+            for (int i = from; i < to; i++) {
+                ISO.formatEpochMilli(local[i - from], ZoneOffset.UTC, text, 0);
+                out[i] = new String(text);
+            }
+        });
+        return out;
+    }
+
+    public Stream<String> toIsoStrings(LongStream epochMillis) {
+        return epochMillis.mapToObj(millis -> {
+            char[] text = new char[ISO.width()];
+            ISO.formatEpochMilli(toLocalEpochMilli(millis), ZoneOffset.UTC, text, 0);
+            return new String(text);
+        });
+    }
+
+    private long toLocalEpochMilli(long epochMilli) {
+        return epochMilli + table.offsetAt(Math.floorDiv(epochMilli, 1000L)) * 1000L;
+    }
+}
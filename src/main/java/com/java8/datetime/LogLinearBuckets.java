@@ -0,0 +1,66 @@
+package com.java8.datetime;
+
+/**
+ * Bucket layout of the log-linear histograms ({@link DurationHistogram} and
+ * the executor's {@code LatencyHistogram}), in the style of HdrHistogram.
+ *
+ * Values below 128 get a bucket each; above that every power-of-two range
+ * is split into 64 linear sub-buckets, which keeps the relative error of a
+ * reported percentile below ~1.6% across the full non-negative
+ * {@code long} range with {@link #COUNT} buckets.
+ */
+public final class LogLinearBuckets {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;     // 64
+    private static final int LINEAR_LIMIT = SUB_BUCKET_HALF << 1;        // 128
+
+    /**
+     * Number of buckets: 128 exact ones plus 64 for each of the 56 higher
+     * powers of two up to 2^62, the highest a non-negative long reaches.
+     */
+    public static final int COUNT = LINEAR_LIMIT + (62 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private LogLinearBuckets() {
+    }
+
+    /** The bucket of a non-negative value. */
+    public static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_HALF;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_HALF + subBucket;
+    }
+
+    /** The largest value that falls into the bucket. */
+    public static long highestEquivalentValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_HALF + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        long upper = ((subBucket + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * The highest value equivalent to the given percentile (0-100) of the
+     * bucket counts, capped at {@code max}; zero when {@code total} is zero.
+     */
+    public static long valueAtPercentile(long[] counts, long total, long max, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+}
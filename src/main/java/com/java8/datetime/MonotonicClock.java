@@ -0,0 +1,57 @@
+package com.java8.datetime;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+/**
+ * Wall time computed as a fixed origin plus {@code System.nanoTime()}
+ * progress, so consecutive readings never go backwards and have nanosecond
+ * resolution. It does not follow later adjustments of the system clock,
+ * which is what a measurement needs.
+ */
+public final class MonotonicClock extends NanoClock {
+
+    private final ZoneId zone;
+    private final long originNanoTime;
+    private final long originEpochNanos;
+
+    MonotonicClock(ZoneId zone) {
+        this(zone, System.nanoTime(), epochNanos(Instant.now()));
+    }
+
+    private MonotonicClock(ZoneId zone, long originNanoTime, long originEpochNanos) {
+        this.zone = zone;
+        this.originNanoTime = originNanoTime;
+        this.originEpochNanos = originEpochNanos;
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public Instant instant() {
+        return instantOfEpochNanos(originEpochNanos + (System.nanoTime() - originNanoTime));
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(originEpochNanos + (System.nanoTime() - originNanoTime), 1_000_000L);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public MonotonicClock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new MonotonicClock(zone, originNanoTime, originEpochNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "MonotonicClock[" + zone + "]";
+    }
+}
@@ -0,0 +1,85 @@
+package com.java8.datetime;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * A {@link Clock} that also reads a nanosecond counter for measuring
+ * elapsed time, so timing code and timestamping code depend on one
+ * abstraction that tests can replace.
+ *
+ * <ul>
+ *   <li>{@link #monotonic()} - wall time derived from {@code System.nanoTime},
+ *       for measurement; never goes backwards</li>
+ *   <li>{@link #coarse()} - a value refreshed by a background ticker, for
+ *       hot-path timestamps that tolerate a millisecond of staleness</li>
+ *   <li>{@link #test(Instant)} - moves only when told to</li>
+ * </ul>
+ */
+public abstract class NanoClock extends Clock {
+
+    private static final MonotonicClock MONOTONIC = new MonotonicClock(ZoneOffset.UTC);
+
+    private static volatile CachedClock coarse;
+
+    /**
+     * A nanosecond counter with an arbitrary origin; only differences
+     * between two readings of the same clock are meaningful.
+     */
+    public abstract long nanoTime();
+
+    public long elapsedNanos(long startNanos) {
+        return nanoTime() - startNanos;
+    }
+
+    public long elapsedMillis(long startNanos) {
+        return (nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /** The shared monotonic clock, in UTC. */
+    public static MonotonicClock monotonic() {
+        return MONOTONIC;
+    }
+
+    /**
+     * The shared coarse clock (1 ms resolution, UTC), started on first use
+     * on a daemon thread; closing it does nothing.
+     */
+    public static CachedClock coarse() {
+        CachedClock clock = coarse;
+        if (clock == null) {
+            synchronized (NanoClock.class) {
+                clock = coarse;
+                if (clock == null) {
+                    clock = new CachedClock(Duration.ofMillis(1), ZoneOffset.UTC, false);
+                    coarse = clock;
+                }
+            }
+        }
+        return clock;
+    }
+
+    /** A new cached clock with its own ticker; close it when done. */
+    public static CachedClock cached(Duration resolution) {
+        return new CachedClock(resolution, ZoneOffset.UTC, true);
+    }
+
+    public static TestClock test(Instant start) {
+        return new TestClock(start, ZoneOffset.UTC);
+    }
+
+    static long epochNanos(Instant instant) {
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    static Instant instantOfEpochNanos(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    @Override
+    public abstract NanoClock withZone(ZoneId zone);
+}
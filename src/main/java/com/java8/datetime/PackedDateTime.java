@@ -0,0 +1,68 @@
+package com.java8.datetime;
+
+import java.time.LocalDateTime;
+
+/**
+ * A {@code LocalDateTime} with millisecond precision packed into one
+ * {@code long}: {@code year << 36 | month << 32 | day << 27 | hour << 22 |
+ * minute << 16 | second << 10 | millis}. Packed values compare like the
+ * date-times they hold, so arrays of them sort and binary-search
+ * chronologically.
+ */
+public final class PackedDateTime {
+
+    private PackedDateTime() {
+    }
+
+    public static long pack(int year, int month, int day, int hour, int minute, int second, int millis) {
+        return (long) year << 36 | (long) month << 32 | (long) day << 27 | (long) hour << 22
+                | (long) minute << 16 | (long) second << 10 | millis;
+    }
+
+    public static long pack(LocalDateTime dateTime) {
+        return pack(dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(), dateTime.getHour(),
+                dateTime.getMinute(), dateTime.getSecond(), dateTime.getNano() / 1_000_000);
+    }
+
+    /** Packs a wall-clock time given as UTC-based epoch milliseconds. */
+    public static long ofLocalEpochMilli(long localEpochMilli) {
+        long date = FixedWidthFormat.civilFromEpochDay(Math.floorDiv(localEpochMilli, 86_400_000L));
+        int millisOfDay = (int) Math.floorMod(localEpochMilli, 86_400_000L);
+        int secondOfDay = millisOfDay / 1000;
+        return (date >> 9) << 36 | (date & 0x1FF) << 27 | (long) (secondOfDay / 3600) << 22
+                | (long) (secondOfDay / 60 % 60) << 16 | (long) (secondOfDay % 60) << 10 | millisOfDay % 1000;
+    }
+
+    public static int year(long packed) {
+        return (int) (packed >> 36);
+    }
+
+    public static int month(long packed) {
+        return (int) (packed >>> 32) & 0xF;
+    }
+
+    public static int dayOfMonth(long packed) {
+        return (int) (packed >>> 27) & 0x1F;
+    }
+
+    public static int hour(long packed) {
+        return (int) (packed >>> 22) & 0x1F;
+    }
+
+    public static int minute(long packed) {
+        return (int) (packed >>> 16) & 0x3F;
+    }
+
+    public static int second(long packed) {
+        return (int) (packed >>> 10) & 0x3F;
+    }
+
+    public static int millis(long packed) {
+        return (int) packed & 0x3FF;
+    }
+
+    public static LocalDateTime toLocalDateTime(long packed) {
+        return LocalDateTime.of(year(packed), month(packed), dayOfMonth(packed), hour(packed), minute(packed),
+                second(packed), millis(packed) * 1_000_000);
+    }
+}
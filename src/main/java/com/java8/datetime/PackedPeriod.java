@@ -0,0 +1,38 @@
+package com.java8.datetime;
+
+import java.time.Period;
+
+/**
+ * A {@link Period} packed into one {@code long}: signed years in the upper
+ * 48 bits, then signed months and days as one byte each. Covers every
+ * period {@code Period.between} can return for two {@code LocalDate}s.
+ */
+public final class PackedPeriod {
+
+    private PackedPeriod() {
+    }
+
+    public static long pack(long years, int months, int days) {
+        return years << 16 | (months & 0xFFL) << 8 | (days & 0xFFL);
+    }
+
+    public static long pack(Period period) {
+        return pack(period.getYears(), period.getMonths(), period.getDays());
+    }
+
+    public static int years(long packed) {
+        return (int) (packed >> 16);
+    }
+
+    public static int months(long packed) {
+        return (byte) (packed >> 8);
+    }
+
+    public static int days(long packed) {
+        return (byte) packed;
+    }
+
+    public static Period toPeriod(long packed) {
+        return Period.of(years(packed), months(packed), days(packed));
+    }
+}
@@ -0,0 +1,30 @@
+package com.java8.datetime;
+
+import java.util.stream.IntStream;
+
+/**
+ * Splits an index range into fixed-size chunks for the bulk converters and
+ * parsers, running them on the common pool when asked to. Chunks start at
+ * multiples of {@link #CHUNK_SIZE}, itself a multiple of 64, so parallel
+ * chunks writing a bitmap of {@code long} words never share a word.
+ */
+public final class ParallelChunks {
+
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    public interface Chunk {
+        void convert(int from, int to);
+    }
+
+    private ParallelChunks() {
+    }
+
+    public static void forEach(int length, boolean parallel, Chunk chunk) {
+        int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream indexes = IntStream.range(0, chunks);
+        if (parallel) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(c -> chunk.convert(c * CHUNK_SIZE, Math.min(length, (c + 1) * CHUNK_SIZE)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.java8.datetime;
+
+import java.time.LocalDate;
+
+/**
+ * {@code Period.between} and day differences over arrays of epoch days,
+ * computed with calendar arithmetic instead of {@code LocalDate}s. Periods
+ * come back as {@link PackedPeriod} longs and match
+ * {@link java.time.Period#between(LocalDate, LocalDate)} exactly, including
+ * negative periods and month-end clamping. Array methods run in 64K-element
+ * chunks, in parallel on the common pool when requested.
+ */
+public final class PeriodCalculator {
+
+    private PeriodCalculator() {
+    }
+
+    /** {@code Period.between} for two epoch days, packed. */
+    public static long between(long startEpochDay, long endEpochDay) {
+        return between(startEpochDay, endEpochDay, FixedWidthFormat.civilFromEpochDay(endEpochDay));
+    }
+
+    /**
+     * @param end the end date as packed by {@link FixedWidthFormat#civilFromEpochDay(long)}
+     */
+    private static long between(long startEpochDay, long endEpochDay, long end) {
+        long start = FixedWidthFormat.civilFromEpochDay(startEpochDay);
+        long startYear = start >> 9;
+        int startMonth = (int) (start >> 5) & 0xF;
+        int startDay = (int) start & 0x1F;
+        long endYear = end >> 9;
+        int endMonth = (int) (end >> 5) & 0xF;
+        int endDay = (int) end & 0x1F;
+
+        // Same steps as LocalDate.until(ChronoLocalDate)
+        long totalMonths = (endYear * 12 + endMonth - 1) - (startYear * 12 + startMonth - 1);
+        int days = endDay - startDay;
+        if (totalMonths > 0 && days < 0) {
+            totalMonths--;
+            long prolepticMonth = startYear * 12 + startMonth - 1 + totalMonths;
+            long year = Math.floorDiv(prolepticMonth, 12);
+            int month = (int) Math.floorMod(prolepticMonth, 12) + 1;
+            int day = Math.min(startDay, FixedWidthFormat.lengthOfMonth((int) year, month));
+            days = (int) (endEpochDay - FixedWidthFormat.epochDayFromCivil(year, month, day));
+        } else if (totalMonths < 0 && days > 0) {
+            totalMonths++;
+            days -= FixedWidthFormat.lengthOfMonth((int) endYear, endMonth);
+        }
+        return PackedPeriod.pack(totalMonths / 12, (int) (totalMonths % 12), days);
+    }
+
+    public static long[] between(long[] startEpochDays, long[] endEpochDays, long[] result, boolean parallel) {
+        if (startEpochDays.length != endEpochDays.length) {
+            throw new IllegalArgumentException("Start and end arrays differ in length");
+        }
+        ParallelChunks.forEach(startEpochDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = between(startEpochDays[i], endEpochDays[i]);
+            }
+        });
+        return result;
+    }
+
+    /** Periods from each start to one end date, e.g. ages at a reference day. */
+    public static long[] between(long[] startEpochDays, long endEpochDay, long[] result, boolean parallel) {
+        long end = FixedWidthFormat.civilFromEpochDay(endEpochDay);
+        ParallelChunks.forEach(startEpochDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = between(startEpochDays[i], endEpochDay, end);
+            }
+        });
+        return result;
+    }
+
+    /** Completed years from each birth date to the given day. */
+    public static int[] ages(long[] birthEpochDays, long todayEpochDay, boolean parallel) {
+        int[] ages = new int[birthEpochDays.length];
+        long today = FixedWidthFormat.civilFromEpochDay(todayEpochDay);
+        ParallelChunks.forEach(birthEpochDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                ages[i] = PackedPeriod.years(between(birthEpochDays[i], todayEpochDay, today));
+            }
+        });
+        return ages;
+    }
+
+    /** {@code ChronoUnit.DAYS.between} for each pair. */
+    public static long[] daysBetween(long[] startEpochDays, long[] endEpochDays, long[] result, boolean parallel) {
+        if (startEpochDays.length != endEpochDays.length) {
+            throw new IllegalArgumentException("Start and end arrays differ in length");
+        }
+        ParallelChunks.forEach(startEpochDays.length, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = endEpochDays[i] - startEpochDays[i];
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,250 @@
+package com.java8.datetime;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoField;
+import java.time.temporal.Temporal;
+import java.time.temporal.TemporalAdjuster;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A recurrence rule such as {@code "every last friday"} or
+ * {@code "first business day of month"}, compiled to a composed
+ * {@link TemporalAdjuster} that places the occurrence within each month or
+ * year.
+ *
+ * Occurrences of a year are computed once into a sorted {@code int[]} of
+ * epoch days and cached on the rule, so "next occurrence after T" is a
+ * binary search instead of stepping through dates. The rule is itself an
+ * adjuster: {@code date.with(rule)} moves to the next occurrence strictly
+ * after {@code date}. Supported expressions (case-insensitive, optional
+ * leading {@code "every"}):
+ * <ul>
+ *   <li>{@code day}, {@code business day}, {@code <weekday>}</li>
+ *   <li>{@code first|second|third|fourth|last <weekday>} - within each month</li>
+ *   <li>{@code first|last day of month|year}, {@code first|last business day of month}</li>
+ *   <li>{@code day <1-31> of month} - months without that day are skipped</li>
+ * </ul>
+ * Business days come from a {@link BusinessCalendar}, Monday to Friday by
+ * default. Instances are thread-safe.
+ */
+public final class RecurrenceRule implements TemporalAdjuster {
+
+    private static final ConcurrentMap<String, RecurrenceRule> RULES = new ConcurrentHashMap<>();
+    private static final String[] ORDINALS = {"first", "second", "third", "fourth"};
+    /** Consecutive years without an occurrence before a lookup gives up (holiday-only calendars). */
+    private static final int MAX_EMPTY_YEARS = 4;
+
+    private enum Period {
+        DAY, WEEK, MONTH, YEAR
+    }
+
+    private final String expression;
+    private final Period period;
+    /** Places the occurrence within the period, given the period's first day. */
+    private final TemporalAdjuster placement;
+    private final BusinessCalendar calendar;
+    private final boolean businessDaysOnly;
+    private final ConcurrentMap<Integer, int[]> years = new ConcurrentHashMap<>();
+
+    private RecurrenceRule(String expression, Period period, TemporalAdjuster placement,
+                           BusinessCalendar calendar, boolean businessDaysOnly) {
+        this.expression = expression;
+        this.period = period;
+        this.placement = placement;
+        this.calendar = calendar;
+        this.businessDaysOnly = businessDaysOnly;
+    }
+
+    /**
+     * The shared compiled rule for the expression, using a Monday-Friday
+     * calendar; rules for the same expression share their yearly tables.
+     */
+    public static RecurrenceRule compile(String expression) {
+        RecurrenceRule rule = RULES.get(expression);
+        if (rule == null) {
+            rule = RULES.computeIfAbsent(expression, e -> compile(e, BusinessCalendar.weekdays()));
+        }
+        return rule;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is not supported
+     */
+    public static RecurrenceRule compile(String expression, BusinessCalendar calendar) {
+        String text = expression.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (text.startsWith("every ")) {
+            text = text.substring(6);
+        }
+        String[] words = text.split(" ");
+        if (text.equals("day")) {
+            return new RecurrenceRule(expression, Period.DAY, t -> t, calendar, false);
+        }
+        if (text.equals("business day")) {
+            return new RecurrenceRule(expression, Period.DAY, t -> t, calendar, true);
+        }
+        DayOfWeek dayOfWeek = dayOfWeek(words[words.length - 1]);
+        if (words.length == 1 && dayOfWeek != null) {
+            return new RecurrenceRule(expression, Period.WEEK, TemporalAdjusters.nextOrSame(dayOfWeek),
+                    calendar, false);
+        }
+        if (words.length == 2 && dayOfWeek != null) {
+            if (words[0].equals("last")) {
+                return new RecurrenceRule(expression, Period.MONTH, TemporalAdjusters.lastInMonth(dayOfWeek),
+                        calendar, false);
+            }
+            int ordinal = Arrays.asList(ORDINALS).indexOf(words[0]) + 1;
+            if (ordinal > 0) {
+                return new RecurrenceRule(expression, Period.MONTH,
+                        TemporalAdjusters.dayOfWeekInMonth(ordinal, dayOfWeek), calendar, false);
+            }
+        }
+        if (text.matches("day \\d{1,2} of month")) {
+            int day = Integer.parseInt(words[1]);
+            if (day >= 1 && day <= 31) {
+                return new RecurrenceRule(expression, Period.MONTH,
+                        t -> day <= LocalDate.from(t).lengthOfMonth() ? t.with(ChronoField.DAY_OF_MONTH, day)
+                                : t.with(TemporalAdjusters.firstDayOfNextMonth()),
+                        calendar, false);
+            }
+        }
+        switch (text) {
+            case "first day of month":
+                return new RecurrenceRule(expression, Period.MONTH, TemporalAdjusters.firstDayOfMonth(), calendar, false);
+            case "last day of month":
+                return new RecurrenceRule(expression, Period.MONTH, TemporalAdjusters.lastDayOfMonth(), calendar, false);
+            case "first day of year":
+                return new RecurrenceRule(expression, Period.YEAR, TemporalAdjusters.firstDayOfYear(), calendar, false);
+            case "last day of year":
+                return new RecurrenceRule(expression, Period.YEAR, TemporalAdjusters.lastDayOfYear(), calendar, false);
+            case "first business day of month":
+                return new RecurrenceRule(expression, Period.MONTH, nextOrSameWorkingDay(calendar), calendar, false);
+            case "last business day of month":
+                TemporalAdjuster previous = previousOrSameWorkingDay(calendar);
+                return new RecurrenceRule(expression, Period.MONTH,
+                        t -> t.with(TemporalAdjusters.lastDayOfMonth()).with(previous), calendar, false);
+            default:
+                throw new IllegalArgumentException("Unsupported recurrence rule: " + expression);
+        }
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    /** The first occurrence strictly after the epoch day. */
+    public long nextAfter(long epochDay) {
+        long start = epochDay + 1;
+        int year = (int) (FixedWidthFormat.civilFromEpochDay(start) >> 9);
+        int[] table = occurrencesIn(year);
+        int index = Arrays.binarySearch(table, (int) start);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        int empty = 0;
+        while (index == table.length) {
+            if (table.length == 0 && ++empty > MAX_EMPTY_YEARS) {
+                throw new IllegalStateException("No occurrence of '" + expression + "' after " + year);
+            }
+            table = occurrencesIn(++year);
+            index = 0;
+        }
+        return table[index];
+    }
+
+    public LocalDate nextAfter(LocalDate date) {
+        return LocalDate.ofEpochDay(nextAfter(date.toEpochDay()));
+    }
+
+    /** Moves the temporal to the next occurrence, keeping any time of day. */
+    @Override
+    public Temporal adjustInto(Temporal temporal) {
+        return temporal.with(ChronoField.EPOCH_DAY, nextAfter(temporal.getLong(ChronoField.EPOCH_DAY)));
+    }
+
+    /** Lazy, unbounded occurrences from the epoch day inclusive. */
+    public LongStream occurrences(long fromEpochDay) {
+        return LongStream.iterate(nextAfter(fromEpochDay - 1), this::nextAfter);
+    }
+
+    public Stream<LocalDate> occurrences(LocalDate from) {
+        return occurrences(from.toEpochDay()).mapToObj(LocalDate::ofEpochDay);
+    }
+
+    /**
+     * The sorted epoch days on which the rule occurs in the year; computed
+     * once per year and cached. The array must not be modified.
+     */
+    int[] occurrencesIn(int year) {
+        int[] table = years.get(year);
+        if (table == null) {
+            table = years.computeIfAbsent(year, this::computeYear);
+        }
+        return table;
+    }
+
+    private int[] computeYear(int year) {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        int[] days;
+        int count = 0;
+        switch (period) {
+            case DAY:
+                days = new int[first.lengthOfYear()];
+                for (int i = 0; i < days.length; i++) {
+                    long day = first.toEpochDay() + i;
+                    if (!businessDaysOnly || calendar.isWorkingDay(day)) {
+                        days[count++] = (int) day;
+                    }
+                }
+                break;
+            case WEEK:
+                days = new int[53];
+                for (LocalDate date = first.with(placement); date.getYear() == year; date = date.plusWeeks(1)) {
+                    days[count++] = (int) date.toEpochDay();
+                }
+                break;
+            case MONTH:
+                days = new int[12];
+                for (int month = 1; month <= 12; month++) {
+                    LocalDate date = first.withMonth(month).with(placement);
+                    // A placement that leaves the month means the month has no occurrence
+                    if (date.getMonthValue() == month && date.getYear() == year) {
+                        days[count++] = (int) date.toEpochDay();
+                    }
+                }
+                break;
+            default:
+                days = new int[] {(int) first.with(placement).toEpochDay()};
+                count = 1;
+        }
+        return count == days.length ? days : Arrays.copyOf(days, count);
+    }
+
+    private static DayOfWeek dayOfWeek(String word) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day.name().equalsIgnoreCase(word)) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    private static TemporalAdjuster nextOrSameWorkingDay(BusinessCalendar calendar) {
+        return t -> t.with(ChronoField.EPOCH_DAY, calendar.addWorkingDays(t.getLong(ChronoField.EPOCH_DAY) - 1, 1));
+    }
+
+    private static TemporalAdjuster previousOrSameWorkingDay(BusinessCalendar calendar) {
+        return t -> t.with(ChronoField.EPOCH_DAY, calendar.addWorkingDays(t.getLong(ChronoField.EPOCH_DAY) + 1, -1));
+    }
+
+    @Override
+    public String toString() {
+        return "RecurrenceRule{" + expression + "}";
+    }
+}
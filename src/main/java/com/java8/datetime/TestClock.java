@@ -0,0 +1,67 @@
+package com.java8.datetime;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that only moves when {@link #advance(Duration)} or
+ * {@link #setInstant(Instant)} is called, for deterministic tests of code
+ * that timestamps or measures. {@link #nanoTime()} moves with the instant.
+ * Zone views share the same time.
+ */
+public final class TestClock extends NanoClock {
+
+    private final AtomicLong epochNanos;
+    private final ZoneId zone;
+
+    TestClock(Instant start, ZoneId zone) {
+        this(new AtomicLong(epochNanos(start)), zone);
+    }
+
+    private TestClock(AtomicLong epochNanos, ZoneId zone) {
+        this.epochNanos = epochNanos;
+        this.zone = zone;
+    }
+
+    public TestClock advance(Duration duration) {
+        epochNanos.addAndGet(duration.toNanos());
+        return this;
+    }
+
+    public TestClock setInstant(Instant instant) {
+        epochNanos.set(epochNanos(instant));
+        return this;
+    }
+
+    @Override
+    public long nanoTime() {
+        return epochNanos.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return instantOfEpochNanos(epochNanos.get());
+    }
+
+    @Override
+    public long millis() {
+        return Math.floorDiv(epochNanos.get(), 1_000_000L);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public TestClock withZone(ZoneId zone) {
+        return zone.equals(this.zone) ? this : new TestClock(epochNanos, zone);
+    }
+
+    @Override
+    public String toString() {
+        return "TestClock[" + instant() + ", " + zone + "]";
+    }
+}
@@ -0,0 +1,76 @@
+package com.java8.datetime;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parsing throughput for {@code "dd/MM/yyyy HH:mm:ss"} log timestamps:
+ * {@code LocalDateTime.parse} with a cached formatter versus the
+ * {@link FixedWidthFormat} parser reading from strings and from a buffer
+ * of log lines. All variants compute the same checksum of epoch millis.
+ */
+public class TimestampParseBenchmark {
+
+    private static final int COUNT = 2_000_000;
+    private static final int DISTINCT = 4096;
+
+    public static void main(String[] args) {
+        System.out.println("=== Timestamp Parse Benchmark ===");
+        String pattern = "dd/MM/yyyy HH:mm:ss";
+        DateTimeFormatter formatter = DateTimeFormatterRegistry.ofPattern(pattern);
+        FixedWidthFormat fixed = FixedWidthFormat.compile(pattern);
+
+        String[] timestamps = new String[DISTINCT];
+        LocalDateTime base = LocalDateTime.of(2023, 12, 25, 14, 30, 45);
+        for (int i = 0; i < DISTINCT; i++) {
+            timestamps[i] = formatter.format(base.plusSeconds(i * 86_413L));
+        }
+        // "<timestamp> INFO request handled\n" log lines
+        String suffix = " INFO request handled\n";
+        int lineLength = fixed.width() + suffix.length();
+        ByteBuffer log = ByteBuffer.allocateDirect(DISTINCT * lineLength);
+        for (String timestamp : timestamps) {
+            log.put((timestamp + suffix).getBytes(StandardCharsets.US_ASCII));
+        }
+        log.flip();
+
+        System.out.printf("%-42s %16s%n", "variant", "parses/s");
+        report("LocalDateTime.parse (cached formatter)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += LocalDateTime.parse(timestamps[i & (DISTINCT - 1)], formatter)
+                        .toEpochSecond(ZoneOffset.UTC) * 1000;
+            }
+            return sum;
+        });
+        report("FixedWidthFormat.parseEpochMilli(String)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += fixed.parseEpochMilli(timestamps[i & (DISTINCT - 1)], 0, ZoneOffset.UTC);
+            }
+            return sum;
+        });
+        report("FixedWidthFormat.parseEpochMilli(ByteBuffer)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += fixed.parseEpochMilli(log, (i & (DISTINCT - 1)) * lineLength, ZoneOffset.UTC);
+            }
+            return sum;
+        });
+        report("FixedWidthFormat.parseLocalDateTime", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += fixed.parseLocalDateTime(timestamps[i & (DISTINCT - 1)])
+                        .toEpochSecond(ZoneOffset.UTC) * 1000;
+            }
+            return sum;
+        });
+    }
+
+    private static void report(String name, BenchmarkHarness.Run run) {
+        BenchmarkHarness.report(name, 42, COUNT, run);
+    }
+}
@@ -0,0 +1,60 @@
+package com.java8.datetime;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Converting instants to New York wall-clock time: one
+ * {@code ZonedDateTime} per value versus {@link ZoneOffsetTable} lookups,
+ * for ordered (log-like) and shuffled input. Both compute the same checksum.
+ */
+public class ZoneConversionBenchmark {
+
+    private static final int COUNT = 1 << 20;
+
+    public static void main(String[] args) {
+        System.out.println("=== Zone Conversion Benchmark ===");
+        ZoneId zone = ZoneService.zone("America/New_York");
+        ZoneOffsetTable table = ZoneService.offsetTable(zone);
+        long[] ordered = new long[COUNT];
+        long first = Instant.parse("2020-01-01T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < COUNT; i++) {
+            ordered[i] = first + i * 97L;
+        }
+        long[] shuffled = ordered.clone();
+        java.util.Random random = new java.util.Random(1);
+        for (int i = COUNT - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+        long[] out = new long[COUNT];
+
+        System.out.printf("%-40s %16s%n", "variant", "conversions/s");
+        for (long[] input : new long[][] {ordered, shuffled}) {
+            String order = input == ordered ? "ordered" : "shuffled";
+            report("ZonedDateTime per instant, " + order, () -> {
+                long sum = 0;
+                for (long second : input) {
+                    sum += ZonedDateTime.ofInstant(Instant.ofEpochSecond(second), zone)
+                            .toLocalDateTime().toEpochSecond(java.time.ZoneOffset.UTC);
+                }
+                return sum;
+            });
+            report("ZoneOffsetTable bulk, " + order, () -> {
+                table.toLocalEpochSeconds(input, out);
+                long sum = 0;
+                for (long local : out) {
+                    sum += local;
+                }
+                return sum;
+            });
+        }
+    }
+
+    private static void report(String name, BenchmarkHarness.Run run) {
+        BenchmarkHarness.report(name, 40, COUNT, run);
+    }
+}
@@ -0,0 +1,187 @@
+package com.java8.datetime;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * A zone's offset transitions between 1900 and 2100 flattened into
+ * primitive arrays, for converting epoch seconds without building a
+ * {@code ZonedDateTime} per value.
+ *
+ * Lookups are a binary search over the transition instants; the bulk
+ * methods first re-check the previous hit, so mostly ordered input (log
+ * timestamps) rarely searches at all. Values outside the table window fall
+ * back to {@link ZoneRules}. Local times in a gap or overlap resolve like
+ * {@link LocalDateTime#atZone(ZoneId)}: the earlier offset wins, which moves
+ * gap times forward by the gap length. Instances are immutable and
+ * thread-safe; get them from {@link ZoneService#offsetTable(ZoneId)}.
+ */
+public final class ZoneOffsetTable {
+
+    /** 1900-01-01T00:00:00Z. */
+    static final long WINDOW_START = -2_208_988_800L;
+    /** 2100-01-01T00:00:00Z. */
+    static final long WINDOW_END = 4_102_444_800L;
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    /** Transition instants, ascending. */
+    private final long[] transitions;
+    /** offsets[i] applies before transitions[i]; the last one after all of them. */
+    private final int[] offsets;
+    /** Local times from which the offset after transitions[i] applies. */
+    private final long[] localThresholds;
+
+    ZoneOffsetTable(ZoneId zone, ZoneRules rules) {
+        this.zone = zone;
+        this.rules = rules;
+        long[] instants = new long[16];
+        int[] after = new int[16];
+        int count = 0;
+        Instant cursor = Instant.ofEpochSecond(WINDOW_START);
+        ZoneOffsetTransition transition;
+        while ((transition = rules.nextTransition(cursor)) != null
+                && transition.toEpochSecond() < WINDOW_END) {
+            if (count == instants.length) {
+                instants = Arrays.copyOf(instants, count * 2);
+                after = Arrays.copyOf(after, count * 2);
+            }
+            instants[count] = transition.toEpochSecond();
+            after[count++] = transition.getOffsetAfter().getTotalSeconds();
+            cursor = transition.getInstant();
+        }
+        this.transitions = Arrays.copyOf(instants, count);
+        this.offsets = new int[count + 1];
+        this.offsets[0] = rules.getOffset(Instant.ofEpochSecond(WINDOW_START)).getTotalSeconds();
+        System.arraycopy(after, 0, offsets, 1, count);
+        this.localThresholds = new long[count];
+        for (int i = 0; i < count; i++) {
+            localThresholds[i] = transitions[i] + Math.max(offsets[i], offsets[i + 1]);
+        }
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public int getTransitionCount() {
+        return transitions.length;
+    }
+
+    /** Offset in seconds at the given instant. */
+    public int offsetAt(long epochSecond) {
+        if (epochSecond < WINDOW_START || epochSecond >= WINDOW_END) {
+            return rules.getOffset(Instant.ofEpochSecond(epochSecond)).getTotalSeconds();
+        }
+        return offsets[indexOf(epochSecond)];
+    }
+
+    /** The wall-clock time at the instant, as UTC-based epoch seconds. */
+    public long toLocalEpochSecond(long epochSecond) {
+        return epochSecond + offsetAt(epochSecond);
+    }
+
+    /** The instant of a wall-clock time given as UTC-based epoch seconds. */
+    public long toEpochSecond(long localEpochSecond) {
+        if (localEpochSecond < WINDOW_START + 86_400 || localEpochSecond >= WINDOW_END - 86_400) {
+            return LocalDateTime.ofEpochSecond(localEpochSecond, 0, ZoneOffset.UTC).atZone(zone).toEpochSecond();
+        }
+        return localEpochSecond - offsets[localIndexOf(localEpochSecond)];
+    }
+
+    public long[] toLocalEpochSeconds(long[] epochSeconds, long[] result) {
+        int hint = 0;
+        for (int i = 0; i < epochSeconds.length; i++) {
+            long second = epochSeconds[i];
+            if (second < WINDOW_START || second >= WINDOW_END) {
+                result[i] = toLocalEpochSecond(second);
+                continue;
+            }
+            if (!inInterval(transitions, hint, second)) {
+                hint = indexOf(second);
+            }
+            result[i] = second + offsets[hint];
+        }
+        return result;
+    }
+
+    public long[] toEpochSeconds(long[] localEpochSeconds, long[] result) {
+        int hint = 0;
+        for (int i = 0; i < localEpochSeconds.length; i++) {
+            long local = localEpochSeconds[i];
+            if (local < WINDOW_START + 86_400 || local >= WINDOW_END - 86_400) {
+                result[i] = toEpochSecond(local);
+                continue;
+            }
+            if (!inInterval(localThresholds, hint, local)) {
+                hint = localIndexOf(local);
+            }
+            result[i] = local - offsets[hint];
+        }
+        return result;
+    }
+
+    /**
+     * Wall-clock times for {@code length} instants starting at
+     * {@code epochMillis[from]}, written from {@code result[resultFrom]}
+     * (the arrays may be the same).
+     */
+    public long[] toLocalEpochMillis(long[] epochMillis, int from, long[] result, int resultFrom, int length) {
+        int hint = 0;
+        for (int i = 0; i < length; i++) {
+            long millis = epochMillis[from + i];
+            long second = Math.floorDiv(millis, 1000L);
+            if (second < WINDOW_START || second >= WINDOW_END) {
+                result[resultFrom + i] = millis + offsetAt(second) * 1000L;
+                continue;
+            }
+            if (!inInterval(transitions, hint, second)) {
+                hint = indexOf(second);
+            }
+            result[resultFrom + i] = millis + offsets[hint] * 1000L;
+        }
+        return result;
+    }
+
+    public int[] offsetsAt(long[] epochSeconds, int[] result) {
+        int hint = 0;
+        for (int i = 0; i < epochSeconds.length; i++) {
+            long second = epochSeconds[i];
+            if (second < WINDOW_START || second >= WINDOW_END) {
+                result[i] = offsetAt(second);
+                continue;
+            }
+            if (!inInterval(transitions, hint, second)) {
+                hint = indexOf(second);
+            }
+            result[i] = offsets[hint];
+        }
+        return result;
+    }
+
+    /** Number of transitions at or before the instant. */
+    private int indexOf(long epochSecond) {
+        int index = Arrays.binarySearch(transitions, epochSecond);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    private int localIndexOf(long localEpochSecond) {
+        int index = Arrays.binarySearch(localThresholds, localEpochSecond);
+        return index < 0 ? -index - 1 : index + 1;
+    }
+
+    /** True if {@code bounds[index - 1] <= value < bounds[index]}. */
+    private static boolean inInterval(long[] bounds, int index, long value) {
+        return (index == 0 || bounds[index - 1] <= value) && (index == bounds.length || value < bounds[index]);
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneOffsetTable{" + zone + ", transitions=" + transitions.length + "}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.java8.datetime;
+
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Process-wide cache of {@link ZoneId}s, their {@link ZoneRules} and
+ * {@link ZoneOffsetTable}s, plus bulk epoch-second conversion between zones.
+ *
+ * {@code ZoneId.of} parses the id and consults the rules provider on every
+ * call, and {@code ZoneId.getAvailableZoneIds()} copies the full id set; here
+ * each is done once. Zones registered with a {@code ZoneRulesProvider} after
+ * the first call to {@link #availableZoneIds()} are not listed there, but
+ * can still be looked up by id.
+ */
+public final class ZoneService {
+
+    private static final ConcurrentMap<String, ZoneId> ZONES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ZoneId, ZoneRules> RULES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<ZoneId, ZoneOffsetTable> TABLES = new ConcurrentHashMap<>();
+    private static volatile Set<String> availableZoneIds;
+
+    private ZoneService() {
+    }
+
+    public static ZoneId zone(String id) {
+        ZoneId zone = ZONES.get(id);
+        if (zone == null) {
+            zone = ZONES.computeIfAbsent(id, ZoneId::of);
+        }
+        return zone;
+    }
+
+    public static ZoneRules rules(ZoneId zone) {
+        ZoneRules rules = RULES.get(zone);
+        if (rules == null) {
+            rules = RULES.computeIfAbsent(zone, ZoneId::getRules);
+        }
+        return rules;
+    }
+
+    public static ZoneOffsetTable offsetTable(ZoneId zone) {
+        ZoneOffsetTable table = TABLES.get(zone);
+        if (table == null) {
+            table = TABLES.computeIfAbsent(zone, z -> new ZoneOffsetTable(z, rules(z)));
+        }
+        return table;
+    }
+
+    public static ZoneOffsetTable offsetTable(String id) {
+        return offsetTable(zone(id));
+    }
+
+    /**
+     * Loads the ids and builds their offset tables up front, so the first
+     * conversion on a hot path does not pay for it.
+     */
+    public static void preload(String... ids) {
+        for (String id : ids) {
+            offsetTable(id);
+        }
+    }
+
+    /** Sorted, unmodifiable snapshot of the available zone ids. */
+    public static Set<String> availableZoneIds() {
+        Set<String> ids = availableZoneIds;
+        if (ids == null) {
+            ids = Collections.unmodifiableSet(new TreeSet<>(ZoneId.getAvailableZoneIds()));
+            availableZoneIds = ids;
+        }
+        return ids;
+    }
+
+    /**
+     * Converts wall-clock times (UTC-based epoch seconds) in one zone to the
+     * wall-clock times of the same instants in another.
+     */
+    public static long[] convertLocal(long[] localEpochSeconds, ZoneId from, ZoneId to, long[] result) {
+        offsetTable(from).toEpochSeconds(localEpochSeconds, result);
+        return offsetTable(to).toLocalEpochSeconds(result, result);
+    }
+
+    /** Wall-clock times in the zone for an array of instants. */
+    public static long[] toLocalEpochSeconds(long[] epochSeconds, ZoneId zone, long[] result) {
+        return offsetTable(zone).toLocalEpochSeconds(epochSeconds, result);
+    }
+
+    /** Number of cached offset tables. */
+    public static int size() {
+        return TABLES.size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.java8.nashorn;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Expression compiled by {@link ExpressionCompiler}.
+ *
+ * Variables are numbered in order of first appearance; {@link #getVariables()}
+ * gives the slot order expected by the primitive {@code evaluate} methods.
+ * Compiled expressions are immutable and safe to share between threads.
+ */
+public final class CompiledExpression {
+
+    private final String source;
+    private final String[] variables;
+    private final ExpressionParser.Node tree;
+    private final ExpressionCompiler.NumericCode numeric;
+    private final ExpressionCompiler.BooleanCode bool;
+
+    CompiledExpression(String source, String[] variables, ExpressionParser.Node tree,
+                       ExpressionCompiler.NumericCode numeric, ExpressionCompiler.BooleanCode bool) {
+        this.source = source;
+        this.variables = variables;
+        this.tree = tree;
+        this.numeric = numeric;
+        this.bool = bool;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public String[] getVariables() {
+        return variables.clone();
+    }
+
+    public int slotOf(String variable) {
+        for (int i = 0; i < variables.length; i++) {
+            if (variables[i].equals(variable)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isBoolean() {
+        return bool != null;
+    }
+
+    /**
+     * Evaluates a numeric expression (boolean results map to 1/0).
+     */
+    public double evaluateNumber(double... slots) {
+        return numeric != null ? numeric.eval(slots) : (bool.eval(slots) ? 1.0 : 0.0);
+    }
+
+    /**
+     * Evaluates the expression for its JavaScript truthiness.
+     */
+    public boolean evaluateBoolean(double... slots) {
+        return bool != null ? bool.eval(slots) : ExpressionCompiler.truthy(numeric.eval(slots));
+    }
+
+    /**
+     * Evaluates to a boxed result typed like the script engines return it.
+     */
+    public Object evaluate(double... slots) {
+        return bool != null ? (Object) bool.eval(slots) : ExpressionParser.normalize(numeric.eval(slots));
+    }
+
+    /**
+     * Evaluates with named variables; if a variable is not a number the
+     * expression is interpreted instead so boolean values keep their
+     * strict-equality semantics.
+     */
+    public Object evaluate(Function<String, Object> resolver) {
+        double[] slots = bind(resolver);
+        if (slots != null) {
+            return evaluate(slots);
+        }
+        return ExpressionParser.normalize(tree.evaluate(resolver));
+    }
+
+    /**
+     * Resolves every variable to its slot value, or returns null if any
+     * variable is unbound or not a number.
+     */
+    double[] bind(Function<String, Object> resolver) {
+        double[] slots = new double[variables.length];
+        for (int i = 0; i < variables.length; i++) {
+            Object value = resolver.apply(variables[i]);
+            if (!(value instanceof Number)) {
+                return null;
+            }
+            slots[i] = ((Number) value).doubleValue();
+        }
+        return slots;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledExpression{" + source + ", variables=" + Arrays.toString(variables) + "}";
+    }
+}
@@ -0,0 +1,289 @@
+package com.java8.nashorn;
+
+import javax.script.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles the {@link ExpressionParser} subset (pure arithmetic and boolean
+ * logic over bound variables) into a tree of Java lambdas.
+ *
+ * Variables are resolved to slot indexes at compile time, constant subtrees
+ * are folded, and every node is statically typed as numeric or boolean, so
+ * an evaluation is a handful of virtual calls over a {@code double[]} with
+ * no boxing, map lookups or script-engine involvement.
+ */
+public final class ExpressionCompiler {
+
+    private final Map<String, Integer> slots = new LinkedHashMap<>();
+
+    private ExpressionCompiler() {
+    }
+
+    /**
+     * Compiles the expression, throwing if it is outside the supported subset.
+     */
+    public static CompiledExpression compile(String source) throws ScriptException {
+        ExpressionParser.Node tree = ExpressionParser.parse(source);
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        Code code = compiler.compile(tree);
+        String[] variables = compiler.slots.keySet().toArray(new String[0]);
+        return new CompiledExpression(source, variables, tree, code.numeric, code.bool);
+    }
+
+    /**
+     * Returns the compiled expression, or null if it is not in the subset.
+     */
+    public static CompiledExpression tryCompile(String source) {
+        try {
+            return compile(source);
+        } catch (ScriptException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compiles a script, taking the lambda fast path when the script is a
+     * supported expression and every variable is bound to a number at
+     * evaluation time; anything else is evaluated by the fallback engine.
+     */
+    public static CompiledScript compileScript(String source, ScriptEngine fallback) throws ScriptException {
+        CompiledExpression expression = tryCompile(source);
+        if (expression == null) {
+            return fallbackScript(source, fallback);
+        }
+        return new FastPathScript(expression, fallback);
+    }
+
+    private static CompiledScript fallbackScript(String source, ScriptEngine engine) throws ScriptException {
+        if (engine instanceof Compilable) {
+            return ((Compilable) engine).compile(source);
+        }
+        return new CompiledScript() {
+            @Override
+            public Object eval(ScriptContext context) throws ScriptException {
+                return engine.eval(source, context);
+            }
+
+            @Override
+            public ScriptEngine getEngine() {
+                return engine;
+            }
+        };
+    }
+
+    private Code compile(ExpressionParser.Node node) throws ScriptException {
+        Code code = compileNode(node);
+        if (code.constant && !(node instanceof ExpressionParser.Literal)) {
+            return code.isBoolean()
+                    ? Code.constant(code.bool.eval(new double[0]))
+                    : Code.constant(code.numeric.eval(new double[0]));
+        }
+        return code;
+    }
+
+    private Code compileNode(ExpressionParser.Node node) throws ScriptException {
+        if (node instanceof ExpressionParser.Literal) {
+            Object value = ((ExpressionParser.Literal) node).value;
+            return value instanceof Boolean
+                    ? Code.constant((Boolean) value)
+                    : Code.constant(((Number) value).doubleValue());
+        }
+        if (node instanceof ExpressionParser.Variable) {
+            String name = ((ExpressionParser.Variable) node).name;
+            int slot = slots.computeIfAbsent(name, k -> slots.size());
+            return Code.numeric(s -> s[slot], false);
+        }
+        if (node instanceof ExpressionParser.Unary) {
+            ExpressionParser.Unary unary = (ExpressionParser.Unary) node;
+            Code operand = compile(unary.operand);
+            switch (unary.op) {
+                case "-": {
+                    NumericCode a = operand.asNumeric();
+                    return Code.numeric(s -> -a.eval(s), operand.constant);
+                }
+                case "+":
+                    return Code.numeric(operand.asNumeric(), operand.constant);
+                default: {
+                    BooleanCode a = operand.asBoolean();
+                    return Code.bool(s -> !a.eval(s), operand.constant);
+                }
+            }
+        }
+        if (node instanceof ExpressionParser.Conditional) {
+            ExpressionParser.Conditional conditional = (ExpressionParser.Conditional) node;
+            Code condition = compile(conditional.condition);
+            Code whenTrue = compile(conditional.whenTrue);
+            Code whenFalse = compile(conditional.whenFalse);
+            requireSameKind(whenTrue, whenFalse);
+            BooleanCode c = condition.asBoolean();
+            boolean constant = condition.constant && whenTrue.constant && whenFalse.constant;
+            if (whenTrue.isBoolean()) {
+                BooleanCode t = whenTrue.bool;
+                BooleanCode f = whenFalse.bool;
+                return Code.bool(s -> c.eval(s) ? t.eval(s) : f.eval(s), constant);
+            }
+            NumericCode t = whenTrue.numeric;
+            NumericCode f = whenFalse.numeric;
+            return Code.numeric(s -> c.eval(s) ? t.eval(s) : f.eval(s), constant);
+        }
+        return compileBinary((ExpressionParser.Binary) node);
+    }
+
+    private Code compileBinary(ExpressionParser.Binary binary) throws ScriptException {
+        Code left = compile(binary.left);
+        Code right = compile(binary.right);
+        boolean constant = left.constant && right.constant;
+
+        switch (binary.op) {
+            case "&&":
+            case "||": {
+                requireSameKind(left, right);
+                boolean and = binary.op.equals("&&");
+                if (left.isBoolean()) {
+                    BooleanCode a = left.bool;
+                    BooleanCode b = right.bool;
+                    return Code.bool(and ? s -> a.eval(s) && b.eval(s) : s -> a.eval(s) || b.eval(s), constant);
+                }
+                NumericCode a = left.numeric;
+                NumericCode b = right.numeric;
+                return Code.numeric(and
+                        ? s -> { double l = a.eval(s); return truthy(l) ? b.eval(s) : l; }
+                        : s -> { double l = a.eval(s); return truthy(l) ? l : b.eval(s); }, constant);
+            }
+            case "===":
+            case "!==":
+                if (left.isBoolean() != right.isBoolean()) {
+                    return Code.constant(binary.op.equals("!=="));
+                }
+                return equality(left, right, binary.op.equals("==="), constant);
+            case "==":
+            case "!=":
+                return equality(left, right, binary.op.equals("=="), constant);
+            default:
+                break;
+        }
+
+        NumericCode a = left.asNumeric();
+        NumericCode b = right.asNumeric();
+        switch (binary.op) {
+            case "+": return Code.numeric(s -> a.eval(s) + b.eval(s), constant);
+            case "-": return Code.numeric(s -> a.eval(s) - b.eval(s), constant);
+            case "*": return Code.numeric(s -> a.eval(s) * b.eval(s), constant);
+            case "/": return Code.numeric(s -> a.eval(s) / b.eval(s), constant);
+            case "%": return Code.numeric(s -> a.eval(s) % b.eval(s), constant);
+            case "<": return Code.bool(s -> a.eval(s) < b.eval(s), constant);
+            case "<=": return Code.bool(s -> a.eval(s) <= b.eval(s), constant);
+            case ">": return Code.bool(s -> a.eval(s) > b.eval(s), constant);
+            case ">=": return Code.bool(s -> a.eval(s) >= b.eval(s), constant);
+            default: throw new ScriptException("Unsupported operator " + binary.op);
+        }
+    }
+
+    private static Code equality(Code left, Code right, boolean equal, boolean constant) {
+        if (left.isBoolean() && right.isBoolean()) {
+            BooleanCode a = left.bool;
+            BooleanCode b = right.bool;
+            return Code.bool(equal ? s -> a.eval(s) == b.eval(s) : s -> a.eval(s) != b.eval(s), constant);
+        }
+        NumericCode a = left.asNumeric();
+        NumericCode b = right.asNumeric();
+        return Code.bool(equal ? s -> a.eval(s) == b.eval(s) : s -> a.eval(s) != b.eval(s), constant);
+    }
+
+    private static void requireSameKind(Code a, Code b) throws ScriptException {
+        if (a.isBoolean() != b.isBoolean()) {
+            throw new ScriptException("Mixed boolean/numeric operands are not compiled");
+        }
+    }
+
+    static boolean truthy(double value) {
+        return value != 0.0 && value == value;
+    }
+
+    interface NumericCode {
+        double eval(double[] slots);
+    }
+
+    interface BooleanCode {
+        boolean eval(double[] slots);
+    }
+
+    private static final class Code {
+        final NumericCode numeric;
+        final BooleanCode bool;
+        final boolean constant;
+
+        private Code(NumericCode numeric, BooleanCode bool, boolean constant) {
+            this.numeric = numeric;
+            this.bool = bool;
+            this.constant = constant;
+        }
+
+        static Code numeric(NumericCode code, boolean constant) {
+            return new Code(code, null, constant);
+        }
+
+        static Code bool(BooleanCode code, boolean constant) {
+            return new Code(null, code, constant);
+        }
+
+        static Code constant(double value) {
+            return new Code(s -> value, null, true);
+        }
+
+        static Code constant(boolean value) {
+            return new Code(null, s -> value, true);
+        }
+
+        boolean isBoolean() {
+            return bool != null;
+        }
+
+        NumericCode asNumeric() {
+            if (numeric != null) {
+                return numeric;
+            }
+            BooleanCode b = bool;
+            return s -> b.eval(s) ? 1.0 : 0.0;
+        }
+
+        BooleanCode asBoolean() {
+            if (bool != null) {
+                return bool;
+            }
+            NumericCode n = numeric;
+            return s -> truthy(n.eval(s));
+        }
+    }
+
+    private static final class FastPathScript extends CompiledScript {
+        private final CompiledExpression expression;
+        private final ScriptEngine fallback;
+        private volatile CompiledScript fallbackScript;
+
+        FastPathScript(CompiledExpression expression, ScriptEngine fallback) {
+            this.expression = expression;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public Object eval(ScriptContext context) throws ScriptException {
+            double[] slots = expression.bind(context::getAttribute);
+            if (slots != null) {
+                return expression.evaluate(slots);
+            }
+            CompiledScript script = fallbackScript;
+            if (script == null) {
+                script = fallbackScript(expression.getSource(), fallback);
+                fallbackScript = script;
+            }
+            return script.eval(context);
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.java8.nashorn;
+
+import javax.script.ScriptException;
+import java.util.function.Function;
+
+/**
+ * Recursive-descent parser for the arithmetic/boolean subset of JavaScript
+ * used by simple rules: numbers, {@code true}/{@code false}, variables,
+ * {@code + - * / %}, comparisons, {@code == != === !==}, {@code && || !},
+ * the ternary operator and parentheses.
+ *
+ * Values follow JavaScript semantics closely enough for rules: numbers are
+ * doubles, {@code &&}/{@code ||} return one of their operands and booleans
+ * coerce to 0/1 in arithmetic.
+ */
+public class ExpressionParser {
+
+    private final String source;
+    private int pos;
+
+    private ExpressionParser(String source) {
+        this.source = source;
+    }
+
+    public static Node parse(String source) throws ScriptException {
+        ExpressionParser parser = new ExpressionParser(source);
+        Node node = parser.conditional();
+        parser.skipWhitespace();
+        if (parser.peek() == ';') {
+            parser.pos++;
+            parser.skipWhitespace();
+        }
+        if (parser.pos < source.length()) {
+            throw parser.error("Unexpected '" + source.charAt(parser.pos) + "'");
+        }
+        return node;
+    }
+
+    /**
+     * Returns true if the source parses as a supported expression.
+     */
+    public static boolean isSupported(String source) {
+        try {
+            parse(source);
+            return true;
+        } catch (ScriptException e) {
+            return false;
+        }
+    }
+
+    private Node conditional() throws ScriptException {
+        Node condition = logicalOr();
+        if (match("?")) {
+            Node whenTrue = conditional();
+            expect(":");
+            Node whenFalse = conditional();
+            return new Conditional(condition, whenTrue, whenFalse);
+        }
+        return condition;
+    }
+
+    private Node logicalOr() throws ScriptException {
+        Node left = logicalAnd();
+        while (match("||")) {
+            left = new Binary("||", left, logicalAnd());
+        }
+        return left;
+    }
+
+    private Node logicalAnd() throws ScriptException {
+        Node left = equality();
+        while (match("&&")) {
+            left = new Binary("&&", left, equality());
+        }
+        return left;
+    }
+
+    private Node equality() throws ScriptException {
+        Node left = relational();
+        while (true) {
+            String op = matchAny("===", "!==", "==", "!=");
+            if (op == null) {
+                return left;
+            }
+            left = new Binary(op, left, relational());
+        }
+    }
+
+    private Node relational() throws ScriptException {
+        Node left = additive();
+        while (true) {
+            String op = matchAny("<=", ">=", "<", ">");
+            if (op == null) {
+                return left;
+            }
+            left = new Binary(op, left, additive());
+        }
+    }
+
+    private Node additive() throws ScriptException {
+        Node left = multiplicative();
+        while (true) {
+            String op = matchAny("+", "-");
+            if (op == null) {
+                return left;
+            }
+            left = new Binary(op, left, multiplicative());
+        }
+    }
+
+    private Node multiplicative() throws ScriptException {
+        Node left = unary();
+        while (true) {
+            String op = matchAny("*", "/", "%");
+            if (op == null) {
+                return left;
+            }
+            left = new Binary(op, left, unary());
+        }
+    }
+
+    private Node unary() throws ScriptException {
+        skipWhitespace();
+        char c = peek();
+        if ((c == '-' || c == '+') || (c == '!' && peekAt(1) != '=')) {
+            pos++;
+            return new Unary(String.valueOf(c), unary());
+        }
+        return primary();
+    }
+
+    private Node primary() throws ScriptException {
+        skipWhitespace();
+        char c = peek();
+        if (c == '(') {
+            pos++;
+            Node inner = conditional();
+            expect(")");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            int start = pos;
+            while (pos < source.length()
+                    && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+                pos++;
+            }
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                pos++;
+                if (peek() == '+' || peek() == '-') {
+                    pos++;
+                }
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                    pos++;
+                }
+            }
+            try {
+                return new Literal(Double.parseDouble(source.substring(start, pos)));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+        if (Character.isJavaIdentifierStart(c)) {
+            int start = pos;
+            while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                pos++;
+            }
+            String name = source.substring(start, pos);
+            if (name.equals("true")) {
+                return new Literal(Boolean.TRUE);
+            }
+            if (name.equals("false")) {
+                return new Literal(Boolean.FALSE);
+            }
+            skipWhitespace();
+            if (peek() == '(' || peek() == '.' || peek() == '[') {
+                throw error("Function calls and member access are not supported");
+            }
+            return new Variable(name);
+        }
+        throw error(pos < source.length() ? "Unexpected '" + c + "'" : "Unexpected end of expression");
+    }
+
+    private boolean match(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private String matchAny(String... tokens) {
+        skipWhitespace();
+        for (String token : tokens) {
+            if (source.startsWith(token, pos) && !isOperatorPrefix(token)) {
+                pos += token.length();
+                return token;
+            }
+        }
+        return null;
+    }
+
+    // Keeps "<" from matching the start of "<=", "&&" etc. handled by ordering
+    private boolean isOperatorPrefix(String token) {
+        int next = pos + token.length();
+        if (next >= source.length()) {
+            return false;
+        }
+        char following = source.charAt(next);
+        switch (token) {
+            case "+": return following == '+';
+            case "-": return following == '-';
+            case "=":
+            case "<":
+            case ">": return following == '=';
+            default: return false;
+        }
+    }
+
+    private void expect(String token) throws ScriptException {
+        if (!match(token)) {
+            throw error("Expected '" + token + "'");
+        }
+    }
+
+    private char peek() {
+        return peekAt(0);
+    }
+
+    private char peekAt(int offset) {
+        int index = pos + offset;
+        return index < source.length() ? source.charAt(index) : '\0';
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private ScriptException error(String message) {
+        return new ScriptException(message + " at position " + pos, "<expression>", 1, pos + 1);
+    }
+
+    // Value helpers shared by the interpreter
+
+    static double toNumber(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1.0 : 0.0;
+        }
+        return Double.NaN;
+    }
+
+    static boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            return d != 0.0 && !Double.isNaN(d);
+        }
+        return value != null;
+    }
+
+    /**
+     * Converts an internal double result to the type Nashorn would return:
+     * Integer for integral values in int range, Double otherwise.
+     */
+    static Object normalize(Object value) {
+        if (value instanceof Double) {
+            double d = (Double) value;
+            if (d == Math.rint(d) && d >= Integer.MIN_VALUE && d <= Integer.MAX_VALUE
+                    && !(d == 0.0 && 1.0 / d < 0)) {
+                return (int) d;
+            }
+        }
+        return value;
+    }
+
+    // AST
+
+    /**
+     * Parsed expression node; {@link #evaluate} walks the tree resolving
+     * variables through the given function.
+     */
+    public abstract static class Node {
+        public abstract Object evaluate(Function<String, Object> variables);
+    }
+
+    public static final class Literal extends Node {
+        final Object value;
+
+        Literal(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public Object evaluate(Function<String, Object> variables) {
+            return value;
+        }
+    }
+
+    public static final class Variable extends Node {
+        final String name;
+
+        Variable(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Object evaluate(Function<String, Object> variables) {
+            Object value = variables.apply(name);
+            if (value == null) {
+                throw new IllegalArgumentException("ReferenceError: \"" + name + "\" is not defined");
+            }
+            return value instanceof Boolean ? value : (Object) toNumber(value);
+        }
+    }
+
+    public static final class Unary extends Node {
+        final String op;
+        final Node operand;
+
+        Unary(String op, Node operand) {
+            this.op = op;
+            this.operand = operand;
+        }
+
+        @Override
+        public Object evaluate(Function<String, Object> variables) {
+            Object value = operand.evaluate(variables);
+            switch (op) {
+                case "-": return -toNumber(value);
+                case "+": return toNumber(value);
+                default: return !toBoolean(value);
+            }
+        }
+    }
+
+    public static final class Binary extends Node {
+        final String op;
+        final Node left;
+        final Node right;
+
+        Binary(String op, Node left, Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public Object evaluate(Function<String, Object> variables) {
+            Object l = left.evaluate(variables);
+            if (op.equals("&&")) {
+                return toBoolean(l) ? right.evaluate(variables) : l;
+            }
+            if (op.equals("||")) {
+                return toBoolean(l) ? l : right.evaluate(variables);
+            }
+            Object r = right.evaluate(variables);
+            switch (op) {
+                case "===": return l.getClass() == r.getClass() && toNumber(l) == toNumber(r);
+                case "!==": return !(l.getClass() == r.getClass() && toNumber(l) == toNumber(r));
+                case "==": return toNumber(l) == toNumber(r);
+                case "!=": return toNumber(l) != toNumber(r);
+                default: break;
+            }
+            double a = toNumber(l);
+            double b = toNumber(r);
+            switch (op) {
+                case "+": return a + b;
+                case "-": return a - b;
+                case "*": return a * b;
+                case "/": return a / b;
+                case "%": return a % b;
+                case "<": return a < b;
+                case "<=": return a <= b;
+                case ">": return a > b;
+                default: return a >= b;
+            }
+        }
+    }
+
+    public static final class Conditional extends Node {
+        final Node condition;
+        final Node whenTrue;
+        final Node whenFalse;
+
+        Conditional(Node condition, Node whenTrue, Node whenFalse) {
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        public Object evaluate(Function<String, Object> variables) {
+            return toBoolean(condition.evaluate(variables))
+                    ? whenTrue.evaluate(variables)
+                    : whenFalse.evaluate(variables);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.java8.nashorn;
+
+import javax.script.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.stream.Collectors;
+
+/**
+ * Minimal JSR-223 engine for arithmetic and boolean rule expressions,
+ * see {@link ExpressionParser} for the supported syntax. Available on every
+ * JDK, so simple rules keep working where no JavaScript engine is present.
+ */
+public class ExpressionScriptEngine extends AbstractScriptEngine implements Compilable {
+
+    private final ScriptEngineFactory factory;
+
+    public ExpressionScriptEngine() {
+        this(new ExpressionScriptEngineFactory());
+    }
+
+    ExpressionScriptEngine(ScriptEngineFactory factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public Object eval(String script, ScriptContext context) throws ScriptException {
+        return evaluate(ExpressionParser.parse(script), context);
+    }
+
+    @Override
+    public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+        return eval(read(reader), context);
+    }
+
+    /**
+     * Compiles to an {@link ExpressionCompiler} lambda tree when possible,
+     * otherwise keeps the parsed tree for interpretation.
+     */
+    @Override
+    public CompiledScript compile(String script) throws ScriptException {
+        CompiledExpression expression = ExpressionCompiler.tryCompile(script);
+        ExpressionParser.Node node = expression == null ? ExpressionParser.parse(script) : null;
+        return new CompiledScript() {
+            @Override
+            public Object eval(ScriptContext context) throws ScriptException {
+                if (expression == null) {
+                    return evaluate(node, context);
+                }
+                try {
+                    return expression.evaluate(context::getAttribute);
+                } catch (IllegalArgumentException e) {
+                    throw new ScriptException(e.getMessage());
+                }
+            }
+
+            @Override
+            public ScriptEngine getEngine() {
+                return ExpressionScriptEngine.this;
+            }
+        };
+    }
+
+    @Override
+    public CompiledScript compile(Reader reader) throws ScriptException {
+        return compile(read(reader));
+    }
+
+    @Override
+    public Bindings createBindings() {
+        return new SimpleBindings();
+    }
+
+    @Override
+    public ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    private static Object evaluate(ExpressionParser.Node node, ScriptContext context) throws ScriptException {
+        try {
+            return ExpressionParser.normalize(node.evaluate(context::getAttribute));
+        } catch (IllegalArgumentException e) {
+            throw new ScriptException(e.getMessage());
+        }
+    }
+
+    private static String read(Reader reader) throws ScriptException {
+        try (BufferedReader buffered = new BufferedReader(reader)) {
+            return buffered.lines().collect(Collectors.joining("\n"));
+        } catch (IOException | java.io.UncheckedIOException e) {
+            throw new ScriptException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.java8.nashorn;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Factory for {@link ExpressionScriptEngine}.
+ */
+public class ExpressionScriptEngineFactory implements ScriptEngineFactory {
+
+    @Override
+    public String getEngineName() { return "Java8 Expression Engine"; }
+
+    @Override
+    public String getEngineVersion() { return "1.0"; }
+
+    @Override
+    public List<String> getExtensions() { return Collections.singletonList("expr"); }
+
+    @Override
+    public List<String> getMimeTypes() { return Collections.emptyList(); }
+
+    @Override
+    public List<String> getNames() { return Arrays.asList("expression", "expr"); }
+
+    @Override
+    public String getLanguageName() { return "expression"; }
+
+    @Override
+    public String getLanguageVersion() { return "1.0"; }
+
+    @Override
+    public Object getParameter(String key) {
+        switch (key) {
+            case ScriptEngine.ENGINE: return getEngineName();
+            case ScriptEngine.ENGINE_VERSION: return getEngineVersion();
+            case ScriptEngine.NAME: return getNames().get(0);
+            case ScriptEngine.LANGUAGE: return getLanguageName();
+            case ScriptEngine.LANGUAGE_VERSION: return getLanguageVersion();
+            case "THREADING": return "STATELESS";
+            default: return null;
+        }
+    }
+
+    @Override
+    public String getMethodCallSyntax(String obj, String m, String... args) {
+        throw new UnsupportedOperationException("Method calls are not supported");
+    }
+
+    @Override
+    public String getOutputStatement(String toDisplay) {
+        throw new UnsupportedOperationException("Output statements are not supported");
+    }
+
+    @Override
+    public String getProgram(String... statements) {
+        return String.join("; ", statements);
+    }
+
+    @Override
+    public ScriptEngine getScriptEngine() {
+        return new ExpressionScriptEngine(this);
+    }
+}
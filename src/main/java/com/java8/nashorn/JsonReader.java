@@ -0,0 +1,531 @@
+package com.java8.nashorn;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming (pull) JSON parser that reads directly from a {@link CharSequence}
+ * or a UTF-8 {@link ByteBuffer} without copying the input.
+ *
+ * Structural characters are scanned in place; only string and number
+ * tokens that the caller actually consumes are materialized. Use
+ * {@link #parse} for a fully built {@code Map}/{@code List} tree or
+ * {@link LazyJson} for a view that parses nested values on first access.
+ * Both can be handed to scripts as-is instead of round-tripping through
+ * {@code JSON.parse}.
+ *
+ * Numbers and strings follow the RFC 8259 grammar as strictly as
+ * {@code JSON.parse} does: leading zeros, a bare {@code '.'} or exponent, and
+ * raw control characters inside strings are rejected.
+ */
+public final class JsonReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Source source;
+    private int pos;
+    private Token peeked;
+    private boolean peekedBoolean;
+    private int[] stack = new int[32];
+    private int depth;
+
+    public JsonReader(CharSequence input) {
+        this(new CharSequenceSource(input), 0);
+    }
+
+    public JsonReader(ByteBuffer utf8) {
+        this(new ByteBufferSource(utf8), 0);
+    }
+
+    JsonReader(Source source, int start) {
+        this.source = source;
+        this.pos = start;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Parses a complete document into {@code Map}/{@code List}/scalar values.
+     */
+    public static Object parse(CharSequence input) {
+        return new JsonReader(input).readDocument();
+    }
+
+    public static Object parse(ByteBuffer utf8) {
+        return new JsonReader(utf8).readDocument();
+    }
+
+    public Token peek() {
+        if (peeked != null) {
+            return peeked;
+        }
+        int top = stack[depth - 1];
+        switch (top) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                if (nextNonWhitespace() == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                pos--;
+                break;
+            case NONEMPTY_ARRAY: {
+                int c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("Expected ',' or ']'");
+                }
+                break;
+            }
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT: {
+                stack[depth - 1] = DANGLING_NAME;
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (top == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("Expected name");
+                }
+                return peeked = Token.NAME;
+            }
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if (nextNonWhitespace() != -1) {
+                    throw syntaxError("Trailing content");
+                }
+                return peeked = Token.END_DOCUMENT;
+        }
+        return peeked = peekValue();
+    }
+
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    public String nextName() {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    public String nextString() {
+        expect(Token.STRING);
+        return readString();
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        return peekedBoolean;
+    }
+
+    public void nextNull() {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Reads a number as Integer when it is integral and fits, else Double,
+     * matching what script engines return from {@code JSON.parse}.
+     */
+    public Number nextNumber() {
+        expect(Token.NUMBER);
+        int start = pos;
+        boolean negative = false;
+        if (source.charAt(pos) == '-') {
+            negative = true;
+            pos++;
+        }
+        int first = pos;
+        long value = 0;
+        while (pos < source.length() && isDigit(source.charAt(pos))) {
+            value = value * 10 + (source.charAt(pos) - '0');
+            pos++;
+        }
+        int digits = pos - first;
+        if (digits == 0 || (digits > 1 && source.charAt(first) == '0')) {
+            throw syntaxError("Invalid number");
+        }
+        boolean integral = true;
+        if (pos < source.length() && source.charAt(pos) == '.') {
+            integral = false;
+            pos++;
+            skipDigits();
+        }
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            integral = false;
+            pos++;
+            if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                pos++;
+            }
+            skipDigits();
+        }
+        if (integral && digits <= 18) {
+            if (negative && value == 0) {
+                return -0.0;
+            }
+            long signed = negative ? -value : value;
+            if (signed >= Integer.MIN_VALUE && signed <= Integer.MAX_VALUE) {
+                return (int) signed;
+            }
+            return (double) signed;
+        }
+        try {
+            return Double.parseDouble(source.text(start, pos));
+        } catch (NumberFormatException e) {
+            throw syntaxError("Invalid number");
+        }
+    }
+
+    /** Skips one or more digits, as required after '.' and the exponent sign. */
+    private void skipDigits() {
+        int start = pos;
+        while (pos < source.length() && isDigit(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start) {
+            throw syntaxError("Invalid number");
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    public double nextDouble() {
+        return nextNumber().doubleValue();
+    }
+
+    /**
+     * Skips the next value. Objects and arrays are skipped with a raw
+     * bracket/string scan, without tokenizing or validating their contents.
+     */
+    public void skipValue() {
+        Token token = peek();
+        if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+            peeked = null;
+            int level = 1;
+            while (level > 0) {
+                if (pos >= source.length()) {
+                    throw syntaxError("Unexpected end of input");
+                }
+                char c = source.charAt(pos++);
+                if (c == '"') {
+                    skipString();
+                } else if (c == '{' || c == '[') {
+                    level++;
+                } else if (c == '}' || c == ']') {
+                    level--;
+                }
+            }
+            return;
+        }
+        switch (token) {
+            case NAME: expect(Token.NAME); skipString(); break;
+            case STRING: expect(Token.STRING); skipString(); break;
+            case NUMBER: nextNumber(); break;
+            case BOOLEAN: nextBoolean(); break;
+            case NULL: nextNull(); break;
+            default: throw syntaxError("Expected a value but was " + token);
+        }
+    }
+
+    /**
+     * Reads the next value, building {@code Map}s and {@code List}s for
+     * objects and arrays.
+     */
+    public Object readValue() {
+        switch (peek()) {
+            case BEGIN_OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    map.put(name, readValue());
+                }
+                endObject();
+                return map;
+            }
+            case BEGIN_ARRAY: {
+                List<Object> list = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    list.add(readValue());
+                }
+                endArray();
+                return list;
+            }
+            case STRING: return nextString();
+            case NUMBER: return nextNumber();
+            case BOOLEAN: return nextBoolean();
+            case NULL: nextNull(); return null;
+            default: throw syntaxError("Expected a value but was " + peek());
+        }
+    }
+
+    /**
+     * Offset of the next value's first character (valid right after peek()).
+     */
+    int valueStart() {
+        Token token = peek();
+        return token == Token.NUMBER ? pos : pos - 1;
+    }
+
+    Source source() {
+        return source;
+    }
+
+    private Object readDocument() {
+        Object value = readValue();
+        if (peek() != Token.END_DOCUMENT) {
+            throw syntaxError("Trailing content");
+        }
+        return value;
+    }
+
+    private Token peekValue() {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't': expectLiteral("rue"); peekedBoolean = true; return Token.BOOLEAN;
+            case 'f': expectLiteral("alse"); peekedBoolean = false; return Token.BOOLEAN;
+            case 'n': expectLiteral("ull"); return Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError(c == -1 ? "Unexpected end of input" : "Unexpected character");
+        }
+    }
+
+    private void expectLiteral(String rest) {
+        for (int i = 0; i < rest.length(); i++) {
+            if (pos >= source.length() || source.charAt(pos++) != rest.charAt(i)) {
+                throw syntaxError("Invalid literal");
+            }
+        }
+    }
+
+    private void expect(Token token) {
+        if (peek() != token) {
+            throw syntaxError("Expected " + token + " but was " + peeked);
+        }
+        peeked = null;
+    }
+
+    private void push(int state) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = state;
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private String readString() {
+        int start = pos;
+        StringBuilder builder = null;
+        int segment = start;
+        while (pos < source.length()) {
+            char c = source.charAt(pos);
+            if (c == '"') {
+                String result;
+                if (builder == null) {
+                    result = source.text(start, pos);
+                } else {
+                    builder.append(source.text(segment, pos));
+                    result = builder.toString();
+                }
+                pos++;
+                return result;
+            }
+            if (c == '\\') {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(source.text(segment, pos));
+                pos++;
+                builder.append(readEscape());
+                segment = pos;
+                continue;
+            }
+            if (c < 0x20) {
+                throw syntaxError("Unescaped control character");
+            }
+            pos++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void skipString() {
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                pos++;
+            } else if (c < 0x20) {
+                throw syntaxError("Unescaped control character");
+            }
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private char readEscape() {
+        if (pos >= source.length()) {
+            throw syntaxError("Unterminated escape");
+        }
+        char c = source.charAt(pos++);
+        switch (c) {
+            case 'n': return '\n';
+            case 't': return '\t';
+            case 'r': return '\r';
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case '"':
+            case '\\':
+            case '/': return c;
+            case 'u':
+                if (pos + 4 > source.length()) {
+                    throw syntaxError("Invalid unicode escape");
+                }
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(source.charAt(pos++), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("Invalid escape");
+        }
+    }
+
+    private IllegalArgumentException syntaxError(String message) {
+        return new IllegalArgumentException("Malformed JSON: " + message + " at offset " + pos);
+    }
+
+    /**
+     * Random-access view of the input. Structural JSON characters are ASCII,
+     * so a UTF-8 buffer can be scanned byte by byte.
+     */
+    interface Source {
+        int length();
+
+        char charAt(int index);
+
+        String text(int start, int end);
+    }
+
+    static final class CharSequenceSource implements Source {
+        private final CharSequence input;
+
+        CharSequenceSource(CharSequence input) {
+            this.input = input;
+        }
+
+        @Override
+        public int length() { return input.length(); }
+
+        @Override
+        public char charAt(int index) { return input.charAt(index); }
+
+        @Override
+        public String text(int start, int end) {
+            return input.subSequence(start, end).toString();
+        }
+    }
+
+    static final class ByteBufferSource implements Source {
+        private final ByteBuffer buffer;
+        private final int offset;
+        private final int length;
+
+        ByteBufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.offset = buffer.position();
+            this.length = buffer.remaining();
+        }
+
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) { return (char) (buffer.get(offset + index) & 0xFF); }
+
+        @Override
+        public String text(int start, int end) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + offset + start, end - start,
+                        StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(offset + start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.java8.nashorn;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Streaming JSON writer to any {@link Appendable}.
+ *
+ * Output mirrors {@code JSON.stringify(value, null, indent)}: numbers print
+ * as JavaScript's {@code Number.prototype.toString} does (no fraction for
+ * integral values, plain digits up to 1e21 and down to 1e-6, {@code 1e-7}
+ * and {@code 1e+21} beyond), non-finite numbers become {@code null} and,
+ * with an indent, members go on separate lines with {@code ": "}.
+ */
+public final class JsonWriter {
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+
+    private final Appendable out;
+    private final String indent;
+    private final StringBuilder scratch = new StringBuilder(32);
+    private int[] stack = new int[32];
+    private int depth;
+
+    public JsonWriter(Appendable out) {
+        this(out, 0);
+    }
+
+    public JsonWriter(Appendable out, int indent) {
+        this.out = out;
+        char[] spaces = new char[Math.max(0, Math.min(indent, 10))];
+        Arrays.fill(spaces, ' ');
+        this.indent = new String(spaces);
+    }
+
+    public static String stringify(Object value) {
+        return stringify(value, 0);
+    }
+
+    public static String stringify(Object value, int indent) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            new JsonWriter(builder, indent).value(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return builder.toString();
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        push(EMPTY_OBJECT);
+        out.append('{');
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close(EMPTY_OBJECT, NONEMPTY_OBJECT, '}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        push(EMPTY_ARRAY);
+        out.append('[');
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(EMPTY_ARRAY, NONEMPTY_ARRAY, ']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        int top = depth == 0 ? 0 : stack[depth - 1];
+        if (top == NONEMPTY_OBJECT) {
+            out.append(',');
+        } else if (top != EMPTY_OBJECT) {
+            throw new IllegalStateException("name() outside of an object");
+        }
+        newline();
+        string(name);
+        out.append(indent.isEmpty() ? ":" : ": ");
+        stack[depth - 1] = DANGLING_NAME;
+        return this;
+    }
+
+    public JsonWriter value(CharSequence value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) throws IOException {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            scratch.setLength(0);
+            out.append(appendNumber(scratch, value));
+        }
+        return this;
+    }
+
+    /**
+     * Appends the number as JavaScript's {@code String(value)} would:
+     * the ECMAScript Number-to-String layout applied to the shortest decimal
+     * digits that read back as the same double, {@code 0} for negative zero
+     * and {@code NaN}/{@code Infinity} for non-finite values.
+     */
+    static StringBuilder appendNumber(StringBuilder out, double value) {
+        if (Double.isNaN(value)) {
+            return out.append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return out.append(value > 0 ? "Infinity" : "-Infinity");
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return out.append((long) value);
+        }
+        double abs = Math.abs(value);
+        char[] digits = new char[20];
+        int k = 0;
+        int n = 0;
+        // Double.toString's digits always read back; a normal double has at
+        // most one such decimal of 15 or fewer digits, so a short result is
+        // already the shortest and only the layout needs changing
+        String text = Double.toString(abs);
+        int e = text.indexOf('E');
+        int end = e < 0 ? text.length() : e;
+        boolean fraction = false;
+        for (int i = 0; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                fraction = true;
+            } else if (c != '0' || k > 0) {
+                digits[k++] = c;
+                if (!fraction) {
+                    n++;
+                }
+            } else if (fraction) {
+                n--; // a leading zero after the point
+            }
+        }
+        n += e < 0 ? 0 : Integer.parseInt(text.substring(e + 1));
+        while (digits[k - 1] == '0') {
+            k--;
+        }
+        if (k > 15 || abs < Double.MIN_NORMAL) {
+            // Otherwise the digits may be longer than needed (4.9E-324 for
+            // 5e-324) or not the closest; shorten while a rounding of the
+            // exact value still reads back, then use that rounding
+            BigDecimal exact = new BigDecimal(abs);
+            int precision = k;
+            while (precision > 1 && round(exact, precision - 1).doubleValue() == abs) {
+                precision--;
+            }
+            BigDecimal decimal = round(exact, precision).stripTrailingZeros();
+            digits = decimal.unscaledValue().toString().toCharArray();
+            k = digits.length;
+            n = k - decimal.scale();
+        }
+        if (value < 0) {
+            out.append('-');
+        }
+        if (k <= n && n <= 21) {
+            out.append(digits, 0, k);
+            for (int i = k; i < n; i++) {
+                out.append('0');
+            }
+        } else if (0 < n && n <= 21) {
+            out.append(digits, 0, n).append('.').append(digits, n, k - n);
+        } else if (-6 < n && n <= 0) {
+            out.append("0.");
+            for (int i = n; i < 0; i++) {
+                out.append('0');
+            }
+            out.append(digits, 0, k);
+        } else {
+            out.append(digits[0]);
+            if (k > 1) {
+                out.append('.').append(digits, 1, k - 1);
+            }
+            out.append(n > 0 ? "e+" : "e-").append(Math.abs(n - 1));
+        }
+        return out;
+    }
+
+    /** Ties go to the even digit, as in ECMAScript. */
+    private static BigDecimal round(BigDecimal value, int precision) {
+        return value.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.append(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.append(value ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.append("null");
+        return this;
+    }
+
+    /**
+     * Writes maps, iterables, arrays, numbers, booleans and char sequences;
+     * anything else is written as its {@code toString()}.
+     */
+    public JsonWriter value(Object value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof CharSequence) {
+            return value((CharSequence) value);
+        }
+        if (value instanceof Boolean) {
+            return value(((Boolean) value).booleanValue());
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            return value(((Number) value).longValue());
+        }
+        if (value instanceof Number) {
+            return value(((Number) value).doubleValue());
+        }
+        if (value instanceof Map) {
+            beginObject();
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                name(String.valueOf(entry.getKey()));
+                value(entry.getValue());
+            }
+            return endObject();
+        }
+        if (value instanceof Iterable) {
+            beginArray();
+            for (Object element : (Iterable<?>) value) {
+                value(element);
+            }
+            return endArray();
+        }
+        if (value.getClass().isArray()) {
+            beginArray();
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                value(Array.get(value, i));
+            }
+            return endArray();
+        }
+        return value(value.toString());
+    }
+
+    private JsonWriter close(int empty, int nonEmpty, char bracket) throws IOException {
+        int top = depth == 0 ? 0 : stack[depth - 1];
+        if (top != empty && top != nonEmpty) {
+            throw new IllegalStateException("Nesting problem closing '" + bracket + "'");
+        }
+        depth--;
+        if (top == nonEmpty) {
+            newline();
+        }
+        out.append(bracket);
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        switch (stack[depth - 1]) {
+            case NONEMPTY_ARRAY:
+                out.append(',');
+                newline();
+                break;
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                newline();
+                break;
+            case DANGLING_NAME:
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            default:
+                throw new IllegalStateException("Value without a name inside an object");
+        }
+    }
+
+    private void push(int state) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+        }
+        stack[depth++] = state;
+    }
+
+    private void newline() throws IOException {
+        if (indent.isEmpty()) {
+            return;
+        }
+        out.append('\n');
+        for (int i = 0; i < depth; i++) {
+            out.append(indent);
+        }
+    }
+
+    private void string(CharSequence value) throws IOException {
+        out.append('"');
+        int length = value.length();
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c >= 0x20) {
+                continue;
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\b') {
+                replacement = "\\b";
+            } else if (c == '\f') {
+                replacement = "\\f";
+            } else {
+                replacement = String.format("\\u%04x", (int) c);
+            }
+            out.append(value, last, i);
+            out.append(replacement);
+            last = i + 1;
+        }
+        out.append(value, last, length);
+        out.append('"');
+    }
+}
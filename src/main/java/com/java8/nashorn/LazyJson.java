@@ -0,0 +1,136 @@
+package com.java8.nashorn;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * Lazy {@code Map}/{@code List} view over a JSON document.
+ *
+ * Opening a document costs nothing; an object or array is only scanned
+ * when it is first accessed, and then only one level deep: nested objects
+ * and arrays become further lazy views that still point into the original
+ * input. Scripts can navigate the result with ordinary property and index
+ * access, so large payloads whose scripts touch a few fields skip most of
+ * the parsing and allocation. Views are read-only.
+ */
+public final class LazyJson {
+
+    private LazyJson() {
+    }
+
+    public static Object parse(CharSequence input) {
+        return root(new JsonReader.CharSequenceSource(input));
+    }
+
+    public static Object parse(ByteBuffer utf8) {
+        return root(new JsonReader.ByteBufferSource(utf8));
+    }
+
+    private static Object root(JsonReader.Source source) {
+        JsonReader reader = new JsonReader(source, 0);
+        return valueAt(reader);
+    }
+
+    /**
+     * Returns a lazy view for objects/arrays, or the scalar itself.
+     */
+    private static Object valueAt(JsonReader reader) {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT: {
+                LazyObject object = new LazyObject(reader.source(), reader.valueStart());
+                reader.skipValue();
+                return object;
+            }
+            case BEGIN_ARRAY: {
+                LazyArray array = new LazyArray(reader.source(), reader.valueStart());
+                reader.skipValue();
+                return array;
+            }
+            default:
+                return reader.readValue();
+        }
+    }
+
+    static final class LazyObject extends AbstractMap<String, Object> {
+        private final JsonReader.Source source;
+        private final int offset;
+        private volatile Map<String, Object> members;
+
+        LazyObject(JsonReader.Source source, int offset) {
+            this.source = source;
+            this.offset = offset;
+        }
+
+        private Map<String, Object> members() {
+            Map<String, Object> result = members;
+            if (result == null) {
+                result = new LinkedHashMap<>();
+                JsonReader reader = new JsonReader(source, offset);
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    result.put(name, valueAt(reader));
+                }
+                result = Collections.unmodifiableMap(result);
+                members = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return members().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return members().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return members().size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return members().entrySet();
+        }
+    }
+
+    static final class LazyArray extends AbstractList<Object> implements RandomAccess {
+        private final JsonReader.Source source;
+        private final int offset;
+        private volatile Object[] elements;
+
+        LazyArray(JsonReader.Source source, int offset) {
+            this.source = source;
+            this.offset = offset;
+        }
+
+        private Object[] elements() {
+            Object[] result = elements;
+            if (result == null) {
+                List<Object> values = new ArrayList<>();
+                JsonReader reader = new JsonReader(source, offset);
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    values.add(valueAt(reader));
+                }
+                result = values.toArray();
+                elements = result;
+            }
+            return result;
+        }
+
+        @Override
+        public Object get(int index) {
+            return elements()[index];
+        }
+
+        @Override
+        public int size() {
+            return elements().length;
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package com.java8.nashorn;
 
+import com.java8.datetime.NanoClock;
+
 import javax.script.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Comprehensive examples of Nashorn JavaScript Engine in Java 8
  */
 public class NashornExamples {
     
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+    
     public static void main(String[] args) {
         NashornExamples examples = new NashornExamples();
         
@@ -19,6 +33,7 @@ public class NashornExamples {
         examples.functionExecution();
         examples.objectManipulation();
         examples.errorHandling();
+        examples.sandboxedScripts();
         examples.practicalExamples();
         examples.performanceConsiderations();
     }
@@ -30,11 +45,11 @@ public class NashornExamples {
         System.out.println("1. Basic JavaScript Execution:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
-                System.out.println("Nashorn engine not available. This example requires Java 8-14.");
+                System.out.println("Nashorn engine not available. This example requires Java 8-14 "
+                        + "or org.openjdk.nashorn:nashorn-core on the classpath.");
                 return;
             }
             
@@ -73,8 +88,7 @@ public class NashornExamples {
         System.out.println("2. Java-JavaScript Interop:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -104,6 +118,14 @@ public class NashornExamples {
             Object dateResult = engine.eval("new java.util.Date()");
             System.out.println("Java Date creation: " + dateResult);
             
+            // Zero-copy typed array view: the script updates a direct buffer in place
+            ByteBuffer buffer = ByteBuffer.allocateDirect(4 * Double.BYTES);
+            buffer.asDoubleBuffer().put(new double[] {20.5, 21.0, 19.5, 22.0});
+            TypedArrayView readings = TypedArrayView.ofDoubles(buffer);
+            engine.put("readings", readings.toScript(engine));
+            engine.eval("for (var i = 0; i < readings.length; i++) { readings[i] = readings[i] * 9 / 5 + 32; }");
+            System.out.println("Typed array view updated in place: " + readings);
+            
             // Use Java collections from JavaScript
             Object collectionResult = engine.eval("new java.util.ArrayList()");
             engine.eval("collectionResult.add('Item 1')");
@@ -125,8 +147,7 @@ public class NashornExamples {
         System.out.println("3. Script Evaluation:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -185,8 +206,7 @@ public class NashornExamples {
         System.out.println("4. Function Execution:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -194,7 +214,7 @@ public class NashornExamples {
             }
             
             // Define JavaScript functions
-            engine.eval(
+            String functions =
                 "function factorial(n) {\n" +
                 "    if (n <= 1) return 1;\n" +
                 "    return n * factorial(n - 1);\n" +
@@ -211,8 +231,8 @@ public class NashornExamples {
                 "        if (num % i === 0) return false;\n" +
                 "    }\n" +
                 "    return true;\n" +
-                "}"
-            );
+                "}";
+            engine.eval(functions);
             
             // Call functions with different parameters
             Object factorialResult = engine.eval("factorial(5)");
@@ -237,6 +257,44 @@ public class NashornExamples {
             Object multiplyResult = invocable.invokeFunction("multiply", 2, 3, 4);
             System.out.println("Multiply result: " + multiplyResult);
             
+            // Memoized pure functions: one cache for calls from Java and for the
+            // recursive calls inside the script, shared by all pooled engines
+            if (ScriptBackend.selected().isJavaScript()) {
+                try (ScriptService service = new ScriptService(ScriptBackend.selected(), 2, 64)) {
+                    service.definePure("fibonacci",
+                        "function fibonacci(n) { return n <= 1 ? n : fibonacci(n - 1) + fibonacci(n - 2); }");
+                    long start = CLOCK.nanoTime();
+                    long fib40 = ((Number) service.invoke("fibonacci", 40)).longValue();
+                    long firstCall = CLOCK.elapsedNanos(start);
+                    start = CLOCK.nanoTime();
+                    service.invoke("fibonacci", 40);
+                    long secondCall = CLOCK.elapsedNanos(start);
+                    System.out.printf("Memoized fibonacci(40) = %d (first call %.2fms, repeat %.3fms)%n",
+                        fib40, firstCall / 1_000_000.0, secondCall / 1_000_000.0);
+                    System.out.println("Memoization " + service.getFunctionCache());
+                }
+            }
+            
+            // Batch invocation: resolve the function once, loop inside the engine
+            ScriptBatchInvoker factorials = ScriptBatchInvoker.create(engine, "factorial");
+            double[] factorialTable = factorials.applyAsDouble(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+            System.out.println("Batch factorials: " + Arrays.toString(factorialTable));
+            
+            // Parallel batch with one engine per worker
+            int[] candidates = IntStream.rangeClosed(1, 100_000).toArray();
+            try (ScriptBatchInvoker primes = ScriptBatchInvoker.parallel(
+                    ScriptBackend::createJavaScriptEngine, functions, "isPrime",
+                    Runtime.getRuntime().availableProcessors())) {
+                boolean[] isPrime = primes.applyAsBoolean(candidates);
+                int primeCount = 0;
+                for (boolean prime : isPrime) {
+                    if (prime) {
+                        primeCount++;
+                    }
+                }
+                System.out.println("Primes up to 100000 (parallel batch): " + primeCount);
+            }
+            
         } catch (ScriptException | NoSuchMethodException e) {
             System.out.println("Function execution error: " + e.getMessage());
         }
@@ -251,8 +309,7 @@ public class NashornExamples {
         System.out.println("5. Object Manipulation:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -315,8 +372,7 @@ public class NashornExamples {
         System.out.println("6. Error Handling:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -372,6 +428,51 @@ public class NashornExamples {
         System.out.println();
     }
     
+    /**
+     * Sandboxed Scripts: runaway and untrusted scripts under CPU/allocation
+     * budgets and a class whitelist. Each runaway burns its full budget, so
+     * this runs from {@link #main} only.
+     */
+    public void sandboxedScripts() {
+        System.out.println("6b. Sandboxed Scripts:");
+        
+        try {
+            SandboxedScriptRunner.Budget budget = SandboxedScriptRunner.Budget.unlimited()
+                    .wallClock(2, TimeUnit.SECONDS)
+                    .cpuTime(200, TimeUnit.MILLISECONDS)
+                    .allocation(64L * 1024 * 1024);
+            Set<String> allowedClasses = new HashSet<>(Arrays.asList("java.util.ArrayList", "java.lang.Math"));
+            try (SandboxedScriptRunner sandbox = new SandboxedScriptRunner(ScriptBackend.selected(), budget,
+                    allowedClasses, 2)) {
+                String[] untrusted = {
+                    "function fibonacci(n) { return n < 2 ? n : fibonacci(n - 1) + fibonacci(n - 2); } fibonacci(40)",
+                    "while (true) {}",
+                    "var items = []; while (true) { items.push('item-' + items.length); }",
+                    "Java.type('java.lang.System').exit(1)",
+                    "var list = new (Java.type('java.util.ArrayList'))(); list.add(x); list.size()"
+                };
+                for (String script : untrusted) {
+                    long start = CLOCK.nanoTime();
+                    try {
+                        Object result = sandbox.eval(script, Collections.singletonMap("x", 42));
+                        System.out.println("Sandboxed result: " + result);
+                    } catch (ScriptBudgetExceededException e) {
+                        System.out.println("Sandbox terminated script: " + e.getMessage());
+                    } catch (ScriptException | RuntimeException e) {
+                        System.out.println("Sandbox rejected script: " + e.getMessage());
+                    }
+                    System.out.println("  (" + CLOCK.elapsedMillis(start) + "ms)");
+                }
+                System.out.println("Sandbox completed/terminated: " + sandbox.getCompletedCount()
+                        + "/" + sandbox.getTerminatedCount());
+            }
+        } catch (ScriptException e) {
+            System.out.println("Sandbox failed: " + e.getMessage());
+        }
+        
+        System.out.println();
+    }
+    
     /**
      * Practical Examples
      */
@@ -379,52 +480,50 @@ public class NashornExamples {
         System.out.println("7. Practical Examples:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
                 return;
             }
             
-            // JSON processing
-            engine.eval(
-                "function parseJSON(jsonString) {\n" +
-                "    try {\n" +
-                "        return JSON.parse(jsonString);\n" +
-                "    } catch (error) {\n" +
-                "        return 'Invalid JSON: ' + error.message;\n" +
-                "    }\n" +
-                "}\n" +
-                "\n" +
-                "function stringifyJSON(obj) {\n" +
-                "    return JSON.stringify(obj, null, 2);\n" +
-                "}"
-            );
-            
+            // JSON processing: parse on the Java side (no JSON.parse round-trip)
+            // and hand the script a lazy Map view over the original text
             String jsonString = "{\"name\":\"John\",\"age\":30,\"city\":\"New York\"}";
-            engine.put("jsonInput", jsonString);
-            Object parsedJson = engine.eval("parseJSON(jsonInput)");
+            Object parsedJson = LazyJson.parse(jsonString);
+            engine.put("customer", parsedJson);
+            Object customerSummary = engine.eval("customer.name + ' (' + customer.age + ') lives in ' + customer.city");
             System.out.println("Parsed JSON: " + parsedJson);
-            
-            // Data validation
-            engine.eval(
-                "function validateEmail(email) {\n" +
-                "    var emailRegex = /^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$/;\n" +
-                "    return emailRegex.test(email);\n" +
-                "}\n" +
-                "\n" +
-                "function validatePhone(phone) {\n" +
-                "    var phoneRegex = /^\\+?[1-9]\\d{1,14}$/;\n" +
-                "    return phoneRegex.test(phone);\n" +
-                "}"
-            );
-            
-            Object emailValid = engine.eval("validateEmail('john@example.com')");
-            System.out.println("Email validation (john@example.com): " + emailValid);
-            
-            Object phoneValid = engine.eval("validatePhone('+1234567890')");
-            System.out.println("Phone validation (+1234567890): " + phoneValid);
+            System.out.println("Script access to parsed JSON: " + customerSummary);
+            System.out.println("Stringified JSON:\n" + JsonWriter.stringify(parsedJson, 2));
+            
+            // Data validation: email/phone rules are precompiled Patterns,
+            // the script engine is only used for custom rules
+            ValidationService validation = new ValidationService();
+            validation.register(ValidationRule.script("postcode",
+                "function validatePostcode(code) { return /^\\d{5}(-\\d{4})?$/.test(code); }",
+                "validatePostcode"));
+            
+            System.out.println("Email validation (john@example.com): "
+                + validation.validate("email", "john@example.com"));
+            System.out.println("Phone validation (+1234567890): "
+                + validation.validate("phone", "+1234567890"));
+            System.out.println("Custom script rule (12345-6789): "
+                + validation.validate("postcode", "12345-6789"));
+            
+            List<String> emails = new ArrayList<>();
+            for (int i = 0; i < 200_000; i++) {
+                emails.add(i % 10 == 0 ? "user" + i + "@invalid" : "user" + i + "@example.com");
+            }
+            boolean[] valid = validation.validateAll("email", emails);
+            int validCount = 0;
+            for (boolean v : valid) {
+                if (v) {
+                    validCount++;
+                }
+            }
+            System.out.println("Batch email validation: " + validCount + "/" + emails.size() + " valid");
+            System.out.print(validation.report());
             
             // String processing
             engine.eval(
@@ -443,15 +542,13 @@ public class NashornExamples {
             Object capitalizeResult = engine.eval("capitalizeWords('hello world example')");
             System.out.println("Capitalized words: " + capitalizeResult);
             
-            // Array processing
-            engine.put("numbers", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
-            Object arrayProcessing = engine.eval(
-                "numbers.stream()\n" +
-                "    .filter(function(x) { return x % 2 === 0; })\n" +
-                "    .map(function(x) { return x * x; })\n" +
-                "    .collect(java.util.stream.Collectors.toList())"
-            );
-            System.out.println("Even numbers squared: " + arrayProcessing);
+            // Array processing: bulk filter/map over primitive data, no boxed List/Stream
+            TypedArrays arrays = TypedArrays.install(engine);
+            TypedArrayView numbers = TypedArrayView.of(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+            TypedArrayView evenSquares = arrays.map(
+                arrays.filter(numbers, engine.eval("(function(x) { return x % 2 === 0; })")),
+                engine.eval("(function(x) { return x * x; })"));
+            System.out.println("Even numbers squared: " + evenSquares);
             
         } catch (ScriptException e) {
             System.out.println("Practical examples error: " + e.getMessage());
@@ -467,8 +564,7 @@ public class NashornExamples {
         System.out.println("8. Performance Considerations:");
         
         try {
-            ScriptEngineManager manager = new ScriptEngineManager();
-            ScriptEngine engine = manager.getEngineByName("nashorn");
+            ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
             
             if (engine == null) {
                 System.out.println("Nashorn engine not available.");
@@ -476,23 +572,23 @@ public class NashornExamples {
             }
             
             // Compile vs Interpret
-            long startTime = System.currentTimeMillis();
+            long startTime = CLOCK.nanoTime();
             
             // Interpreted execution
             for (int i = 0; i < 1000; i++) {
                 engine.eval("2 + 3 * 4");
             }
-            long interpretedTime = System.currentTimeMillis() - startTime;
+            long interpretedTime = CLOCK.elapsedMillis(startTime);
             System.out.println("Interpreted execution time: " + interpretedTime + "ms");
             
             // Compiled execution
-            startTime = System.currentTimeMillis();
+            startTime = CLOCK.nanoTime();
             try {
                 CompiledScript compiled = ((Compilable) engine).compile("2 + 3 * 4");
                 for (int i = 0; i < 1000; i++) {
                     compiled.eval();
                 }
-                long compiledTime = System.currentTimeMillis() - startTime;
+                long compiledTime = CLOCK.elapsedMillis(startTime);
                 System.out.println("Compiled execution time: " + compiledTime + "ms");
                 System.out.println("Performance improvement: " + 
                     String.format("%.1f", (double) interpretedTime / compiledTime) + "x");
@@ -500,11 +596,68 @@ public class NashornExamples {
                 System.out.println("Compilation not supported: " + e.getMessage());
             }
             
+            // Pooled engines with a compiled-script cache
+            try (ScriptService scriptService = new ScriptService(ScriptBackend.selected(), 2, 64)) {
+                Map<String, Object> variables = new HashMap<>();
+                startTime = CLOCK.nanoTime();
+                for (int i = 0; i < 1000; i++) {
+                    variables.put("x", i);
+                    scriptService.eval("x * 2 + 1", variables);
+                }
+                long serviceTime = CLOCK.elapsedMillis(startTime);
+                System.out.println("Script service execution time (" + scriptService.getEngineName() + "): "
+                        + serviceTime + "ms");
+                System.out.println("Script service stats: " + scriptService.getStats());
+            }
+            
+            // Startup warm-up: compile a script directory into every pooled engine and
+            // evaluate it until latency settles; Nashorn keeps compiled classes on disk
+            // only if -Dnashorn.persistent.code.cache names a directory
+            String configuredDir = System.getProperty(ScriptWarmup.DIRECTORY_PROPERTY);
+            Path warmupDir = configuredDir != null
+                    ? Paths.get(configuredDir)
+                    : writeSampleWarmupScripts();
+            try (ScriptService warmed = new ScriptService(ScriptBackend.selected(), 2, 64,
+                    ScriptWarmup.configuredCodeCache())) {
+                ScriptWarmup.Report warmup = new ScriptWarmup(warmed).run(warmupDir);
+                System.out.println("Startup " + warmup);
+            } finally {
+                if (configuredDir == null) {
+                    deleteSampleWarmupScripts(warmupDir);
+                }
+            }
+            
+            // Fast path: arithmetic compiled to Java lambdas with slot-indexed variables
+            CompiledExpression formula = ExpressionCompiler.compile("x + y * 2");
+            long startNanos = CLOCK.nanoTime();
+            double total = 0;
+            for (int i = 0; i < 1_000_000; i++) {
+                total += formula.evaluateNumber(i, 2);
+            }
+            long fastPathNanos = CLOCK.elapsedNanos(startNanos);
+            System.out.println("Fast-path evaluations per second: "
+                    + String.format("%,.0f", 1_000_000 * 1_000_000_000.0 / fastPathNanos)
+                    + " (checksum " + (long) total + ")");
+            
+            // Parallel evaluation: shared compiled script, isolated global scope per worker
+            try (ParallelScriptExecutor parallel = new ParallelScriptExecutor(ScriptBackend.selected(),
+                    Runtime.getRuntime().availableProcessors())) {
+                List<Map<String, Object>> inputs = new ArrayList<>();
+                for (int i = 1; i <= 100; i++) {
+                    inputs.add(Collections.singletonMap("x", i));
+                }
+                double sumOfSquares = 0;
+                for (CompletableFuture<Object> result : parallel.submitAll("x * x", inputs)) {
+                    sumOfSquares += ((Number) result.join()).doubleValue();
+                }
+                System.out.println("Parallel sum of squares 1..100: " + (long) sumOfSquares);
+            }
+            
             // Memory considerations
             System.out.println("\nMemory considerations:");
             System.out.println("- Nashorn engine consumes memory for script compilation");
             System.out.println("- Large scripts should be compiled once and reused");
-            System.out.println("- Consider using script pooling for high-frequency operations");
+            System.out.println("- Use script pooling (see ScriptService) for high-frequency operations");
             System.out.println("- Monitor memory usage in production environments");
             
             // Best practices
@@ -515,13 +668,42 @@ public class NashornExamples {
             System.out.println("- Clean up resources when done");
             System.out.println("- Consider security implications of eval()");
             
-        } catch (ScriptException e) {
+        } catch (ScriptException | IOException e) {
             System.out.println("Performance test error: " + e.getMessage());
         }
         
         System.out.println();
     }
     
+    /**
+     * Writes a small script directory used when no warm-up directory is configured
+     */
+    private Path writeSampleWarmupScripts() throws IOException {
+        Path dir = Files.createTempDirectory("java8-warmup");
+        Files.write(dir.resolve("order-total.expr"),
+                "price * qty + shipping".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("free-shipping.expr"),
+                "price * qty >= 100 || qty > 10".getBytes(StandardCharsets.UTF_8));
+        if (ScriptBackend.selected().isJavaScript()) {
+            Files.write(dir.resolve("discount.js"),
+                    ("function discount(total, tier) { return tier === 'gold' ? total * 0.9 : total; }\n"
+                            + "discount(total, tier)").getBytes(StandardCharsets.UTF_8));
+            Files.write(dir.resolve("discount.inputs.json"),
+                    "[{\"total\":120,\"tier\":\"gold\"},{\"total\":80.5,\"tier\":\"silver\"}]"
+                            .getBytes(StandardCharsets.UTF_8));
+        }
+        return dir;
+    }
+    
+    private void deleteSampleWarmupScripts(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+    
     // Helper class for examples
     public static class Person {
         private String name;
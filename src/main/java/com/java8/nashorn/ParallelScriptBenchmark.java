@@ -0,0 +1,76 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import javax.script.ScriptException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Measures how {@link ParallelScriptExecutor} scales with worker count on
+ * CPU-bound scripts ({@code fibonacci}, {@code isPrime}).
+ */
+public class ParallelScriptBenchmark {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final int EVALUATIONS = 2_000;
+
+    public static void main(String[] args) throws ScriptException {
+        ScriptBackend backend = ScriptBackend.selected();
+        System.out.println("=== Parallel Script Benchmark ===");
+        System.out.println("Backend: " + backend.getId());
+        if (!backend.isJavaScript()) {
+            System.out.println("The selected backend cannot define functions; nothing to measure.");
+            return;
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> workerCounts = new ArrayList<>();
+        for (int workers = 1; workers < cores; workers *= 2) {
+            workerCounts.add(workers);
+        }
+        workerCounts.add(cores);
+
+        List<Map<String, Object>> fibonacciInputs = Collections.nCopies(EVALUATIONS,
+                Collections.singletonMap("n", 18));
+        List<Map<String, Object>> primeInputs = new ArrayList<>(EVALUATIONS);
+        for (int i = 0; i < EVALUATIONS; i++) {
+            primeInputs.add(Collections.singletonMap("n", 1_000_003 + 2 * i));
+        }
+
+        System.out.printf("%-8s %18s %10s %18s %10s%n", "workers", "fibonacci(18)/s", "speedup",
+                "isPrime(n)/s", "speedup");
+        double fibonacciBase = 0;
+        double primeBase = 0;
+        for (int workers : workerCounts) {
+            try (ParallelScriptExecutor executor = new ParallelScriptExecutor(backend, workers,
+                    ScriptBackendBenchmark.FUNCTIONS)) {
+                double fibonacci = measure(executor, "fibonacci(n)", fibonacciInputs);
+                double prime = measure(executor, "isPrime(n)", primeInputs);
+                if (workers == 1) {
+                    fibonacciBase = fibonacci;
+                    primeBase = prime;
+                }
+                System.out.printf("%-8d %,18.0f %9.2fx %,18.0f %9.2fx%n", workers,
+                        fibonacci, fibonacci / fibonacciBase, prime, prime / primeBase);
+            }
+        }
+    }
+
+    private static double measure(ParallelScriptExecutor executor, String script,
+                                  List<Map<String, Object>> inputs) throws ScriptException {
+        // Warm-up: initializes every worker scope and lets the JIT settle
+        join(executor.submitAll(script, inputs));
+        long start = CLOCK.nanoTime();
+        join(executor.submitAll(script, inputs));
+        return inputs.size() * 1_000_000_000.0 / CLOCK.elapsedNanos(start);
+    }
+
+    private static void join(List<CompletableFuture<Object>> futures) {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+    }
+}
@@ -0,0 +1,155 @@
+package com.java8.nashorn;
+
+import javax.script.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs script evaluations concurrently on a fixed set of worker threads.
+ *
+ * Scripts are compiled once by a single shared engine and the resulting
+ * {@link CompiledScript}s are shared read-only. Each worker thread evaluates
+ * them against its own engine-scope {@link Bindings}, i.e. its own isolated
+ * global object, so global functions never leak between threads. Setup
+ * scripts (function definitions) are run once in every worker's global
+ * scope. A task's variables are bound in that scope only for its own
+ * evaluation and removed (or restored, if they shadowed a setup global)
+ * afterwards, so they never reach a later task on the same worker.
+ */
+public class ParallelScriptExecutor implements AutoCloseable {
+
+    private final ScriptEngine engine;
+    private final List<CompiledScript> setupScripts = new ArrayList<>();
+    private final ConcurrentMap<String, CompiledScript> compiled = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final ThreadLocal<Bindings> workerScope;
+
+    public ParallelScriptExecutor(ScriptBackend backend, int workerCount, String... setupScripts)
+            throws ScriptException {
+        this.engine = backend.createEngine();
+        if (engine == null) {
+            throw new ScriptException("Script backend '" + backend.getId() + "' not available");
+        }
+        for (String setup : setupScripts) {
+            this.setupScripts.add(compileUnshared(setup));
+        }
+        AtomicInteger counter = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "script-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workerScope = ThreadLocal.withInitial(this::newWorkerScope);
+    }
+
+    /**
+     * Compiles (or returns the cached compilation of) a script; the result
+     * may be submitted from any thread.
+     */
+    public CompiledScript compile(String script) throws ScriptException {
+        CompiledScript cached = compiled.get(script);
+        if (cached != null) {
+            return cached;
+        }
+        CompiledScript fresh = compileUnshared(script);
+        CompiledScript previous = compiled.putIfAbsent(script, fresh);
+        return previous != null ? previous : fresh;
+    }
+
+    public CompletableFuture<Object> submit(String script, Map<String, Object> variables) {
+        try {
+            return submit(compile(script), variables);
+        } catch (ScriptException e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    public CompletableFuture<Object> submit(CompiledScript script, Map<String, Object> variables) {
+        return CompletableFuture.supplyAsync(() -> {
+            Bindings scope = workerScope.get();
+            Map<String, Object> shadowed = bind(scope, variables);
+            try {
+                return script.eval(scope);
+            } catch (ScriptException e) {
+                throw new CompletionException(e);
+            } finally {
+                unbind(scope, variables, shadowed);
+            }
+        }, workers);
+    }
+
+    /**
+     * Submits one evaluation per variable set and returns the futures in input order.
+     */
+    public List<CompletableFuture<Object>> submitAll(String script, List<Map<String, Object>> inputs)
+            throws ScriptException {
+        CompiledScript compiledScript = compile(script);
+        List<CompletableFuture<Object>> futures = new ArrayList<>(inputs.size());
+        for (Map<String, Object> variables : inputs) {
+            futures.add(submit(compiledScript, variables));
+        }
+        return futures;
+    }
+
+    @Override
+    public void close() {
+        workers.shutdown();
+    }
+
+    private CompiledScript compileUnshared(String script) throws ScriptException {
+        // Engines are not thread-safe for compilation; evaluation uses private scopes
+        synchronized (engine) {
+            return ExpressionCompiler.compileScript(script, engine);
+        }
+    }
+
+    /** Puts the variables into the scope and returns the values they replaced. */
+    private static Map<String, Object> bind(Bindings scope, Map<String, Object> variables) {
+        if (variables == null || variables.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> shadowed = new HashMap<>();
+        for (Map.Entry<String, Object> variable : variables.entrySet()) {
+            if (scope.containsKey(variable.getKey())) {
+                shadowed.put(variable.getKey(), scope.get(variable.getKey()));
+            }
+            scope.put(variable.getKey(), variable.getValue());
+        }
+        return shadowed;
+    }
+
+    private static void unbind(Bindings scope, Map<String, Object> variables, Map<String, Object> shadowed) {
+        if (variables == null) {
+            return;
+        }
+        for (String name : variables.keySet()) {
+            if (shadowed.containsKey(name)) {
+                scope.put(name, shadowed.get(name));
+            } else {
+                scope.remove(name);
+            }
+        }
+    }
+
+    private Bindings newWorkerScope() {
+        Bindings scope;
+        synchronized (engine) {
+            scope = engine.createBindings();
+        }
+        for (CompiledScript setup : setupScripts) {
+            try {
+                setup.eval(scope);
+            } catch (ScriptException e) {
+                throw new CompletionException(e);
+            }
+        }
+        return scope;
+    }
+}
@@ -0,0 +1,388 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Runs untrusted scripts with per-evaluation resource budgets.
+ *
+ * Every evaluation runs on one of a fixed set of worker threads, in a
+ * fresh global scope of that worker's engine, so tenants never see each
+ * other's globals. A watchdog thread samples each busy worker's wall-clock
+ * time, CPU time and allocated bytes (via {@link ThreadMXBean}) every few
+ * milliseconds. When a budget is exceeded the caller immediately gets a
+ * {@link ScriptBudgetExceededException} and the worker is replaced so
+ * capacity is unaffected. The runaway evaluation is ended cooperatively:
+ * JavaScript loops and function bodies, including code created at run time
+ * with {@code eval} or {@code Function}, are instrumented with a
+ * {@link ScriptLoopGuard} that throws once the evaluation is abandoned. A
+ * thread inside a long built-in call (a catastrophic regex, say) is left to
+ * finish as an abandoned daemon thread.
+ *
+ * Scripts can only reach the Java classes on the whitelist; the
+ * {@code load}, {@code loadWithNewGlobal}, {@code exit} and {@code quit}
+ * globals are removed, and {@code engine} and {@code context} are hidden.
+ */
+public class SandboxedScriptRunner implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxedScriptRunner.class);
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final String PRELUDE =
+            "delete this.load; delete this.loadWithNewGlobal; delete this.exit; delete this.quit;"
+                    + ScriptLoopGuard.PRELUDE;
+    private static final long GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int COMPILED_CACHE_SIZE = 64;
+
+    private final ScriptBackend backend;
+    private final Budget budget;
+    private final Predicate<String> classFilter;
+    private final BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+    private final Set<Worker> workers = ConcurrentHashMap.newKeySet();
+    private final List<Worker> dying = new ArrayList<>();
+    private final ScheduledExecutorService watchdog;
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.ThreadMXBean allocations;
+    private final AtomicInteger workerIds = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder terminated = new LongAdder();
+    private volatile boolean closed;
+
+    public SandboxedScriptRunner(ScriptBackend backend, Budget budget, Set<String> allowedClasses, int workerCount)
+            throws ScriptException {
+        if (!backend.isAvailable()) {
+            throw new ScriptException("Script backend '" + backend.getId() + "' not available");
+        }
+        this.backend = backend;
+        this.budget = budget;
+        Set<String> whitelist = Collections.unmodifiableSet(new HashSet<>(allowedClasses));
+        this.classFilter = whitelist::contains;
+        this.allocations = enableMeasurements();
+
+        for (int i = 0; i < workerCount; i++) {
+            startWorker();
+        }
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "script-sandbox-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleAtFixedRate(this::checkBudgets, budget.checkIntervalMillis,
+                budget.checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Evaluates the script and waits for the result.
+     *
+     * @throws ScriptBudgetExceededException if the script was terminated
+     */
+    public Object eval(String script, Map<String, Object> variables) throws ScriptException {
+        try {
+            return submit(script, variables).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ScriptException) {
+                throw (ScriptException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            ScriptException failure = new ScriptException("Sandboxed script failed: " + cause);
+            failure.initCause(cause);
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScriptException("Interrupted while waiting for a sandboxed script");
+        }
+    }
+
+    public CompletableFuture<Object> submit(String script, Map<String, Object> variables) {
+        Task task = new Task(script, variables);
+        if (closed) {
+            task.result.completeExceptionally(new IllegalStateException("Sandbox is closed"));
+        } else {
+            tasks.add(task);
+        }
+        return task.result;
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    /** Evaluations terminated for exceeding a budget. */
+    public long getTerminatedCount() {
+        return terminated.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        watchdog.shutdownNow();
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
+        Task pending;
+        while ((pending = tasks.poll()) != null) {
+            pending.result.completeExceptionally(new IllegalStateException("Sandbox is closed"));
+        }
+    }
+
+    private com.sun.management.ThreadMXBean enableMeasurements() {
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean extended = (com.sun.management.ThreadMXBean) threads;
+            if (extended.isThreadAllocatedMemorySupported()) {
+                extended.setThreadAllocatedMemoryEnabled(true);
+                return extended;
+            }
+        }
+        if (budget.allocationBytes > 0) {
+            log.warn("Thread allocation measurement not supported; allocation budget is not enforced");
+        }
+        return null;
+    }
+
+    private void startWorker() {
+        ScriptEngine engine = backend.createEngine(classFilter);
+        Worker worker = new Worker(engine);
+        workers.add(worker);
+        worker.start();
+    }
+
+    private void checkBudgets() {
+        long now = CLOCK.nanoTime();
+        for (Worker worker : workers) {
+            Task task;
+            ScriptBudgetExceededException reason;
+            // The worker takes the same lock to start and finish a task, so the
+            // sample and the decision below both refer to the task seen here
+            synchronized (worker) {
+                task = worker.current;
+                if (task == null) {
+                    continue;
+                }
+                reason = exceededBudget(worker, now);
+                if (reason == null) {
+                    continue;
+                }
+                // Abandon while the task is still current; the worker then never starts another one
+                worker.abandoned = true;
+            }
+            terminate(worker, task, reason);
+        }
+        reapDyingWorkers(now);
+    }
+
+    /** The budget the worker's current task has exceeded, or null; called holding the worker's lock. */
+    private ScriptBudgetExceededException exceededBudget(Worker worker, long now) {
+        long id = worker.getId();
+        long elapsed = now - worker.startNanos;
+        if (budget.wallClockNanos > 0 && elapsed > budget.wallClockNanos) {
+            return new ScriptBudgetExceededException(
+                    ScriptBudgetExceededException.Limit.WALL_CLOCK, elapsed, budget.wallClockNanos);
+        }
+        if (budget.cpuNanos > 0 && worker.startCpu >= 0) {
+            long cpu = threads.getThreadCpuTime(id) - worker.startCpu;
+            if (cpu > budget.cpuNanos) {
+                return new ScriptBudgetExceededException(
+                        ScriptBudgetExceededException.Limit.CPU_TIME, cpu, budget.cpuNanos);
+            }
+        }
+        if (budget.allocationBytes > 0 && allocations != null && worker.startAllocated >= 0) {
+            long allocated = allocations.getThreadAllocatedBytes(id) - worker.startAllocated;
+            if (allocated > budget.allocationBytes) {
+                return new ScriptBudgetExceededException(
+                        ScriptBudgetExceededException.Limit.ALLOCATION, allocated, budget.allocationBytes);
+            }
+        }
+        return null;
+    }
+
+    private void terminate(Worker worker, Task task, ScriptBudgetExceededException reason) {
+        workers.remove(worker);
+        if (task.result.completeExceptionally(reason)) {
+            terminated.increment();
+            log.warn("Terminating {}: {}", worker.getName(), reason.getMessage());
+        }
+        worker.interrupt();
+        worker.graceDeadline = CLOCK.nanoTime() + GRACE_NANOS;
+        dying.add(worker);
+        if (!closed) {
+            try {
+                startWorker();
+            } catch (RuntimeException e) {
+                log.error("Cannot replace terminated script worker", e);
+            }
+        }
+    }
+
+    /**
+     * Forgets terminated workers that have finished. Thread.stop is not used:
+     * it is unsupported from Java 20 on, and before that it could kill a
+     * worker inside the engine's own class initialization, breaking the
+     * engine for the whole JVM.
+     */
+    private void reapDyingWorkers(long now) {
+        for (Iterator<Worker> it = dying.iterator(); it.hasNext(); ) {
+            Worker worker = it.next();
+            // An abandoned worker never starts another task, so a non-null
+            // current is still the terminated one
+            if (!worker.isAlive() || worker.current == null) {
+                it.remove();
+            } else if (now > worker.graceDeadline) {
+                // The guards did not end it, so it is inside a long built-in call
+                log.warn("{} is still running; it is left to finish as an abandoned daemon thread", worker.getName());
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Task {
+        final String script;
+        final Map<String, Object> variables;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Task(String script, Map<String, Object> variables) {
+            this.script = script;
+            this.variables = variables;
+        }
+    }
+
+    private final class Worker extends Thread {
+        private final ScriptEngine engine;
+        private final Map<String, CompiledScript> compiled =
+                new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                        return size() > COMPILED_CACHE_SIZE;
+                    }
+                };
+        private final ScriptLoopGuard guard;
+        // Written by the worker before publishing current, read by the watchdog under the worker's lock
+        long startNanos;
+        long startCpu;
+        long startAllocated;
+        /** Changed only while holding this worker's lock. */
+        volatile Task current;
+        /** Set by the watchdog, holding the lock, only while a task is current. */
+        volatile boolean abandoned;
+        volatile long graceDeadline;
+
+        Worker(ScriptEngine engine) {
+            super("script-sandbox-" + workerIds.incrementAndGet());
+            this.engine = engine;
+            this.guard = new ScriptLoopGuard(() -> abandoned);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (!abandoned && !closed) {
+                Task task;
+                try {
+                    task = tasks.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                startCpu = threads.isThreadCpuTimeEnabled() ? threads.getCurrentThreadCpuTime() : -1;
+                startAllocated = allocations != null ? allocations.getThreadAllocatedBytes(getId()) : -1;
+                startNanos = CLOCK.nanoTime();
+                synchronized (this) {
+                    current = task;
+                }
+                try {
+                    Object value = evaluate(task);
+                    if (task.result.complete(value)) {
+                        completed.increment();
+                    }
+                } catch (Throwable t) {
+                    task.result.completeExceptionally(t);
+                } finally {
+                    synchronized (this) {
+                        current = null;
+                    }
+                    Thread.interrupted();
+                }
+            }
+        }
+
+        private Object evaluate(Task task) throws ScriptException {
+            Bindings scope = engine.createBindings();
+            if (backend.isJavaScript()) {
+                scope.put(ScriptLoopGuard.CHECK, guard);
+                engine.eval(PRELUDE, scope);
+            }
+            if (task.variables != null) {
+                scope.putAll(task.variables);
+            }
+            CompiledScript script = compiled.get(task.script);
+            if (script == null) {
+                String source = backend.isJavaScript() ? ScriptLoopGuard.instrument(task.script) : task.script;
+                script = ExpressionCompiler.compileScript(source, engine);
+                compiled.put(task.script, script);
+            }
+            return script.eval(scope);
+        }
+    }
+
+    /**
+     * Per-evaluation limits; zero means unlimited.
+     */
+    public static final class Budget {
+        private final long wallClockNanos;
+        private final long cpuNanos;
+        private final long allocationBytes;
+        private final long checkIntervalMillis;
+
+        private Budget(long wallClockNanos, long cpuNanos, long allocationBytes, long checkIntervalMillis) {
+            this.wallClockNanos = wallClockNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocationBytes = allocationBytes;
+            this.checkIntervalMillis = checkIntervalMillis;
+        }
+
+        public static Budget unlimited() {
+            return new Budget(0, 0, 0, 5);
+        }
+
+        public Budget wallClock(long amount, TimeUnit unit) {
+            return new Budget(unit.toNanos(amount), cpuNanos, allocationBytes, checkIntervalMillis);
+        }
+
+        public Budget cpuTime(long amount, TimeUnit unit) {
+            return new Budget(wallClockNanos, unit.toNanos(amount), allocationBytes, checkIntervalMillis);
+        }
+
+        public Budget allocation(long bytes) {
+            return new Budget(wallClockNanos, cpuNanos, bytes, checkIntervalMillis);
+        }
+
+        /**
+         * How often the watchdog samples running scripts; budgets are
+         * enforced with this granularity.
+         */
+        public Budget checkInterval(long millis) {
+            return new Budget(wallClockNanos, cpuNanos, allocationBytes, Math.max(1, millis));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Budget{wallClock=%dms, cpu=%dms, allocation=%,d bytes}",
+                    wallClockNanos / 1_000_000, cpuNanos / 1_000_000, allocationBytes);
+        }
+    }
+}
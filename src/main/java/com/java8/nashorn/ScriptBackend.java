@@ -0,0 +1,193 @@
+package com.java8.nashorn;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Script engine backends the examples can run on.
+ *
+ * The backend is selected once at startup: the {@code java8.script.backend}
+ * system property ({@code nashorn-builtin}, {@code nashorn-standalone},
+ * {@code expression}) wins, otherwise the first available backend in
+ * declaration order is used.
+ */
+public enum ScriptBackend {
+
+    /** Nashorn bundled with the JDK (Java 8-14). */
+    NASHORN_BUILTIN("nashorn-builtin", "jdk.nashorn.api.scripting.NashornScriptEngineFactory", true),
+
+    /** Standalone OpenJDK Nashorn ({@code org.openjdk.nashorn:nashorn-core}, Java 11+). */
+    NASHORN_STANDALONE("nashorn-standalone", "org.openjdk.nashorn.api.scripting.NashornScriptEngineFactory", true),
+
+    /** Built-in arithmetic/boolean expression evaluator, always available. */
+    EXPRESSION("expression", ExpressionScriptEngineFactory.class.getName(), false);
+
+    public static final String PROPERTY = "java8.script.backend";
+
+    private final String id;
+    private final String factoryClassName;
+    private final boolean javaScript;
+    private volatile ScriptEngineFactory factory;
+    private volatile boolean resolved;
+
+    ScriptBackend(String id, String factoryClassName, boolean javaScript) {
+        this.id = id;
+        this.factoryClassName = factoryClassName;
+        this.javaScript = javaScript;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /** True if the backend runs full JavaScript (functions, objects, Java interop). */
+    public boolean isJavaScript() {
+        return javaScript;
+    }
+
+    public boolean isAvailable() {
+        return factory() != null;
+    }
+
+    /**
+     * Creates a new engine, or returns null if the backend is not available.
+     */
+    public ScriptEngine createEngine() {
+        ScriptEngineFactory engineFactory = factory();
+        return engineFactory == null ? null : engineFactory.getScriptEngine();
+    }
+
+    /**
+     * Creates a new engine with Nashorn command line options such as
+     * {@code --persistent-code-cache}. Options are ignored by backends that
+     * do not understand them.
+     */
+    public ScriptEngine createEngine(String... options) {
+        ScriptEngineFactory engineFactory = factory();
+        if (engineFactory == null || options.length == 0 || !javaScript) {
+            return createEngine();
+        }
+        try {
+            // Built-in and standalone Nashorn factories live in different packages
+            Method withOptions = engineFactory.getClass().getMethod("getScriptEngine", String[].class);
+            return (ScriptEngine) withOptions.invoke(engineFactory, (Object) options);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + id + " engine with options "
+                    + Arrays.toString(options), e);
+        }
+    }
+
+    /**
+     * Creates a new engine whose scripts can only reach the Java classes
+     * accepted by {@code classFilter} (through {@code Java.type},
+     * {@code Packages} and friends). Backends without Java interop ignore
+     * the filter.
+     */
+    public ScriptEngine createEngine(Predicate<String> classFilter, String... options) {
+        ScriptEngineFactory engineFactory = factory();
+        if (engineFactory == null || !javaScript) {
+            return createEngine();
+        }
+        try {
+            ClassLoader loader = engineFactory.getClass().getClassLoader();
+            String filterName = factoryClassName.substring(0, factoryClassName.lastIndexOf('.')) + ".ClassFilter";
+            Class<?> filterType = Class.forName(filterName, true, loader);
+            Object filter = Proxy.newProxyInstance(loader, new Class<?>[] {filterType}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "exposeToScripts":
+                        return classFilter.test((String) args[0]);
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "ClassFilter(" + classFilter + ")";
+                }
+            });
+            Method withFilter = engineFactory.getClass().getMethod("getScriptEngine",
+                    String[].class, ClassLoader.class, filterType);
+            return (ScriptEngine) withFilter.invoke(engineFactory, options, loader, filter);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create " + id + " engine with a class filter", e);
+        }
+    }
+
+    private ScriptEngineFactory factory() {
+        if (!resolved) {
+            synchronized (this) {
+                if (!resolved) {
+                    factory = lookup();
+                    resolved = true;
+                }
+            }
+        }
+        return factory;
+    }
+
+    private ScriptEngineFactory lookup() {
+        if (this == EXPRESSION) {
+            return new ExpressionScriptEngineFactory();
+        }
+        for (ScriptEngineFactory candidate : new ScriptEngineManager().getEngineFactories()) {
+            if (candidate.getClass().getName().equals(factoryClassName)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The backend selected at startup.
+     */
+    public static ScriptBackend selected() {
+        return Selection.SELECTED;
+    }
+
+    /**
+     * Creates a JavaScript engine from the first available Nashorn backend,
+     * or returns null when neither the JDK nor the classpath provides one.
+     */
+    public static ScriptEngine createJavaScriptEngine() {
+        for (ScriptBackend backend : values()) {
+            if (backend.isJavaScript() && backend.isAvailable()) {
+                return backend.createEngine();
+            }
+        }
+        return null;
+    }
+
+    public static ScriptBackend fromId(String id) {
+        for (ScriptBackend backend : values()) {
+            if (backend.id.equalsIgnoreCase(id) || backend.name().equalsIgnoreCase(id)) {
+                return backend;
+            }
+        }
+        throw new IllegalArgumentException("Unknown script backend: " + id);
+    }
+
+    private static final class Selection {
+        static final ScriptBackend SELECTED = select();
+
+        private static ScriptBackend select() {
+            String requested = System.getProperty(PROPERTY);
+            if (requested != null && !requested.isEmpty() && !requested.equalsIgnoreCase("auto")) {
+                ScriptBackend backend = fromId(requested);
+                if (!backend.isAvailable()) {
+                    throw new IllegalStateException("Script backend '" + requested + "' is not available");
+                }
+                return backend;
+            }
+            for (ScriptBackend backend : values()) {
+                if (backend.isAvailable()) {
+                    return backend;
+                }
+            }
+            return EXPRESSION;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import javax.script.*;
+
+/**
+ * Compares evaluation throughput of the available {@link ScriptBackend}s
+ * on the scripts used by {@link NashornExamples}.
+ */
+public class ScriptBackendBenchmark {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    static final String FUNCTIONS =
+            "function factorial(n) {\n" +
+            "    if (n <= 1) return 1;\n" +
+            "    return n * factorial(n - 1);\n" +
+            "}\n" +
+            "\n" +
+            "function fibonacci(n) {\n" +
+            "    if (n <= 1) return n;\n" +
+            "    return fibonacci(n - 1) + fibonacci(n - 2);\n" +
+            "}\n" +
+            "\n" +
+            "function isPrime(num) {\n" +
+            "    if (num <= 1) return false;\n" +
+            "    for (var i = 2; i <= Math.sqrt(num); i++) {\n" +
+            "        if (num % i === 0) return false;\n" +
+            "    }\n" +
+            "    return true;\n" +
+            "}";
+
+    private static final String[] SCRIPTS = {"2 + 3 * 4", "factorial(10)", "fibonacci(15)", "isPrime(7919)"};
+    private static final long WARMUP_MILLIS = 500;
+    private static final long MEASURE_MILLIS = 1000;
+
+    public static void main(String[] args) {
+        System.out.println("=== Script Backend Benchmark ===");
+        System.out.println("Selected backend: " + ScriptBackend.selected().getId() + "\n");
+        System.out.printf("%-20s", "backend");
+        for (String script : SCRIPTS) {
+            System.out.printf(" %16s", script);
+        }
+        System.out.println();
+
+        for (ScriptBackend backend : ScriptBackend.values()) {
+            System.out.printf("%-20s", backend.getId());
+            if (!backend.isAvailable()) {
+                System.out.println(" not available");
+                continue;
+            }
+            ScriptEngine engine = backend.createEngine();
+            try {
+                if (backend.isJavaScript()) {
+                    engine.eval(FUNCTIONS);
+                }
+            } catch (ScriptException e) {
+                System.out.println(" setup failed: " + e.getMessage());
+                continue;
+            }
+            for (String script : SCRIPTS) {
+                System.out.printf(" %16s", measure(engine, script));
+            }
+            System.out.println();
+        }
+        System.out.println("\n(evaluations/second of a compiled script)");
+    }
+
+    private static String measure(ScriptEngine engine, String script) {
+        CompiledScript compiled;
+        try {
+            compiled = ((Compilable) engine).compile(script);
+            compiled.eval();
+        } catch (ScriptException e) {
+            return "n/a";
+        }
+        try {
+            run(compiled, WARMUP_MILLIS);
+            return String.format("%,.0f", run(compiled, MEASURE_MILLIS));
+        } catch (ScriptException e) {
+            return "error";
+        }
+    }
+
+    private static double run(CompiledScript compiled, long millis) throws ScriptException {
+        long deadline = CLOCK.nanoTime() + millis * 1_000_000L;
+        long start = CLOCK.nanoTime();
+        long count = 0;
+        long now;
+        do {
+            for (int i = 0; i < 100; i++) {
+                compiled.eval();
+            }
+            count += 100;
+            now = CLOCK.nanoTime();
+        } while (now < deadline);
+        return count * 1_000_000_000.0 / (now - start);
+    }
+}
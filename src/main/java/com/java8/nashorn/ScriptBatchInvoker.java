@@ -0,0 +1,246 @@
+package com.java8.nashorn;
+
+import javax.script.*;
+import java.lang.reflect.Array;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Applies a script function to many inputs with one Java-to-script call per
+ * chunk instead of one {@code invokeFunction} per value.
+ *
+ * The function is resolved once by name; a small driver function installed
+ * in the engine then loops over the Java input array and writes straight
+ * into the Java output array, so primitive results never get boxed on the
+ * Java side. In parallel mode every worker owns its own engine and claims
+ * chunks from a shared counter.
+ *
+ * Like the engines it wraps, an invoker must not be used by several
+ * threads at once; create one per caller thread instead.
+ */
+public class ScriptBatchInvoker implements AutoCloseable {
+
+    static final int CHUNK_SIZE = 8192;
+
+    private static final String DRIVER = "__java8_batchApply";
+    private static final String DRIVER_SCRIPT =
+            "function " + DRIVER + "(fn, input, output, from, to) {\n" +
+            "    for (var i = from; i < to; i++) {\n" +
+            "        output[i] = fn(input[i]);\n" +
+            "    }\n" +
+            "    return to - from;\n" +
+            "}";
+
+    private final List<Worker> workers;
+    private final ExecutorService executor;
+
+    private ScriptBatchInvoker(List<Worker> workers, ExecutorService executor) {
+        this.workers = workers;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a sequential invoker for a function already defined in the engine.
+     */
+    public static ScriptBatchInvoker create(ScriptEngine engine, String functionName) throws ScriptException {
+        return new ScriptBatchInvoker(Collections.singletonList(new Worker(engine, functionName)), null);
+    }
+
+    /**
+     * Creates a parallel invoker with one engine per worker; each engine
+     * evaluates {@code setupScript} (which must define the function) first.
+     */
+    public static ScriptBatchInvoker parallel(Supplier<ScriptEngine> engines, String setupScript,
+                                              String functionName, int workerCount) throws ScriptException {
+        List<Worker> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            ScriptEngine engine = engines.get();
+            if (engine == null) {
+                throw new ScriptException("Script engine not available");
+            }
+            engine.eval(setupScript);
+            workers.add(new Worker(engine, functionName));
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "script-batch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new ScriptBatchInvoker(workers, executor);
+    }
+
+    public double[] applyAsDouble(int[] inputs) throws ScriptException {
+        return run(inputs, new double[inputs.length], inputs.length);
+    }
+
+    public double[] applyAsDouble(double[] inputs) throws ScriptException {
+        return run(inputs, new double[inputs.length], inputs.length);
+    }
+
+    public int[] applyAsInt(int[] inputs) throws ScriptException {
+        return run(inputs, new int[inputs.length], inputs.length);
+    }
+
+    public boolean[] applyAsBoolean(int[] inputs) throws ScriptException {
+        return run(inputs, new boolean[inputs.length], inputs.length);
+    }
+
+    public boolean[] applyAsBoolean(double[] inputs) throws ScriptException {
+        return run(inputs, new boolean[inputs.length], inputs.length);
+    }
+
+    public List<Object> apply(List<?> inputs) throws ScriptException {
+        Object[] input = inputs.toArray();
+        return Arrays.asList(run(input, new Object[input.length], input.length));
+    }
+
+    /**
+     * Lazily applies the function to a stream, one chunk at a time.
+     */
+    public Stream<Object> apply(Stream<?> inputs) {
+        Iterator<?> source = inputs.iterator();
+        Iterator<Object[]> chunks = new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Object[] chunk = new Object[CHUNK_SIZE];
+                int size = 0;
+                while (size < CHUNK_SIZE && source.hasNext()) {
+                    chunk[size++] = source.next();
+                }
+                Object[] input = size == CHUNK_SIZE ? chunk : Arrays.copyOf(chunk, size);
+                try {
+                    return run(input, new Object[size], size);
+                } catch (ScriptException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                .flatMap(Arrays::stream)
+                .onClose(inputs::close);
+    }
+
+    public int getWorkerCount() {
+        return workers.size();
+    }
+
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private <T> T run(Object input, T output, int length) throws ScriptException {
+        if (executor == null || length <= CHUNK_SIZE) {
+            Worker worker = workers.get(0);
+            for (int from = 0; from < length; from += CHUNK_SIZE) {
+                worker.apply(input, output, from, Math.min(length, from + CHUNK_SIZE));
+            }
+            return output;
+        }
+        AtomicInteger nextChunk = new AtomicInteger();
+        int chunkCount = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<CompletableFuture<Void>> futures = new ArrayList<>(workers.size());
+        for (Worker worker : workers) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                    int from = chunk * CHUNK_SIZE;
+                    try {
+                        worker.apply(input, output, from, Math.min(length, from + CHUNK_SIZE));
+                    } catch (ScriptException e) {
+                        throw new CompletionException(e);
+                    }
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ScriptException) {
+                throw (ScriptException) e.getCause();
+            }
+            throw e;
+        }
+        return output;
+    }
+
+    /**
+     * One engine plus the function resolved in it. Not thread-safe; a worker
+     * is only ever used by one thread at a time.
+     */
+    private static final class Worker {
+        private final Invocable invocable;
+        private final String functionName;
+        private final Object function;
+        private final boolean driverInstalled;
+
+        Worker(ScriptEngine engine, String functionName) throws ScriptException {
+            if (!(engine instanceof Invocable)) {
+                throw new ScriptException("Engine " + engine.getFactory().getEngineName()
+                        + " cannot invoke functions");
+            }
+            this.invocable = (Invocable) engine;
+            this.functionName = functionName;
+            this.function = engine.get(functionName);
+            if (function == null) {
+                throw new ScriptException("Function '" + functionName + "' is not defined");
+            }
+            boolean installed;
+            try {
+                engine.eval(DRIVER_SCRIPT);
+                installed = true;
+            } catch (ScriptException e) {
+                installed = false;
+            }
+            this.driverInstalled = installed;
+        }
+
+        void apply(Object input, Object output, int from, int to) throws ScriptException {
+            try {
+                if (driverInstalled) {
+                    invocable.invokeFunction(DRIVER, function, input, output, from, to);
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    store(output, i, invocable.invokeFunction(functionName, Array.get(input, i)));
+                }
+            } catch (NoSuchMethodException e) {
+                throw new ScriptException(e);
+            }
+        }
+
+        /**
+         * Converts a result the way the driver's array store does: ToNumber,
+         * then ToInt32 for int outputs. The engine returns both undefined and
+         * null as null, which is taken to be undefined (NaN, or 0 as an int).
+         */
+        private static void store(Object output, int index, Object value) {
+            Class<?> type = output.getClass().getComponentType();
+            if (type == double.class || type == int.class) {
+                double number = value == null ? Double.NaN : TypedArrayView.toNumber(value);
+                if (type == double.class) {
+                    Array.setDouble(output, index, number);
+                } else {
+                    Array.setInt(output, index, TypedArrayView.toInt32(number));
+                }
+            } else if (type == boolean.class) {
+                Array.setBoolean(output, index, value instanceof CharSequence
+                        ? ((CharSequence) value).length() > 0 : ExpressionParser.toBoolean(value));
+            } else {
+                Array.set(output, index, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.java8.nashorn;
+
+import javax.script.ScriptException;
+
+/**
+ * Thrown when a sandboxed evaluation is terminated for exceeding one of
+ * its {@link SandboxedScriptRunner.Budget} limits.
+ */
+public class ScriptBudgetExceededException extends ScriptException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The limit that was exceeded.
+     */
+    public enum Limit {
+        WALL_CLOCK, CPU_TIME, ALLOCATION
+    }
+
+    private final Limit limit;
+    private final long used;
+
+    public ScriptBudgetExceededException(Limit limit, long used, long budget) {
+        super("Script exceeded its " + describe(limit, budget) + " budget (used " + describe(limit, used) + ")");
+        this.limit = limit;
+        this.used = used;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+    /**
+     * Nanoseconds for the time limits, bytes for the allocation limit.
+     */
+    public long getUsed() {
+        return used;
+    }
+
+    private static String describe(Limit limit, long amount) {
+        switch (limit) {
+            case ALLOCATION:
+                return String.format("%,d bytes", amount);
+            case CPU_TIME:
+                return String.format("%.1fms CPU", amount / 1_000_000.0);
+            default:
+                return String.format("%.1fms wall-clock", amount / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.java8.nashorn;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe result cache for pure script functions.
+ *
+ * Keys combine the function name with its primitive arguments (see
+ * {@link #key(String, Object...)}); the same key is built by the memoizing
+ * wrapper inside scripts, so results computed by recursive calls in one
+ * engine are hits for Java callers and for every other engine. The cache
+ * is split into independently locked LRU stripes. Only numbers, strings
+ * and booleans are cached: script objects belong to one engine's global.
+ */
+public class ScriptFunctionCache {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ScriptFunctionCache(int maximumSize) {
+        int perStripe = Math.max(1, (maximumSize + STRIPES - 1) / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * The cached result, or null (counted as a miss).
+     */
+    public Object get(String key) {
+        Stripe stripe = stripeFor(key);
+        Object value;
+        synchronized (stripe) {
+            value = stripe.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Caches the result if it is a number, string or boolean.
+     */
+    public void put(String key, Object value) {
+        if (!(value instanceof Number || value instanceof CharSequence || value instanceof Boolean)) {
+            return;
+        }
+        Object stored = value instanceof CharSequence ? value.toString() : value;
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, stored);
+        }
+    }
+
+    /**
+     * Builds the cache key for a call, or returns null if an argument is
+     * not a number, string or boolean. Numbers are formatted exactly as
+     * JavaScript's {@code '' + number} does, so {@code 5} and {@code 5.0}
+     * share an entry and keys match those built inside scripts.
+     */
+    public static String key(String function, Object... args) {
+        StringBuilder key = new StringBuilder(function);
+        for (Object arg : args) {
+            if (arg instanceof Number) {
+                JsonWriter.appendNumber(key.append("|n"), ((Number) arg).doubleValue());
+            } else if (arg instanceof CharSequence) {
+                CharSequence text = (CharSequence) arg;
+                key.append("|s").append(text.length()).append(':').append(text);
+            } else if (arg instanceof Boolean) {
+                key.append("|b").append(arg);
+            } else {
+                return null;
+            }
+        }
+        return key.toString();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long lookups = h + misses.sum();
+        return lookups == 0 ? 0.0 : (double) h / lookups;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FunctionCache{size=%d, hits=%d, misses=%d, hitRatio=%.3f, evictions=%d}",
+                size(), getHits(), getMisses(), getHitRatio(), getEvictions());
+    }
+
+    private final class Stripe extends LinkedHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.java8.nashorn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cooperative termination for sandboxed JavaScript.
+ *
+ * Scripts never check for interrupts, and {@code Thread.stop} is
+ * unsupported from Java 20 on, so {@link #instrument(String)} rewrites
+ * every {@code while}, {@code do-while} and three-part {@code for} condition
+ * {@code c} into {@code __sandboxGuard() && (c)}, and calls the guard on
+ * entry to every function so runaway recursion is covered too. The guard is
+ * a read-only global that calls {@link #check()} every 1024 calls, which
+ * throws once the sandbox has given up on the evaluation; from then on every
+ * call throws, even if the script catches the error. Code created at
+ * run time is instrumented too: {@link #PRELUDE} replaces {@code eval} and
+ * the {@code Function} constructor (also reachable as any function's
+ * {@code constructor}) with versions that instrument their source, and hides
+ * the {@code engine} and {@code context} globals through which a script could
+ * evaluate code directly. The replacement {@code eval} always evaluates in
+ * the global scope, like an indirect call. {@code for-in} loops are left
+ * alone (they are finite); long-running built-ins such as a catastrophic
+ * regex are not covered.
+ */
+public final class ScriptLoopGuard {
+
+    static final String GUARD = "__sandboxGuard";
+    /** Binding through which the evaluation's {@link ScriptLoopGuard} is handed to {@link #PRELUDE}. */
+    static final String CHECK = "__sandboxCheck";
+
+    /**
+     * Defines the guard and the instrumenting {@code eval} and
+     * {@code Function} from the {@link ScriptLoopGuard} bound as
+     * {@link #CHECK}, then removes that binding; none of them can be
+     * reassigned or deleted by the script.
+     */
+    static final String PRELUDE = "(function (global, check, rawEval, RawFunction) {"
+            + " function lock(object, name, value) { Object.defineProperty(object, name,"
+            + " {value: value, writable: false, enumerable: false, configurable: false}); }"
+            + " var n = 0, stopped = false;"
+            + " lock(global, '" + GUARD + "', function () {"
+            + " if (stopped || (++n & 1023) === 0) { try { check.check(); } catch (e) { stopped = true; throw e; } }"
+            + " return true; });"
+            + " lock(global, 'eval', function eval(source) {"
+            + " return rawEval(typeof source === 'string' ? check.guarded(source) : source); });"
+            + " var guardedFunction = function Function() {"
+            + " var params = Array.prototype.slice.call(arguments, 0, -1).join(',');"
+            + " var body = arguments.length > 0 ? String(arguments[arguments.length - 1]) : '';"
+            + " return rawEval(check.guarded('(function anonymous(' + params + '\\n) {\\n' + body + '\\n})')); };"
+            + " guardedFunction.prototype = RawFunction.prototype;"
+            + " lock(RawFunction.prototype, 'constructor', guardedFunction);"
+            + " lock(global, 'Function', guardedFunction);"
+            + " lock(global, 'engine', undefined);"
+            + " lock(global, 'context', undefined);"
+            + " })(this, this." + CHECK + ", this.eval, this.Function); delete this." + CHECK + ";";
+
+    /** Keywords after which a '/' starts a regex literal rather than a division. */
+    private static final Set<String> REGEX_PREFIX_WORDS = new HashSet<>(Arrays.asList(
+            "return", "typeof", "instanceof", "in", "of", "new", "delete", "void", "throw", "case", "do", "else"));
+
+    /** Texts inserted: before a loop condition, after it, for an empty one, and at a function's start. */
+    private static final String[] INSERTS = {" " + GUARD + "() && (", ")", " " + GUARD + "() ", " " + GUARD + "();"};
+
+    private static final int WORD = 0;
+    private static final int PUNCT = 1;
+    private static final int LITERAL = 2;
+
+    private final BooleanSupplier abandoned;
+
+    ScriptLoopGuard(BooleanSupplier abandoned) {
+        this.abandoned = abandoned;
+    }
+
+    /** Called by instrumented loops; throws once the evaluation was terminated. */
+    public boolean check() {
+        if (abandoned.getAsBoolean()) {
+            throw new IllegalStateException("Script terminated by the sandbox");
+        }
+        return true;
+    }
+
+    /** Called by the prelude's {@code eval} and {@code Function} with the source they are given. */
+    public String guarded(String source) {
+        return instrument(source);
+    }
+
+    /**
+     * The source with a guard call in every loop condition and at the start
+     * of every function body; unchanged if it has neither.
+     */
+    public static String instrument(String source) {
+        List<int[]> tokens = tokenize(source);
+        List<int[]> insertions = new ArrayList<>();
+        for (int t = 0; t + 1 < tokens.size(); t++) {
+            int[] token = tokens.get(t);
+            String word = token[0] == WORD ? source.substring(token[1], token[2]) : null;
+            boolean loop = "while".equals(word) || "for".equals(word);
+            boolean function = "function".equals(word);
+            // Skip property accesses such as obj.for(...)
+            if (!(loop || function) || t > 0 && isPunct(source, tokens.get(t - 1), '.')) {
+                continue;
+            }
+            int open = function && tokens.get(t + 1)[0] == WORD ? t + 2 : t + 1;
+            if (open >= tokens.size() || !isPunct(source, tokens.get(open), '(')) {
+                continue;
+            }
+            List<Integer> semicolons = new ArrayList<>();
+            int close = matchParen(source, tokens, open, semicolons);
+            if (close < 0) {
+                break; // unbalanced; let the engine report the syntax error
+            }
+            if (function) {
+                if (close + 1 < tokens.size() && isPunct(source, tokens.get(close + 1), '{')) {
+                    insertions.add(new int[] {tokens.get(close + 1)[2], 1, 3});
+                }
+            } else if (word.equals("while")) {
+                guard(insertions, tokens.get(open)[2], tokens.get(close)[1], false);
+            } else if (semicolons.size() == 2) {
+                int from = tokens.get(semicolons.get(0))[2];
+                int to = tokens.get(semicolons.get(1))[1];
+                guard(insertions, from, to, source.substring(from, to).trim().isEmpty());
+            }
+        }
+        if (insertions.isEmpty()) {
+            return source;
+        }
+        insertions.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]));
+        StringBuilder out = new StringBuilder(source.length() + insertions.size() * 24);
+        int copied = 0;
+        for (int[] insertion : insertions) {
+            out.append(source, copied, insertion[0]).append(INSERTS[insertion[2]]);
+            copied = insertion[0];
+        }
+        return out.append(source, copied, source.length()).toString();
+    }
+
+    /**
+     * The index of the token closing the parenthesis at {@code open}, or -1;
+     * collects the top-level semicolons on the way.
+     */
+    private static int matchParen(String source, List<int[]> tokens, int open, List<Integer> semicolons) {
+        for (int k = open, depth = 0; k < tokens.size(); k++) {
+            int[] token = tokens.get(k);
+            if (token[0] != PUNCT) {
+                continue;
+            }
+            char c = source.charAt(token[1]);
+            if (c == '(' || c == '[' || c == '{') {
+                depth++;
+            } else if (c == ')' || c == ']' || c == '}') {
+                if (--depth == 0) {
+                    return k;
+                }
+            } else if (c == ';' && depth == 1) {
+                semicolons.add(k);
+            }
+        }
+        return -1;
+    }
+
+    /** Records insertions as {offset, order, text index}; closing parens sort before openings at one offset. */
+    private static void guard(List<int[]> insertions, int from, int to, boolean emptyCondition) {
+        if (emptyCondition) {
+            insertions.add(new int[] {from, 1, 2});
+        } else {
+            insertions.add(new int[] {from, 1, 0});
+            insertions.add(new int[] {to, 0, 1});
+        }
+    }
+
+    private static boolean isPunct(String source, int[] token, char c) {
+        return token[0] == PUNCT && source.charAt(token[1]) == c;
+    }
+
+    /**
+     * Splits the source into {type, start, end} tokens, skipping whitespace
+     * and comments and keeping strings, templates and regex literals whole.
+     */
+    private static List<int[]> tokenize(String source) {
+        List<int[]> tokens = new ArrayList<>();
+        int length = source.length();
+        int i = 0;
+        while (i < length) {
+            char c = source.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '/') {
+                while (i < length && source.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < length && source.charAt(i + 1) == '*') {
+                int end = source.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '"' || c == '\'' || c == '`') {
+                i = skipQuoted(source, i, c);
+                tokens.add(new int[] {LITERAL, start, i});
+            } else if (c == '/' && regexAllowed(source, tokens)) {
+                boolean inClass = false;
+                for (i++; i < length && source.charAt(i) != '\n'; i++) {
+                    char r = source.charAt(i);
+                    if (r == '\\') {
+                        i++;
+                    } else if (r == '[') {
+                        inClass = true;
+                    } else if (r == ']') {
+                        inClass = false;
+                    } else if (r == '/' && !inClass) {
+                        break;
+                    }
+                }
+                for (i++; i < length && Character.isLetter(source.charAt(i)); i++) {
+                    // flags
+                }
+                tokens.add(new int[] {LITERAL, start, Math.min(i, length)});
+            } else if (Character.isJavaIdentifierPart(c)) {
+                while (i < length && Character.isJavaIdentifierPart(source.charAt(i))) {
+                    i++;
+                }
+                tokens.add(new int[] {WORD, start, i});
+            } else {
+                tokens.add(new int[] {PUNCT, start, ++i});
+            }
+        }
+        return tokens;
+    }
+
+    private static int skipQuoted(String source, int quote, char c) {
+        int i = quote + 1;
+        while (i < source.length() && source.charAt(i) != c) {
+            i += source.charAt(i) == '\\' ? 2 : 1;
+        }
+        return Math.min(i + 1, source.length());
+    }
+
+    private static boolean regexAllowed(String source, List<int[]> tokens) {
+        if (tokens.isEmpty()) {
+            return true;
+        }
+        int[] previous = tokens.get(tokens.size() - 1);
+        if (previous[0] == LITERAL) {
+            return false;
+        }
+        if (previous[0] == WORD) {
+            String word = source.substring(previous[1], previous[2]);
+            return REGEX_PREFIX_WORDS.contains(word);
+        }
+        char c = source.charAt(previous[1]);
+        return c != ')' && c != ']' && c != '}';
+    }
+}
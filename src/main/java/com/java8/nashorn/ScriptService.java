@@ -0,0 +1,432 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import javax.script.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe facade for evaluating many small scripts.
+ *
+ * Keeps a fixed pool of engines; each engine owns an LRU cache of
+ * {@link CompiledScript}s keyed by script text (so lookups cost one cached
+ * {@code String.hashCode()} plus an equals check) and hands every calling
+ * thread its own reusable {@link Bindings}. Engines are borrowed for the
+ * duration of a single evaluation, so at most one thread uses an engine at
+ * a time. Pure arithmetic/boolean expressions bypass the engine entirely
+ * via {@link ExpressionCompiler}.
+ *
+ * Note that bindings are reused per thread and engine: variables set by one
+ * evaluation remain visible to the next one on the same thread.
+ *
+ * Functions added with {@link #define(String)} exist in every thread's
+ * bindings. Functions declared pure with {@link #definePure(String, String)}
+ * are memoized in a {@link ScriptFunctionCache} shared by all engines, both
+ * for {@link #invoke(String, Object...)} calls from Java and for (recursive)
+ * calls inside scripts.
+ *
+ * {@link #close()} releases the pooled engines and their compiled scripts.
+ */
+public class ScriptService implements AutoCloseable {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final int DEFAULT_FUNCTION_CACHE_SIZE = 10_000;
+
+    private static final String CACHE_BINDING = "__java8_functionCache";
+    private static final String ORIGINAL_PREFIX = "__java8_pure_";
+    private static final String MEMOIZE_SCRIPT =
+            "function __java8_memoize(name, original) {\n" +
+            "    var cache = " + CACHE_BINDING + ";\n" +
+            "    return function() {\n" +
+            "        var key = name;\n" +
+            "        for (var i = 0; i < arguments.length; i++) {\n" +
+            "            var arg = arguments[i];\n" +
+            "            var type = typeof arg;\n" +
+            "            if (type === 'number') key += '|n' + arg;\n" +
+            "            else if (type === 'string') key += '|s' + arg.length + ':' + arg;\n" +
+            "            else if (type === 'boolean') key += '|b' + arg;\n" +
+            "            else return original.apply(this, arguments);\n" +
+            "        }\n" +
+            "        var cached = cache.get(key);\n" +
+            "        if (cached !== null) return cached;\n" +
+            "        var result = original.apply(this, arguments);\n" +
+            "        cache.put(key, result);\n" +
+            "        return result;\n" +
+            "    };\n" +
+            "}";
+
+    private final String engineName;
+    private final BlockingQueue<PooledEngine> pool;
+    private final int poolSize;
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder compileNanos = new LongAdder();
+    private final LongAdder evalNanos = new LongAdder();
+    private final LongAdder evalCount = new LongAdder();
+
+    private final List<String> definitions = new CopyOnWriteArrayList<>();
+    private final Set<String> pureFunctions = ConcurrentHashMap.newKeySet();
+    private final ScriptFunctionCache functionCache;
+    private volatile Method callMethod;
+    private volatile boolean closed;
+
+    public ScriptService(String engineName, int poolSize, int cacheSize) {
+        this(engineName, () -> new ScriptEngineManager().getEngineByName(engineName), poolSize, cacheSize,
+                DEFAULT_FUNCTION_CACHE_SIZE);
+    }
+
+    public ScriptService(ScriptBackend backend, int poolSize, int cacheSize) {
+        this(backend.getId(), backend::createEngine, poolSize, cacheSize, DEFAULT_FUNCTION_CACHE_SIZE);
+    }
+
+    /**
+     * Creates engines with backend specific options, e.g. Nashorn's
+     * {@code --persistent-code-cache}.
+     */
+    public ScriptService(ScriptBackend backend, int poolSize, int cacheSize, String... engineOptions) {
+        this(backend, poolSize, cacheSize, DEFAULT_FUNCTION_CACHE_SIZE, engineOptions);
+    }
+
+    /**
+     * @param functionCacheSize results kept for functions defined with
+     *                          {@link #definePure(String, String)}
+     */
+    public ScriptService(ScriptBackend backend, int poolSize, int cacheSize, int functionCacheSize,
+                         String... engineOptions) {
+        this(backend.getId(), () -> backend.createEngine(engineOptions), poolSize, cacheSize, functionCacheSize);
+    }
+
+    public ScriptService(ScriptBackend backend) {
+        this(backend, Runtime.getRuntime().availableProcessors(), 256);
+    }
+
+    private ScriptService(String engineName, Supplier<ScriptEngine> engines, int poolSize, int cacheSize,
+                          int functionCacheSize) {
+        this.engineName = engineName;
+        this.functionCache = new ScriptFunctionCache(functionCacheSize);
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        for (int i = 0; i < poolSize; i++) {
+            ScriptEngine engine = engines.get();
+            if (engine == null) {
+                break;
+            }
+            pool.add(new PooledEngine(engine, cacheSize));
+        }
+        this.poolSize = pool.size();
+    }
+
+    public boolean isAvailable() {
+        return poolSize > 0;
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public Object eval(String script) throws ScriptException {
+        return eval(script, null);
+    }
+
+    /**
+     * Evaluates the script with the given variables bound in the calling
+     * thread's bindings. The script is compiled at most once per engine.
+     */
+    public Object eval(String script, Map<String, Object> variables) throws ScriptException {
+        PooledEngine pooled = borrow();
+        try {
+            Bindings bindings = pooled.threadBindings();
+            if (variables != null) {
+                bindings.putAll(variables);
+            }
+            CompiledScript compiled = pooled.compiled(script);
+            long start = CLOCK.nanoTime();
+            try {
+                return compiled.eval(bindings);
+            } finally {
+                evalNanos.add(CLOCK.elapsedNanos(start));
+                evalCount.increment();
+            }
+        } finally {
+            release(pooled);
+        }
+    }
+
+    /**
+     * Evaluates the source (typically function declarations) in every
+     * thread's bindings, now and in bindings created later.
+     */
+    public synchronized void define(String source) {
+        definitions.add(source);
+    }
+
+    /**
+     * Defines a function whose result depends only on its arguments and
+     * memoizes it. Calls with number, string or boolean arguments are
+     * answered from the shared cache; the function's own recursive calls
+     * go through the cache too.
+     */
+    public synchronized void definePure(String functionName, String source) {
+        if (pureFunctions.isEmpty()) {
+            definitions.add(MEMOIZE_SCRIPT);
+        }
+        definitions.add(source);
+        definitions.add("var " + ORIGINAL_PREFIX + functionName + " = " + functionName + ";\n"
+                + functionName + " = __java8_memoize('" + functionName + "', "
+                + ORIGINAL_PREFIX + functionName + ");");
+        pureFunctions.add(functionName);
+    }
+
+    /**
+     * Calls a function defined with {@link #define} or {@link #definePure}.
+     */
+    public Object invoke(String functionName, Object... args) throws ScriptException {
+        String key = pureFunctions.contains(functionName) ? ScriptFunctionCache.key(functionName, args) : null;
+        if (key != null) {
+            Object cached = functionCache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        PooledEngine pooled = borrow();
+        try {
+            Bindings bindings = pooled.threadBindings();
+            // On a miss call the original; its recursive calls still hit the cache
+            Object function = bindings.get(key != null ? ORIGINAL_PREFIX + functionName : functionName);
+            if (function == null) {
+                throw new ScriptException("Function '" + functionName + "' is not defined");
+            }
+            long start = CLOCK.nanoTime();
+            Object result;
+            try {
+                result = call(function, args);
+            } finally {
+                evalNanos.add(CLOCK.elapsedNanos(start));
+                evalCount.increment();
+            }
+            if (key != null) {
+                functionCache.put(key, result);
+            }
+            return result;
+        } finally {
+            release(pooled);
+        }
+    }
+
+    public ScriptFunctionCache getFunctionCache() {
+        return functionCache;
+    }
+
+    /**
+     * Compiles the script into the cache of every pooled engine. Meant for
+     * startup, before the service takes traffic; returns the compile time.
+     * Holds every engine until all are done, so each is visited exactly once
+     * whatever order concurrent callers return them in.
+     */
+    public synchronized long precompile(String script) throws ScriptException {
+        long start = CLOCK.nanoTime();
+        List<PooledEngine> engines = new ArrayList<>(poolSize);
+        try {
+            while (engines.size() < poolSize) {
+                engines.add(borrow());
+            }
+            for (PooledEngine pooled : engines) {
+                pooled.compiled(script);
+            }
+        } finally {
+            for (PooledEngine pooled : engines) {
+                release(pooled);
+            }
+        }
+        return CLOCK.elapsedNanos(start);
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public Stats getStats() {
+        return new Stats(cacheHits.sum(), cacheMisses.sum(), compileNanos.sum(),
+                evalNanos.sum(), evalCount.sum());
+    }
+
+    /**
+     * Drops the pooled engines with their compiled scripts and bindings;
+     * later calls fail. Engines still in use are dropped when returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        drain();
+    }
+
+    private void drain() {
+        List<PooledEngine> engines = new ArrayList<>(poolSize);
+        pool.drainTo(engines);
+        for (PooledEngine pooled : engines) {
+            pooled.cache.clear();
+            pooled.scopes.clear();
+        }
+    }
+
+    private void release(PooledEngine pooled) {
+        pool.offer(pooled);
+        if (closed) {
+            drain();
+        }
+    }
+
+    private PooledEngine borrow() throws ScriptException {
+        if (!isAvailable()) {
+            throw new ScriptException("Script engine '" + engineName + "' not available");
+        }
+        if (closed) {
+            throw new ScriptException("Script service closed");
+        }
+        PooledEngine pooled;
+        try {
+            pooled = pool.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScriptException("Interrupted while waiting for a script engine");
+        }
+        if (closed) {
+            release(pooled);
+            throw new ScriptException("Script service closed");
+        }
+        return pooled;
+    }
+
+    private Object call(Object function, Object[] args) throws ScriptException {
+        try {
+            // ScriptObjectMirror.call(Object, Object...); its package depends on the backend
+            Method method = callMethod;
+            if (method == null || method.getDeclaringClass() != function.getClass()) {
+                method = function.getClass().getMethod("call", Object.class, Object[].class);
+                callMethod = method;
+            }
+            return method.invoke(function, null, args);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ScriptException("'" + function + "' is not a callable script function");
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            ScriptException failure = new ScriptException(String.valueOf(cause));
+            failure.initCause(cause);
+            throw failure;
+        }
+    }
+
+    /**
+     * A thread's bindings plus how many of the service definitions it has run.
+     */
+    private static final class Scope {
+        final Bindings bindings;
+        int defined;
+
+        Scope(Bindings bindings) {
+            this.bindings = bindings;
+        }
+    }
+
+    /**
+     * An engine with its compiled scripts and each calling thread's scope.
+     * Only the thread that borrowed it touches its state; scopes are weakly
+     * keyed by thread, so they go away with their threads and on close
+     * rather than with the engine.
+     */
+    private final class PooledEngine {
+        private final ScriptEngine engine;
+        private final Map<String, CompiledScript> cache;
+        private final Map<Thread, Scope> scopes = new WeakHashMap<>();
+
+        PooledEngine(ScriptEngine engine, int cacheSize) {
+            this.engine = engine;
+            this.cache = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledScript> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+
+        Bindings threadBindings() throws ScriptException {
+            Scope scope = scopes.computeIfAbsent(Thread.currentThread(), thread -> {
+                Bindings bindings = engine.createBindings();
+                bindings.put(CACHE_BINDING, functionCache);
+                return new Scope(bindings);
+            });
+            while (scope.defined < definitions.size()) {
+                engine.eval(definitions.get(scope.defined), scope.bindings);
+                scope.defined++;
+            }
+            return scope.bindings;
+        }
+
+        CompiledScript compiled(String script) throws ScriptException {
+            CompiledScript compiled = cache.get(script);
+            if (compiled != null) {
+                cacheHits.increment();
+                return compiled;
+            }
+            cacheMisses.increment();
+            long start = CLOCK.nanoTime();
+            compiled = ExpressionCompiler.compileScript(script, engine);
+            compileNanos.add(CLOCK.elapsedNanos(start));
+            cache.put(script, compiled);
+            return compiled;
+        }
+    }
+
+    /**
+     * Point-in-time view of the service counters.
+     */
+    public static class Stats {
+        private final long cacheHits;
+        private final long cacheMisses;
+        private final long compileNanos;
+        private final long evalNanos;
+        private final long evalCount;
+
+        Stats(long cacheHits, long cacheMisses, long compileNanos, long evalNanos, long evalCount) {
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+            this.compileNanos = compileNanos;
+            this.evalNanos = evalNanos;
+            this.evalCount = evalCount;
+        }
+
+        public long getCacheHits() { return cacheHits; }
+        public long getCacheMisses() { return cacheMisses; }
+        public long getCompileNanos() { return compileNanos; }
+        public long getEvalNanos() { return evalNanos; }
+        public long getEvalCount() { return evalCount; }
+
+        public double getHitRatio() {
+            long lookups = cacheHits + cacheMisses;
+            return lookups == 0 ? 0.0 : (double) cacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Stats{evals=%d, hitRatio=%.3f, compile=%.2fms, eval=%.2fms}",
+                    evalCount, getHitRatio(), compileNanos / 1_000_000.0, evalNanos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Startup warm-up for a {@link ScriptService}.
+ *
+ * Loads every {@code *.js} / {@code *.expr} file of a directory, compiles
+ * each one into every pooled engine and then evaluates all of them in
+ * rounds against synthetic inputs until the per-evaluation latency stops
+ * changing, so the first real requests after a restart do not pay for
+ * compilation, Nashorn's type specialisation or JIT compilation.
+ *
+ * Inputs for {@code name.js} are read from {@code name.inputs.json} (a JSON
+ * array of objects) when present; otherwise pure expressions get random
+ * numbers for their variables and other scripts run without variables.
+ *
+ * Nashorn can persist compiled classes across restarts, so a later start
+ * loads the class files instead of compiling the scripts again. The cache
+ * is opt-in: start the JVM with {@code -Dnashorn.persistent.code.cache=dir}
+ * and create the service with {@link #configuredCodeCache()} as engine
+ * options, or call {@link #persistentCodeCache(Path)} from the application.
+ */
+public class ScriptWarmup {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    /** System property naming a directory of scripts to warm up. */
+    public static final String DIRECTORY_PROPERTY = "java8.script.warmup.dir";
+
+    private static final String NASHORN_CODE_CACHE = "nashorn.persistent.code.cache";
+    private static final int SYNTHETIC_INPUTS = 16;
+
+    private final ScriptService service;
+    private int evalsPerRound = 200;
+    private double tolerance = 0.10;
+    private int stableRounds = 3;
+    private int maxRounds = 50;
+
+    public ScriptWarmup(ScriptService service) {
+        this.service = service;
+    }
+
+    public ScriptWarmup evalsPerRound(int evalsPerRound) {
+        this.evalsPerRound = Math.max(1, evalsPerRound);
+        return this;
+    }
+
+    /**
+     * Relative change in round latency that still counts as steady.
+     */
+    public ScriptWarmup tolerance(double tolerance) {
+        this.tolerance = tolerance;
+        return this;
+    }
+
+    public ScriptWarmup stableRounds(int stableRounds) {
+        this.stableRounds = Math.max(1, stableRounds);
+        return this;
+    }
+
+    public ScriptWarmup maxRounds(int maxRounds) {
+        this.maxRounds = Math.max(1, maxRounds);
+        return this;
+    }
+
+    /**
+     * Engine options enabling Nashorn's persistent code cache if its
+     * directory was configured with {@code -Dnashorn.persistent.code.cache};
+     * no options otherwise. Unlike {@link #persistentCodeCache(Path)} this
+     * never changes system properties.
+     */
+    public static String[] configuredCodeCache() {
+        return System.getProperty(NASHORN_CODE_CACHE) != null
+                ? new String[] {"--persistent-code-cache"}
+                : new String[0];
+    }
+
+    /**
+     * Engine options enabling Nashorn's persistent code cache in the given
+     * directory. The cache location is a JVM-wide system property, which
+     * this sets for every engine created afterwards; it must be called
+     * before the engines using the cache are created.
+     */
+    public static String[] persistentCodeCache(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        System.setProperty(NASHORN_CODE_CACHE, directory.toAbsolutePath().toString());
+        return new String[] {"--persistent-code-cache"};
+    }
+
+    public static List<Script> loadDirectory(Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.endsWith(".js") || name.endsWith(".expr");
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        List<Script> scripts = new ArrayList<>();
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            String name = fileName.substring(0, fileName.lastIndexOf('.'));
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            Path inputsFile = file.resolveSibling(name + ".inputs.json");
+            List<Map<String, Object>> inputs = Files.exists(inputsFile)
+                    ? readInputs(inputsFile)
+                    : syntheticInputs(source);
+            scripts.add(new Script(name, source, inputs));
+        }
+        return scripts;
+    }
+
+    public Report run(Path directory) throws IOException, ScriptException {
+        long start = CLOCK.nanoTime();
+        List<Script> scripts = loadDirectory(directory);
+        return run(scripts, start);
+    }
+
+    public Report run(List<Script> scripts) throws ScriptException {
+        return run(scripts, CLOCK.nanoTime());
+    }
+
+    private Report run(List<Script> scripts, long start) throws ScriptException {
+        long compileNanos = 0;
+        for (Script script : scripts) {
+            try {
+                compileNanos += service.precompile(script.source);
+            } catch (ScriptException e) {
+                throw warmupFailure(script, e);
+            }
+        }
+
+        double firstRound = 0;
+        double previous = 0;
+        double latest = 0;
+        int rounds = 0;
+        int stable = 0;
+        long evaluations = 0;
+        while (rounds < maxRounds && stable < stableRounds) {
+            long roundStart = CLOCK.nanoTime();
+            int roundEvals = 0;
+            for (Script script : scripts) {
+                for (int i = 0; i < evalsPerRound; i++) {
+                    Map<String, Object> input = script.inputs.isEmpty()
+                            ? null : script.inputs.get(i % script.inputs.size());
+                    try {
+                        service.eval(script.source, input);
+                    } catch (ScriptException e) {
+                        throw warmupFailure(script, e);
+                    }
+                    roundEvals++;
+                }
+            }
+            latest = roundEvals == 0 ? 0 : (double) CLOCK.elapsedNanos(roundStart) / roundEvals;
+            evaluations += roundEvals;
+            if (rounds == 0) {
+                firstRound = latest;
+            } else if (Math.abs(latest - previous) <= tolerance * previous) {
+                stable++;
+            } else {
+                stable = 0;
+            }
+            previous = latest;
+            rounds++;
+        }
+        return new Report(scripts.size(), compileNanos, rounds, evaluations, firstRound, latest,
+                stable >= stableRounds, CLOCK.elapsedNanos(start));
+    }
+
+    private static ScriptException warmupFailure(Script script, ScriptException cause) {
+        ScriptException failure = new ScriptException("Warm-up of script '" + script.name + "' failed: "
+                + cause.getMessage());
+        failure.initCause(cause);
+        return failure;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> readInputs(Path file) throws IOException {
+        Object parsed = JsonReader.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        if (!(parsed instanceof List)) {
+            throw new IOException(file + " must contain a JSON array of objects");
+        }
+        List<Map<String, Object>> inputs = new ArrayList<>();
+        for (Object element : (List<Object>) parsed) {
+            if (!(element instanceof Map)) {
+                throw new IOException(file + " must contain a JSON array of objects");
+            }
+            inputs.add((Map<String, Object>) element);
+        }
+        return inputs;
+    }
+
+    /**
+     * Random numbers for the variables of a pure expression, or no inputs.
+     */
+    static List<Map<String, Object>> syntheticInputs(String source) {
+        CompiledExpression expression = ExpressionCompiler.tryCompile(source.trim());
+        if (expression == null || expression.getVariables().length == 0) {
+            return Collections.emptyList();
+        }
+        Random random = new Random(source.hashCode());
+        List<Map<String, Object>> inputs = new ArrayList<>(SYNTHETIC_INPUTS);
+        for (int i = 0; i < SYNTHETIC_INPUTS; i++) {
+            Map<String, Object> input = new HashMap<>();
+            for (String variable : expression.getVariables()) {
+                input.put(variable, 1 + random.nextInt(100));
+            }
+            inputs.add(input);
+        }
+        return inputs;
+    }
+
+    /**
+     * A named script and the inputs it is warmed up with.
+     */
+    public static class Script {
+        private final String name;
+        private final String source;
+        private final List<Map<String, Object>> inputs;
+
+        public Script(String name, String source, List<Map<String, Object>> inputs) {
+            this.name = name;
+            this.source = source;
+            this.inputs = inputs;
+        }
+
+        public String getName() { return name; }
+        public String getSource() { return source; }
+        public List<Map<String, Object>> getInputs() { return inputs; }
+    }
+
+    /**
+     * Outcome of a warm-up run.
+     */
+    public static class Report {
+        private final int scripts;
+        private final long compileNanos;
+        private final int rounds;
+        private final long evaluations;
+        private final double firstRoundNanos;
+        private final double steadyNanos;
+        private final boolean steady;
+        private final long timeToSteadyStateNanos;
+
+        Report(int scripts, long compileNanos, int rounds, long evaluations, double firstRoundNanos,
+               double steadyNanos, boolean steady, long timeToSteadyStateNanos) {
+            this.scripts = scripts;
+            this.compileNanos = compileNanos;
+            this.rounds = rounds;
+            this.evaluations = evaluations;
+            this.firstRoundNanos = firstRoundNanos;
+            this.steadyNanos = steadyNanos;
+            this.steady = steady;
+            this.timeToSteadyStateNanos = timeToSteadyStateNanos;
+        }
+
+        public int getScripts() { return scripts; }
+        public long getCompileNanos() { return compileNanos; }
+        public int getRounds() { return rounds; }
+        public long getEvaluations() { return evaluations; }
+        public double getFirstRoundNanos() { return firstRoundNanos; }
+        public double getSteadyNanos() { return steadyNanos; }
+        /** False if the latency was still changing after the maximum number of rounds. */
+        public boolean isSteady() { return steady; }
+        public long getTimeToSteadyStateNanos() { return timeToSteadyStateNanos; }
+
+        @Override
+        public String toString() {
+            return String.format("Warm-up{scripts=%d, compile=%.1fms, rounds=%d, evals=%,d, "
+                            + "first=%.1fus/eval, steady=%.1fus/eval, %s after %.1fms}",
+                    scripts, compileNanos / 1_000_000.0, rounds, evaluations,
+                    firstRoundNanos / 1000.0, steadyNanos / 1000.0,
+                    steady ? "steady" : "NOT steady", timeToSteadyStateNanos / 1_000_000.0);
+        }
+    }
+}
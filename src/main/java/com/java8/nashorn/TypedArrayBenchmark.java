@@ -0,0 +1,92 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compares ways of running a script filter/map/reduce pipeline
+ * ({@code even -> square -> sum}) over 10M ints: a boxed {@code List} with
+ * {@code stream()} called from the script (as in the practical examples),
+ * a script loop over a plain {@code int[]}, and {@link TypedArrays} bulk
+ * operations over {@code int[]} and direct {@link ByteBuffer} views. A plain
+ * Java stream is the baseline. Pass the element count as the first argument.
+ */
+public class TypedArrayBenchmark {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    private static final int ROUNDS = 3;
+
+    private static final String FUNCTIONS =
+            "function isEven(x) { return x % 2 === 0; }\n" +
+            "function square(x) { return (x % 1000) * (x % 1000); }\n" +
+            "function add(a, b) { return a + b; }\n" +
+            "function loopSum(data) {\n" +
+            "    var sum = 0;\n" +
+            "    for (var i = 0; i < data.length; i++) {\n" +
+            "        var x = data[i];\n" +
+            "        if (isEven(x)) {\n" +
+            "            sum = add(sum, square(x));\n" +
+            "        }\n" +
+            "    }\n" +
+            "    return sum;\n" +
+            "}";
+
+    public static void main(String[] args) throws ScriptException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        System.out.println("=== Typed Array Benchmark ===");
+        ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
+        if (engine == null) {
+            System.out.println("No JavaScript engine available; nothing to measure.");
+            return;
+        }
+        System.out.printf("Elements: %,d%n", size);
+
+        int[] values = IntStream.range(0, size).toArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size * Integer.BYTES).order(ByteOrder.nativeOrder());
+        buffer.asIntBuffer().put(values);
+        List<Integer> boxed = IntStream.of(values).boxed().collect(Collectors.toList());
+
+        engine.eval(FUNCTIONS);
+        TypedArrays arrays = TypedArrays.install(engine);
+        TypedArrayView arrayView = TypedArrayView.of(values);
+        TypedArrayView bufferView = TypedArrayView.ofInts(buffer);
+        engine.put("boxed", boxed);
+        engine.put("data", values);
+
+        System.out.printf("%-34s %12s %16s %14s%n", "variant", "ms", "elements/s", "result");
+        report("Java IntStream (baseline)", size, () -> (double) IntStream.of(values)
+                .filter(x -> x % 2 == 0).mapToLong(x -> (long) (x % 1000) * (x % 1000)).sum());
+        report("script: List.stream() callbacks", size, () -> ((Number) engine.eval(
+                "boxed.stream().filter(isEven).map(square)"
+                        + ".reduce(0, function(a, b) { return a + b; })")).doubleValue());
+        report("script: loop over int[]", size, () -> ((Number) engine.eval("loopSum(data)")).doubleValue());
+        report("TypedArrays over int[]", size, () ->
+                arrays.sum(arrays.map(arrays.filter(arrayView, "isEven"), "square")));
+        report("TypedArrays over direct buffer", size, () ->
+                arrays.sum(arrays.map(arrays.filter(bufferView, "isEven"), "square")));
+    }
+
+    private interface Pipeline {
+        double run() throws ScriptException;
+    }
+
+    private static void report(String name, int size, Pipeline pipeline) throws ScriptException {
+        double result = pipeline.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = CLOCK.nanoTime();
+            result = pipeline.run();
+            best = Math.min(best, CLOCK.elapsedNanos(start));
+        }
+        System.out.printf("%-34s %12.1f %,16.0f %,14.0f%n", name, best / 1_000_000.0,
+                size * 1_000_000_000.0 / best, result);
+    }
+}
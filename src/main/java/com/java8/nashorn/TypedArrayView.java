@@ -0,0 +1,360 @@
+package com.java8.nashorn;
+
+import javax.script.ScriptEngine;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.regex.Pattern;
+
+/**
+ * Int32/Float64 view over contiguous primitive data: an {@code int[]}, a
+ * {@code double[]} or a {@link ByteBuffer} (heap or direct). Creating a
+ * view never copies.
+ *
+ * {@link #toScript(ScriptEngine)} hands the data to Nashorn without
+ * boxing it into a {@code List}: arrays are passed as-is (Nashorn indexes
+ * Java arrays natively), buffers as a {@code JSObject} that supports
+ * {@code data[i]} reads and writes and {@code data.length}; like a JS
+ * typed array it ignores out-of-range writes, new properties and deletes,
+ * and converts assigned values with ToNumber (and ToInt32 for Int32 views).
+ * Writes through the view (or from scripts) go straight to the backing data.
+ */
+public final class TypedArrayView {
+
+    /**
+     * Element type, named after the matching JavaScript typed array.
+     */
+    public enum Type {
+        INT32("Int32Array", Integer.BYTES),
+        FLOAT64("Float64Array", Double.BYTES);
+
+        private final String scriptName;
+        private final int bytes;
+
+        Type(String scriptName, int bytes) {
+            this.scriptName = scriptName;
+            this.bytes = bytes;
+        }
+
+        public String getScriptName() {
+            return scriptName;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+    }
+
+    /** JavaScript's StrDecimalLiteral; hexadecimal integers are handled separately. */
+    private static final Pattern DECIMAL_LITERAL =
+            Pattern.compile("[+-]?(?:Infinity|(?:\\d+\\.?\\d*|\\.\\d+)(?:[eE][+-]?\\d+)?)");
+    private static final double TWO_TO_32 = 4294967296.0;
+
+    private final Type type;
+    private final int[] ints;
+    private final double[] doubles;
+    private final IntBuffer intBuffer;
+    private final DoubleBuffer doubleBuffer;
+    private final int length;
+
+    private TypedArrayView(Type type, int[] ints, double[] doubles, IntBuffer intBuffer,
+                           DoubleBuffer doubleBuffer, int length) {
+        this.type = type;
+        this.ints = ints;
+        this.doubles = doubles;
+        this.intBuffer = intBuffer;
+        this.doubleBuffer = doubleBuffer;
+        this.length = length;
+    }
+
+    public static TypedArrayView of(int[] values) {
+        return new TypedArrayView(Type.INT32, values, null, null, null, values.length);
+    }
+
+    public static TypedArrayView of(double[] values) {
+        return new TypedArrayView(Type.FLOAT64, null, values, null, null, values.length);
+    }
+
+    /**
+     * Views the remaining bytes of the buffer (in its byte order) as ints.
+     */
+    public static TypedArrayView ofInts(ByteBuffer buffer) {
+        IntBuffer view = buffer.slice().order(buffer.order()).asIntBuffer();
+        return new TypedArrayView(Type.INT32, null, null, view, null, view.remaining());
+    }
+
+    /**
+     * Views the remaining bytes of the buffer (in its byte order) as doubles.
+     */
+    public static TypedArrayView ofDoubles(ByteBuffer buffer) {
+        DoubleBuffer view = buffer.slice().order(buffer.order()).asDoubleBuffer();
+        return new TypedArrayView(Type.FLOAT64, null, null, null, view, view.remaining());
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /** True if the view is backed by a Java array rather than a buffer. */
+    public boolean isArrayBacked() {
+        return ints != null || doubles != null;
+    }
+
+    public double get(int index) {
+        checkIndex(index);
+        if (ints != null) {
+            return ints[index];
+        }
+        if (doubles != null) {
+            return doubles[index];
+        }
+        return intBuffer != null ? intBuffer.get(index) : doubleBuffer.get(index);
+    }
+
+    public int getInt(int index) {
+        return type == Type.INT32 ? (ints != null ? ints[checkIndex(index)] : intBuffer.get(checkIndex(index)))
+                : (int) get(index);
+    }
+
+    /**
+     * Stores the value, converting it with {@link #toInt32(double)} for
+     * Int32 views.
+     */
+    public void set(int index, double value) {
+        checkIndex(index);
+        if (ints != null) {
+            ints[index] = toInt32(value);
+        } else if (doubles != null) {
+            doubles[index] = value;
+        } else if (intBuffer != null) {
+            intBuffer.put(index, toInt32(value));
+        } else {
+            doubleBuffer.put(index, value);
+        }
+    }
+
+    /**
+     * The backing {@code int[]} or {@code double[]}, or null for buffer views.
+     */
+    public Object array() {
+        return ints != null ? ints : doubles;
+    }
+
+    /**
+     * Copies {@code count} elements starting at {@code from} into the
+     * scratch array (an {@code int[]} or {@code double[]} matching the type).
+     */
+    void copyTo(int from, Object scratch, int count) {
+        if (ints != null) {
+            System.arraycopy(ints, from, scratch, 0, count);
+        } else if (doubles != null) {
+            System.arraycopy(doubles, from, scratch, 0, count);
+        } else if (intBuffer != null) {
+            IntBuffer window = intBuffer.duplicate();
+            window.position(from);
+            window.get((int[]) scratch, 0, count);
+        } else {
+            DoubleBuffer window = doubleBuffer.duplicate();
+            window.position(from);
+            window.get((double[]) scratch, 0, count);
+        }
+    }
+
+    /**
+     * The value to bind into a script; see the class comment.
+     */
+    public Object toScript(ScriptEngine engine) {
+        if (isArrayBacked()) {
+            return array();
+        }
+        String engineClass = engine.getClass().getName();
+        String jsObjectName = engineClass.substring(0, engineClass.lastIndexOf('.')) + ".JSObject";
+        try {
+            ClassLoader loader = engine.getClass().getClassLoader();
+            Class<?> jsObject = Class.forName(jsObjectName, true, loader);
+            return Proxy.newProxyInstance(loader, new Class<?>[] {jsObject}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getSlot":
+                        return scriptValue((Integer) args[0]);
+                    case "hasSlot":
+                        return (Integer) args[0] >= 0 && (Integer) args[0] < length;
+                    case "setSlot":
+                        setFromScript((Integer) args[0], args[1]);
+                        return null;
+                    case "setMember":
+                        setFromScript(slot(args[0]), args[1]);
+                        return null;
+                    case "getMember":
+                        return "length".equals(args[0]) ? Integer.valueOf(length) : scriptValue(slot(args[0]));
+                    case "hasMember":
+                        return "length".equals(args[0]) || slot(args[0]) >= 0;
+                    case "getClassName":
+                        return type.getScriptName();
+                    case "isArray":
+                        return true;
+                    case "isFunction":
+                    case "isStrictFunction":
+                    case "isInstance":
+                    case "isInstanceOf":
+                        return false;
+                    case "keySet":
+                        return Collections.emptySet();
+                    case "values":
+                        return asList();
+                    case "toNumber":
+                        return Double.NaN;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                    case "getDefaultValue":
+                        return toString();
+                    default:
+                        // removeMember, call, newObject, eval: like a JS typed array,
+                        // ignore the change and answer undefined
+                        return null;
+                }
+            });
+        } catch (ClassNotFoundException e) {
+            // Not Nashorn: expose the view object itself
+            return this;
+        }
+    }
+
+    /**
+     * Parses a numeric property name, or returns -1.
+     */
+    private int slot(Object name) {
+        String key = (String) name;
+        if (key.isEmpty() || key.length() > 10) {
+            return -1;
+        }
+        long index = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index < length ? (int) index : -1;
+    }
+
+    /**
+     * Stores a value assigned by a script, converting it like JavaScript's
+     * ToNumber; out-of-range indices are ignored, as in a typed array.
+     */
+    private void setFromScript(int index, Object value) {
+        if (index < 0 || index >= length) {
+            return;
+        }
+        set(index, toNumber(value));
+    }
+
+    /**
+     * JavaScript's ToInt32: truncates, then wraps modulo 2^32 (so 2^32 + 5
+     * becomes 5 and 2^31 becomes -2^31); NaN and infinities become 0.
+     */
+    public static int toInt32(double value) {
+        // The remainder is exact, and NaN for infinities, which casts to 0
+        return (int) (long) (value % TWO_TO_32);
+    }
+
+    /**
+     * JavaScript's ToNumber for a value coming from a script: {@code null}
+     * is 0, booleans are 0 or 1, and anything else is converted from its
+     * string form, where only decimal and {@code 0x} literals (surrounded
+     * by optional white space) are numbers.
+     */
+    static double toNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        if (value == null) {
+            return 0;
+        }
+        String text = trimScriptWhitespace(value.toString());
+        if (text.isEmpty()) {
+            return 0;
+        }
+        if (text.length() > 2 && text.charAt(0) == '0' && (text.charAt(1) == 'x' || text.charAt(1) == 'X')) {
+            for (int i = 2; i < text.length(); i++) {
+                if (Character.digit(text.charAt(i), 16) < 0) {
+                    return Double.NaN;
+                }
+            }
+            return new BigInteger(text.substring(2), 16).doubleValue();
+        }
+        return DECIMAL_LITERAL.matcher(text).matches() ? Double.parseDouble(text) : Double.NaN;
+    }
+
+    private static String trimScriptWhitespace(String text) {
+        int from = 0;
+        int to = text.length();
+        while (from < to && isScriptWhitespace(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && isScriptWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        return text.substring(from, to);
+    }
+
+    private static boolean isScriptWhitespace(char c) {
+        return c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '\uFEFF'
+                || Character.isSpaceChar(c);
+    }
+
+    private Object scriptValue(int index) {
+        if (index < 0 || index >= length) {
+            return null;
+        }
+        return type == Type.INT32 ? (Object) getInt(index) : (Object) get(index);
+    }
+
+    private AbstractList<Object> asList() {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                return scriptValue(index);
+            }
+
+            @Override
+            public int size() {
+                return length;
+            }
+        };
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(type.getScriptName()).append('(').append(length).append(")[");
+        int shown = Math.min(length, 10);
+        for (int i = 0; i < shown; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(scriptValue(i));
+        }
+        return builder.append(length > shown ? ", ...]" : "]").toString();
+    }
+}
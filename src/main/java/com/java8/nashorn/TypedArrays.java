@@ -0,0 +1,183 @@
+package com.java8.nashorn;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.Arrays;
+
+/**
+ * Bulk map/filter/reduce of a script callback over a {@link TypedArrayView}.
+ *
+ * The loops run inside the script, over a Java primitive array: array-backed
+ * views are passed as they are, buffer-backed views are copied chunk by
+ * chunk into a reusable scratch array with a bulk {@code get}. Each chunk is
+ * one Java-to-script call, and values never pass through a {@code List} or a
+ * {@code Stream}. Results follow the typed array semantics of JavaScript:
+ * {@code map} keeps the element type, so Int32 results are truncated.
+ *
+ * Install once per engine. The instance and the views can be bound into
+ * the engine, so scripts can call {@code arrays.map(view, function(x) {...})}
+ * themselves. Like the engine, it must not be used by several threads at
+ * once.
+ */
+public final class TypedArrays {
+
+    private static final String MAP = "__java8_typedMap";
+    private static final String FILTER = "__java8_typedFilter";
+    private static final String REDUCE = "__java8_typedReduce";
+    private static final String DRIVERS =
+            "function " + MAP + "(fn, input, output, offset, count) {\n" +
+            "    for (var i = 0; i < count; i++) {\n" +
+            "        output[offset + i] = fn(input[i], offset + i);\n" +
+            "    }\n" +
+            "}\n" +
+            "function " + FILTER + "(fn, input, output, size, offset, count) {\n" +
+            "    for (var i = 0; i < count; i++) {\n" +
+            "        var value = input[i];\n" +
+            "        if (fn(value, offset + i)) {\n" +
+            "            output[size++] = value;\n" +
+            "        }\n" +
+            "    }\n" +
+            "    return size;\n" +
+            "}\n" +
+            "function " + REDUCE + "(fn, input, accumulator, offset, count) {\n" +
+            "    for (var i = 0; i < count; i++) {\n" +
+            "        accumulator = fn(accumulator, input[i], offset + i);\n" +
+            "    }\n" +
+            "    return accumulator;\n" +
+            "}";
+
+    private final ScriptEngine engine;
+    private final Invocable invocable;
+    private int[] intScratch;
+    private double[] doubleScratch;
+    private Object add;
+
+    private TypedArrays(ScriptEngine engine) {
+        this.engine = engine;
+        this.invocable = (Invocable) engine;
+    }
+
+    /**
+     * Defines the driver functions in the engine.
+     */
+    public static TypedArrays install(ScriptEngine engine) throws ScriptException {
+        if (!(engine instanceof Invocable)) {
+            throw new ScriptException("Engine " + engine.getFactory().getEngineName() + " cannot invoke functions");
+        }
+        engine.eval(DRIVERS);
+        return new TypedArrays(engine);
+    }
+
+    /**
+     * Binds the view into the engine under {@code name}, without copying.
+     */
+    public void bind(String name, TypedArrayView view) {
+        engine.put(name, view.toScript(engine));
+    }
+
+    /**
+     * @param fn a script function object or the name of a global function,
+     *           called as {@code fn(value, index)}
+     */
+    public TypedArrayView map(TypedArrayView view, Object fn) throws ScriptException {
+        Object function = resolve(fn);
+        int length = view.length();
+        if (view.getType() == TypedArrayView.Type.INT32) {
+            int[] output = new int[length];
+            forEachChunk(view, (input, offset, count) -> invoke(MAP, function, input, output, offset, count));
+            return TypedArrayView.of(output);
+        }
+        double[] output = new double[length];
+        forEachChunk(view, (input, offset, count) -> invoke(MAP, function, input, output, offset, count));
+        return TypedArrayView.of(output);
+    }
+
+    /**
+     * @param fn predicate called as {@code fn(value, index)}; truthy keeps the value
+     */
+    public TypedArrayView filter(TypedArrayView view, Object fn) throws ScriptException {
+        Object function = resolve(fn);
+        int length = view.length();
+        int[] size = new int[1];
+        if (view.getType() == TypedArrayView.Type.INT32) {
+            int[] output = new int[length];
+            forEachChunk(view, (input, offset, count) -> size[0] =
+                    ((Number) invoke(FILTER, function, input, output, size[0], offset, count)).intValue());
+            return TypedArrayView.of(Arrays.copyOf(output, size[0]));
+        }
+        double[] output = new double[length];
+        forEachChunk(view, (input, offset, count) -> size[0] =
+                ((Number) invoke(FILTER, function, input, output, size[0], offset, count)).intValue());
+        return TypedArrayView.of(Arrays.copyOf(output, size[0]));
+    }
+
+    /**
+     * @param fn reducer called as {@code fn(accumulator, value, index)}
+     */
+    public Object reduce(TypedArrayView view, Object fn, Object initial) throws ScriptException {
+        Object function = resolve(fn);
+        Object[] accumulator = {initial};
+        forEachChunk(view, (input, offset, count) ->
+                accumulator[0] = invoke(REDUCE, function, input, accumulator[0], offset, count));
+        return accumulator[0];
+    }
+
+    public double sum(TypedArrayView view) throws ScriptException {
+        if (add == null) {
+            add = engine.eval("(function(a, b) { return a + b; })");
+        }
+        return ((Number) reduce(view, add, 0)).doubleValue();
+    }
+
+    private interface ChunkAction {
+        void apply(Object input, int offset, int count) throws ScriptException;
+    }
+
+    private void forEachChunk(TypedArrayView view, ChunkAction action) throws ScriptException {
+        int length = view.length();
+        if (view.isArrayBacked()) {
+            // Contiguous already: one call, offsets map 1:1 to indexes
+            action.apply(view.array(), 0, length);
+            return;
+        }
+        Object scratch = scratch(view.getType());
+        for (int offset = 0; offset < length; offset += ScriptBatchInvoker.CHUNK_SIZE) {
+            int count = Math.min(ScriptBatchInvoker.CHUNK_SIZE, length - offset);
+            view.copyTo(offset, scratch, count);
+            action.apply(scratch, offset, count);
+        }
+    }
+
+    private Object scratch(TypedArrayView.Type type) {
+        if (type == TypedArrayView.Type.INT32) {
+            if (intScratch == null) {
+                intScratch = new int[ScriptBatchInvoker.CHUNK_SIZE];
+            }
+            return intScratch;
+        }
+        if (doubleScratch == null) {
+            doubleScratch = new double[ScriptBatchInvoker.CHUNK_SIZE];
+        }
+        return doubleScratch;
+    }
+
+    private Object resolve(Object fn) throws ScriptException {
+        if (fn instanceof String) {
+            Object function = engine.get((String) fn);
+            if (function == null) {
+                throw new ScriptException("Function '" + fn + "' is not defined");
+            }
+            return function;
+        }
+        return fn;
+    }
+
+    private Object invoke(String driver, Object... args) throws ScriptException {
+        try {
+            return invocable.invokeFunction(driver, args);
+        } catch (NoSuchMethodException e) {
+            throw new ScriptException(e);
+        }
+    }
+}
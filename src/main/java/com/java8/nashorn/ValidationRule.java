@@ -0,0 +1,177 @@
+package com.java8.nashorn;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A named validation rule, compiled once and safe to use from any thread.
+ *
+ * Regex rules compile to a single shared {@link Pattern}; every thread keeps
+ * its own reusable {@link Matcher}, so a check allocates nothing. The matcher
+ * is reset to an empty input after each check so it does not keep the last
+ * value reachable. Rules hold no statistics and can be shared; each
+ * {@link ValidationService} counts its own batch checks. Script
+ * rules are for custom logic only: each thread gets a private engine with
+ * the rule's function defined once.
+ */
+public abstract class ValidationRule {
+
+    /** The characters JavaScript's {@code \s} matches, as the body of a Java character class. */
+    private static final String JS_WHITESPACE =
+            "\\t\\n\\x0B\\f\\r \\u00A0\\u1680\\u2000-\\u200A\\u2028\\u2029\\u202F\\u205F\\u3000\\uFEFF";
+
+    private final String name;
+    private final ThreadLocal<Checker> checkers = ThreadLocal.withInitial(this::newChecker);
+
+    protected ValidationRule(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean test(CharSequence value) {
+        return value != null && checkers.get().test(value);
+    }
+
+    protected abstract Checker newChecker();
+
+    /**
+     * Per-thread checking state.
+     */
+    protected interface Checker {
+        boolean test(CharSequence value);
+    }
+
+    public static ValidationRule regex(String name, String regex) {
+        return regex(name, Pattern.compile(regex));
+    }
+
+    public static ValidationRule regex(String name, Pattern pattern) {
+        return new ValidationRule(name) {
+            @Override
+            protected Checker newChecker() {
+                Matcher matcher = pattern.matcher("");
+                return value -> {
+                    boolean matches = matcher.reset(value).matches();
+                    matcher.reset("");
+                    return matches;
+                };
+            }
+        };
+    }
+
+    /**
+     * Compiles a JavaScript regex literal such as {@code /^\d+$/i}. The
+     * {@code i} and {@code m} flags are honoured and the rule matches if the
+     * pattern is found anywhere (like {@code RegExp.test}). The source is
+     * translated where Java's syntax means something else: {@code \s} and
+     * {@code \S} use JavaScript's whitespace set, and without {@code m} an
+     * unescaped {@code $} only matches at the very end, not before a trailing
+     * newline. {@code \d} and {@code \w} stay ASCII, as in JavaScript.
+     */
+    public static ValidationRule javaScriptRegex(String name, String literal) {
+        int end = literal.lastIndexOf('/');
+        if (!literal.startsWith("/") || end <= 0) {
+            throw new IllegalArgumentException("Not a JavaScript regex literal: " + literal);
+        }
+        String flags = literal.substring(end + 1);
+        int javaFlags = 0;
+        if (flags.contains("i")) {
+            javaFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        boolean multiline = flags.contains("m");
+        if (multiline) {
+            javaFlags |= Pattern.MULTILINE;
+        }
+        Pattern pattern = Pattern.compile(translateJavaScriptRegex(literal.substring(1, end), multiline), javaFlags);
+        return new ValidationRule(name) {
+            @Override
+            protected Checker newChecker() {
+                Matcher matcher = pattern.matcher("");
+                return value -> {
+                    boolean found = matcher.reset(value).find();
+                    matcher.reset("");
+                    return found;
+                };
+            }
+        };
+    }
+
+    /** Rewrites JavaScript regex source into a Java pattern with the same meaning. */
+    static String translateJavaScriptRegex(String source, boolean multiline) {
+        StringBuilder java = new StringBuilder(source.length() + 16);
+        boolean inClass = false;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c == '\\' && i + 1 < source.length()) {
+                char next = source.charAt(++i);
+                if (next == 's') {
+                    java.append(inClass ? JS_WHITESPACE : "[" + JS_WHITESPACE + "]");
+                } else if (next == 'S') {
+                    // A nested negated class is a union member inside [...]
+                    java.append("[^").append(JS_WHITESPACE).append(']');
+                } else {
+                    java.append(c).append(next);
+                }
+            } else if (c == '[' && !inClass) {
+                boolean negated = i + 1 < source.length() && source.charAt(i + 1) == '^';
+                int close = negated ? i + 2 : i + 1;
+                if (close < source.length() && source.charAt(close) == ']') {
+                    // In JavaScript [] never matches and [^] matches anything; Java reads the ']' as a literal
+                    java.append(negated ? "[\\s\\S]" : "(?!)");
+                    i = close;
+                } else {
+                    inClass = true;
+                    java.append(source, i, close);
+                    i = close - 1;
+                }
+            } else if (c == ']' && inClass) {
+                inClass = false;
+                java.append(c);
+            } else if (c == '$' && !inClass && !multiline) {
+                java.append("\\z");
+            } else {
+                java.append(c);
+            }
+        }
+        return java.toString();
+    }
+
+    /**
+     * Custom rule backed by a script function returning a truthy value.
+     */
+    public static ValidationRule script(String name, String source, String functionName) {
+        return new ValidationRule(name) {
+            @Override
+            protected Checker newChecker() {
+                ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
+                if (engine == null) {
+                    throw new IllegalStateException("No JavaScript engine for rule " + name);
+                }
+                try {
+                    engine.eval(source);
+                } catch (ScriptException e) {
+                    throw new IllegalStateException("Invalid script for rule " + name, e);
+                }
+                Invocable invocable = (Invocable) engine;
+                return value -> {
+                    try {
+                        return ExpressionParser.toBoolean(invocable.invokeFunction(functionName, value.toString()));
+                    } catch (ScriptException | NoSuchMethodException e) {
+                        throw new IllegalStateException("Rule " + name + " failed: " + e.getMessage(), e);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "ValidationRule{" + name + "}";
+    }
+}
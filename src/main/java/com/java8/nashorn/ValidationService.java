@@ -0,0 +1,122 @@
+package com.java8.nashorn;
+
+import com.java8.datetime.NanoClock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Registry of precompiled validation rules with single and batch checks.
+ *
+ * The email and phone rules from {@link NashornExamples#practicalExamples()}
+ * are registered by default as {@link java.util.regex.Pattern}s; scripts are
+ * only involved for rules registered with {@link ValidationRule#script}.
+ * Batch statistics are kept per service, so services sharing a rule do not
+ * see each other's counts.
+ */
+public class ValidationService {
+
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+
+    public static final ValidationRule EMAIL =
+            ValidationRule.javaScriptRegex("email", "/^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$/");
+    public static final ValidationRule PHONE =
+            ValidationRule.javaScriptRegex("phone", "/^\\+?[1-9]\\d{1,14}$/");
+
+    private final Map<String, ValidationRule> rules = new ConcurrentHashMap<>();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public ValidationService() {
+        register(EMAIL);
+        register(PHONE);
+    }
+
+    public ValidationService register(ValidationRule rule) {
+        rules.put(rule.getName(), rule);
+        stats.put(rule.getName(), new Stats());
+        return this;
+    }
+
+    public ValidationRule rule(String name) {
+        ValidationRule rule = rules.get(name);
+        if (rule == null) {
+            throw new IllegalArgumentException("Unknown validation rule: " + name);
+        }
+        return rule;
+    }
+
+    public boolean validate(String ruleName, CharSequence value) {
+        return rule(ruleName).test(value);
+    }
+
+    public boolean[] validateAll(String ruleName, List<? extends CharSequence> values) {
+        return validateAll(ruleName, values, true);
+    }
+
+    /**
+     * Checks every value; in parallel mode each fork/join worker uses its
+     * own matcher (or engine) for the rule.
+     */
+    public boolean[] validateAll(String ruleName, List<? extends CharSequence> values, boolean parallel) {
+        ValidationRule rule = rule(ruleName);
+        boolean[] results = new boolean[values.size()];
+        long start = CLOCK.nanoTime();
+        IntStream indexes = IntStream.range(0, results.length);
+        (parallel ? indexes.parallel() : indexes).forEach(i -> results[i] = rule.test(values.get(i)));
+        stats(ruleName).record(results.length, CLOCK.elapsedNanos(start));
+        return results;
+    }
+
+    /** Number of values this service has checked in batches with the rule. */
+    public long getCheckedCount(String ruleName) {
+        return stats(ruleName).checked.sum();
+    }
+
+    /**
+     * Validated values per second for the rule, measured over this
+     * service's batch runs.
+     */
+    public double getThroughput(String ruleName) {
+        return stats(ruleName).throughput();
+    }
+
+    private Stats stats(String ruleName) {
+        Stats ruleStats = stats.get(ruleName);
+        if (ruleStats == null) {
+            throw new IllegalArgumentException("Unknown validation rule: " + ruleName);
+        }
+        return ruleStats;
+    }
+
+    /**
+     * One line per rule with the number of values checked in batches and
+     * the measured throughput.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        stats.entrySet().stream()
+                .filter(entry -> entry.getValue().checked.sum() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> report.append(String.format("%s: %,d checked, %,.0f values/s%n",
+                        entry.getKey(), entry.getValue().checked.sum(), entry.getValue().throughput())));
+        return report.toString();
+    }
+
+    private static final class Stats {
+        final LongAdder checked = new LongAdder();
+        final LongAdder checkNanos = new LongAdder();
+
+        void record(int count, long nanos) {
+            checked.add(count);
+            checkNanos.add(nanos);
+        }
+
+        double throughput() {
+            long nanos = checkNanos.sum();
+            return nanos == 0 ? 0.0 : checked.sum() * 1_000_000_000.0 / nanos;
+        }
+    }
+}
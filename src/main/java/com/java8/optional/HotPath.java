@@ -0,0 +1,18 @@
+package com.java8.optional;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method or constructor as latency- or throughput-critical.
+ * {@link HotPathLint} reports any {@code Optional} created in its body; use
+ * {@link Nullables} or primitive sentinels there instead.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.METHOD, ElementType.CONSTRUCTOR})
+public @interface HotPath {
+}
@@ -0,0 +1,176 @@
+package com.java8.optional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Source-level check that reports {@code Optional} creation inside methods
+ * annotated with {@link HotPath}.
+ *
+ * Flagged are the {@code Optional}/{@code OptionalInt}/{@code OptionalLong}/
+ * {@code OptionalDouble} factories ({@code of}, {@code ofNullable},
+ * {@code empty}) and the stream terminals {@code findFirst()}/{@code findAny()}.
+ * Calls such as {@code map} on an {@code Optional} received from elsewhere
+ * are not: without type information they cannot be told apart from
+ * {@code Stream.map}. Comments and string literals are ignored.
+ *
+ * Run with source roots as arguments ({@code src/main/java} by default); the
+ * exit status is 1 if anything is found.
+ */
+public final class HotPathLint {
+
+    private static final Pattern ANNOTATION = Pattern.compile("@(?:[\\w.]+\\.)?HotPath\\b");
+    private static final Pattern DECLARATION = Pattern.compile("(?<![@\\w.])(\\w+)\\s*\\(");
+    private static final Pattern OPTIONAL_CREATION = Pattern.compile(
+            "\\bOptional(?:Int|Long|Double)?\\s*\\.\\s*(?:<[^>]*>\\s*)?(?:ofNullable|of|empty)\\s*\\("
+                    + "|\\.\\s*find(?:First|Any)\\s*\\(\\s*\\)");
+
+    /** One {@code Optional} creation inside a hot method. */
+    public static final class Finding {
+        private final String source;
+        private final int line;
+        private final String method;
+        private final String expression;
+
+        Finding(String source, int line, String method, String expression) {
+            this.source = source;
+            this.line = line;
+            this.method = method;
+            this.expression = expression;
+        }
+
+        public String getSource() { return source; }
+        public int getLine() { return line; }
+        public String getMethod() { return method; }
+        public String getExpression() { return expression; }
+
+        @Override
+        public String toString() {
+            return source + ":" + line + ": Optional created in @HotPath method " + method + ": " + expression;
+        }
+    }
+
+    private HotPathLint() {
+    }
+
+    public static void main(String[] args) {
+        String[] roots = args.length == 0 ? new String[] {"src/main/java"} : args;
+        List<Finding> findings = new ArrayList<>();
+        for (String root : roots) {
+            findings.addAll(scan(Paths.get(root)));
+        }
+        findings.forEach(System.out::println);
+        System.out.println(findings.size() + " Optional allocation(s) in @HotPath methods");
+        if (!findings.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    /** Scans every {@code .java} file under the directory (or the single file). */
+    public static List<Finding> scan(Path root) {
+        List<Finding> findings = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList())) {
+                String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+                findings.addAll(scan(root.relativize(file).toString(), source));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return findings;
+    }
+
+    /** Scans one compilation unit; {@code name} is only used in the findings. */
+    public static List<Finding> scan(String name, String source) {
+        String code = stripCommentsAndLiterals(source);
+        List<Finding> findings = new ArrayList<>();
+        Matcher annotation = ANNOTATION.matcher(code);
+        while (annotation.find()) {
+            Matcher declaration = DECLARATION.matcher(code);
+            if (!declaration.find(annotation.end())) {
+                break;
+            }
+            int open = code.indexOf('{', declaration.end());
+            int semicolon = code.indexOf(';', declaration.end());
+            if (open < 0 || (semicolon >= 0 && semicolon < open)) {
+                continue; // abstract or interface method
+            }
+            int close = matchingBrace(code, open);
+            Matcher creation = OPTIONAL_CREATION.matcher(code).region(open, close);
+            while (creation.find()) {
+                findings.add(new Finding(name, lineOf(code, creation.start()), declaration.group(1),
+                        creation.group().replaceAll("\\s+", "")));
+            }
+        }
+        return findings;
+    }
+
+    private static int matchingBrace(String code, int open) {
+        int depth = 0;
+        for (int i = open; i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i;
+            }
+        }
+        return code.length();
+    }
+
+    private static int lineOf(String code, int index) {
+        int line = 1;
+        for (int i = 0; i < index; i++) {
+            if (code.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return line;
+    }
+
+    /**
+     * Blanks comments and string/char literals with spaces, keeping line
+     * breaks so offsets and line numbers still match the source.
+     */
+    static String stripCommentsAndLiterals(String source) {
+        char[] out = source.toCharArray();
+        int i = 0;
+        while (i < out.length) {
+            char c = out[i];
+            int end;
+            if (c == '/' && i + 1 < out.length && out[i + 1] == '/') {
+                end = source.indexOf('\n', i);
+                end = end < 0 ? out.length : end;
+            } else if (c == '/' && i + 1 < out.length && out[i + 1] == '*') {
+                end = source.indexOf("*/", i + 2);
+                end = end < 0 ? out.length : end + 2;
+            } else if (c == '"' || c == '\'') {
+                end = i + 1;
+                while (end < out.length && out[end] != c && out[end] != '\n') {
+                    end += out[end] == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, out.length);
+            } else {
+                i++;
+                continue;
+            }
+            for (int j = i; j < end; j++) {
+                if (out[j] != '\n') {
+                    out[j] = ' ';
+                }
+            }
+            i = end;
+        }
+        return new String(out);
+    }
+}
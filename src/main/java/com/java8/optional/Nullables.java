@@ -0,0 +1,89 @@
+package com.java8.optional;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Null-safe navigation through getter chains without wrapping each step in
+ * an {@link java.util.Optional}.
+ *
+ * {@code Nullables.getOrDefault(person, Person::getAddress, Address::getCity, "Unknown")}
+ * is the plain-value equivalent of
+ * {@code Optional.ofNullable(person).map(Person::getAddress).map(Address::getCity).orElse("Unknown")}:
+ * the chain stops at the first {@code null} and nothing is allocated, whether
+ * or not the JIT manages to inline the call site. Overloads take a fixed
+ * number of steps rather than varargs so no array is created either.
+ */
+public final class Nullables {
+
+    private Nullables() {
+    }
+
+    @HotPath
+    public static <T> T orElse(T value, T defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    /** The supplier is only called when the value is {@code null}. */
+    @HotPath
+    public static <T> T orElseGet(T value, Supplier<? extends T> defaultValue) {
+        return value != null ? value : defaultValue.get();
+    }
+
+    /** The step's result, or {@code null} if the root is {@code null}. */
+    @HotPath
+    public static <A, B> B get(A root, Function<? super A, ? extends B> first) {
+        return root == null ? null : first.apply(root);
+    }
+
+    /** The chain's result, or {@code null} if any step yields {@code null}. */
+    @HotPath
+    public static <A, B, C> C get(A root, Function<? super A, ? extends B> first,
+                                  Function<? super B, ? extends C> second) {
+        B b = get(root, first);
+        return b == null ? null : second.apply(b);
+    }
+
+    @HotPath
+    public static <A, B, C, D> D get(A root, Function<? super A, ? extends B> first,
+                                     Function<? super B, ? extends C> second,
+                                     Function<? super C, ? extends D> third) {
+        C c = get(root, first, second);
+        return c == null ? null : third.apply(c);
+    }
+
+    @HotPath
+    public static <A, B, C, D, E> E get(A root, Function<? super A, ? extends B> first,
+                                        Function<? super B, ? extends C> second,
+                                        Function<? super C, ? extends D> third,
+                                        Function<? super D, ? extends E> fourth) {
+        D d = get(root, first, second, third);
+        return d == null ? null : fourth.apply(d);
+    }
+
+    @HotPath
+    public static <A, B> B getOrDefault(A root, Function<? super A, ? extends B> first, B defaultValue) {
+        return orElse(get(root, first), defaultValue);
+    }
+
+    @HotPath
+    public static <A, B, C> C getOrDefault(A root, Function<? super A, ? extends B> first,
+                                           Function<? super B, ? extends C> second, C defaultValue) {
+        return orElse(get(root, first, second), defaultValue);
+    }
+
+    @HotPath
+    public static <A, B, C, D> D getOrDefault(A root, Function<? super A, ? extends B> first,
+                                              Function<? super B, ? extends C> second,
+                                              Function<? super C, ? extends D> third, D defaultValue) {
+        return orElse(get(root, first, second, third), defaultValue);
+    }
+
+    @HotPath
+    public static <A, B, C, D, E> E getOrDefault(A root, Function<? super A, ? extends B> first,
+                                                 Function<? super B, ? extends C> second,
+                                                 Function<? super C, ? extends D> third,
+                                                 Function<? super D, ? extends E> fourth, E defaultValue) {
+        return orElse(get(root, first, second, third, fourth), defaultValue);
+    }
+}
@@ -0,0 +1,79 @@
+package com.java8.optional;
+
+import com.java8.datetime.BenchmarkHarness;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Integer field parsing for CSV imports: {@code Integer.parseInt} wrapped in
+ * {@code Optional<Integer>} versus {@link PrimitiveParsers} returning
+ * {@code OptionalInt}, the {@code long} sentinel, and the bulk column
+ * parsers over a list of fields and over one CSV buffer. One field in a
+ * hundred is malformed. All variants compute the same checksum. The list
+ * rows start from already-split {@code String}s, whose creation a real
+ * import also pays for; the buffer row reads the raw CSV text.
+ */
+public class NumberParseBenchmark {
+
+    private static final int COUNT = 4_000_000;
+
+    public static void main(String[] args) {
+        System.out.println("=== Number Parse Benchmark ===");
+        Random random = new Random(42);
+        List<String> fields = new ArrayList<>(COUNT);
+        StringBuilder csv = new StringBuilder(COUNT * 8);
+        for (int i = 0; i < COUNT; i++) {
+            String field = i % 100 == 7 ? "n/a" : Integer.toString(random.nextInt(2_000_000) - 1_000_000);
+            fields.add(field);
+            csv.append(field).append(i % 4 == 3 ? '\n' : ',');
+        }
+        String[] array = fields.toArray(new String[0]);
+        String text = csv.toString();
+
+        System.out.printf("%-40s %16s%n", "variant", "fields/s");
+        report("Integer.parseInt -> Optional<Integer>", () -> {
+            long sum = 0;
+            for (String field : array) {
+                sum += boxed(field).orElse(0);
+            }
+            return sum;
+        });
+        report("PrimitiveParsers.parseInt -> OptionalInt", () -> {
+            long sum = 0;
+            for (String field : array) {
+                sum += PrimitiveParsers.parseInt(field).orElse(0);
+            }
+            return sum;
+        });
+        report("PrimitiveParsers.parseInt (sentinel)", () -> {
+            long sum = 0;
+            for (String field : array) {
+                long value = PrimitiveParsers.parseInt(field, 0, field.length());
+                sum += value == PrimitiveParsers.INVALID ? 0 : value;
+            }
+            return sum;
+        });
+        report("parseInts(List)", () -> Arrays.stream(PrimitiveParsers.parseInts(fields, false).values())
+                .asLongStream().sum());
+        report("parseInts(List, parallel)", () -> Arrays.stream(PrimitiveParsers.parseInts(fields, true).values())
+                .asLongStream().sum());
+        report("parseInts(CSV buffer)", () -> Arrays.stream(PrimitiveParsers.parseInts(text, ',').values())
+                .asLongStream().sum());
+    }
+
+    private static Optional<Integer> boxed(String field) {
+        try {
+            return Optional.of(Integer.parseInt(field));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static void report(String name, BenchmarkHarness.Run run) {
+        BenchmarkHarness.report(name, 40, COUNT, run);
+    }
+}
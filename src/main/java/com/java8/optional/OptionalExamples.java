@@ -3,6 +3,7 @@ package com.java8.optional;
 import java.util.*;
 import java.util.function.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
@@ -148,6 +149,10 @@ public class OptionalExamples {
                 .orElse("Unknown");
         System.out.println("Null person city: " + nullCity);
         
+        // Same navigation on a hot path, without an Optional per step
+        String fastCity = Nullables.getOrDefault(nullPerson, Person::getAddress, Address::getCity, "Unknown");
+        System.out.println("Null person city (Nullables): " + fastCity);
+        
         System.out.println();
     }
     
@@ -194,6 +199,15 @@ public class OptionalExamples {
                 .reduce(Integer::max);
         System.out.println("Max value: " + max.orElse(0));
         
+        // Primitive reduction: OptionalInt, no Integer per element
+        OptionalInt primitiveMax = IntStream.of(1, 2, 3, 4, 5).max();
+        System.out.println("Primitive max value: " + primitiveMax.orElse(0));
+        
+        // Bulk parsing a CSV column buffer with a failure bitmap
+        ParsedInts column = PrimitiveParsers.parseInts("10,20,x\n30,,40\n", ',');
+        System.out.println("Parsed " + column.size() + " fields, failed rows " + column.failures()
+                + ", sum of valid " + column.validValues().sum());
+        
         System.out.println();
     }
     
@@ -222,6 +236,11 @@ public class OptionalExamples {
         
         System.out.println("Formatted address: " + formattedAddress);
         
+        // Plain-value chaining for nullable references
+        Person plain = new Person("Bob", null);
+        String street = Nullables.getOrDefault(plain, Person::getAddress, Address::getStreet, "No address");
+        System.out.println("Plain chained street: " + street);
+        
         // Conditional chaining
         Optional<String> conditional = Optional.of("test")
                 .filter(s -> s.length() > 3)
@@ -316,9 +335,9 @@ public class OptionalExamples {
     public void optionalWithExceptions() {
         System.out.println("8. Optional with Exceptions:");
         
-        // Wrapping exceptions in Optional
-        Optional<Integer> parsed = parseInteger("123");
-        Optional<Integer> invalid = parseInteger("abc");
+        // Parsing into OptionalInt, without boxing or exceptions
+        OptionalInt parsed = parseInteger("123");
+        OptionalInt invalid = parseInteger("abc");
         
         System.out.println("Valid parse: " + parsed.orElse(-1));
         System.out.println("Invalid parse: " + invalid.orElse(-1));
@@ -369,12 +388,8 @@ public class OptionalExamples {
         return null;
     }
     
-    private Optional<Integer> parseInteger(String value) {
-        try {
-            return Optional.of(Integer.parseInt(value));
-        } catch (NumberFormatException e) {
-            return Optional.empty();
-        }
+    private OptionalInt parseInteger(String value) {
+        return PrimitiveParsers.parseInt(value);
     }
     
     private String riskyOperation() {
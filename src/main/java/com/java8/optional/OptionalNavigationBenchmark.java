@@ -0,0 +1,118 @@
+package com.java8.optional;
+
+import com.java8.datetime.BenchmarkHarness;
+import com.java8.optional.OptionalExamples.Address;
+import com.java8.optional.OptionalExamples.Person;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Null-safe {@code person -> address -> city} navigation: an
+ * {@code Optional.ofNullable(..).map(..).map(..).orElse(..)} chain versus
+ * {@link Nullables#getOrDefault}, and a plain null check as the floor.
+ *
+ * The monomorphic rows use one call site with fixed method references, so
+ * the JIT may inline the chain and let escape analysis remove the
+ * {@code Optional}s (whether it does depends on inlining budgets; check the
+ * bytes/op column). The megamorphic rows route the same work through one
+ * shared helper fed with several different getters; {@code Optional.map}
+ * then sees too many lambda types to inline, and the intermediate
+ * {@code Optional}s are really allocated. Each row also reports the bytes
+ * allocated per navigation by the measuring thread, where the JVM exposes it.
+ */
+public class OptionalNavigationBenchmark {
+
+    private static final int COUNT = 10_000_000;
+    private static final int DISTINCT = 1024;
+
+    private static final Person[] PEOPLE = new Person[DISTINCT];
+
+    /** Four getter pairs, so the shared helpers see four lambda types per step. */
+    private static final List<Function<Person, Address>> FIRST = Arrays.asList(
+            Person::getAddress,
+            p -> p.getAddress(),
+            p -> p.getName().isEmpty() ? null : p.getAddress(),
+            p -> p.getAddress() != null ? p.getAddress() : null
+    );
+    private static final List<Function<Address, String>> SECOND = Arrays.asList(
+            Address::getCity,
+            Address::getStreet,
+            a -> a.getCity(),
+            a -> a.getStreet()
+    );
+
+    public static void main(String[] args) {
+        System.out.println("=== Optional Navigation Benchmark ===");
+        for (int i = 0; i < DISTINCT; i++) {
+            // One in eight people is null, one in eight has no address
+            PEOPLE[i] = i % 8 == 0 ? null
+                    : new Person("p" + i, i % 8 == 1 ? null : new Address(i + " Main St", "City" + (i % 16)));
+        }
+
+        System.out.printf("%-36s %16s %12s%n", "variant", "navigations/s", "bytes/op");
+        report("null checks (monomorphic)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                Person person = PEOPLE[i & (DISTINCT - 1)];
+                Address address = person == null ? null : person.getAddress();
+                String city = address == null ? null : address.getCity();
+                sum += (city != null ? city : "Unknown").length();
+            }
+            return sum;
+        });
+        report("Optional chain (monomorphic)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += Optional.ofNullable(PEOPLE[i & (DISTINCT - 1)])
+                        .map(Person::getAddress)
+                        .map(Address::getCity)
+                        .orElse("Unknown")
+                        .length();
+            }
+            return sum;
+        });
+        report("Nullables (monomorphic)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += Nullables.getOrDefault(PEOPLE[i & (DISTINCT - 1)],
+                        Person::getAddress, Address::getCity, "Unknown").length();
+            }
+            return sum;
+        });
+        report("Optional chain (megamorphic)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += viaOptional(PEOPLE[i & (DISTINCT - 1)], FIRST.get(i & 3), SECOND.get((i >> 2) & 3)).length();
+            }
+            return sum;
+        });
+        report("Nullables (megamorphic)", () -> {
+            long sum = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sum += viaNullables(PEOPLE[i & (DISTINCT - 1)], FIRST.get(i & 3), SECOND.get((i >> 2) & 3)).length();
+            }
+            return sum;
+        });
+    }
+
+    private static String viaOptional(Person person, Function<Person, Address> first,
+                                      Function<Address, String> second) {
+        return Optional.ofNullable(person).map(first).map(second).orElse("Unknown");
+    }
+
+    @HotPath
+    private static String viaNullables(Person person, Function<Person, Address> first,
+                                       Function<Address, String> second) {
+        return Nullables.getOrDefault(person, first, second, "Unknown");
+    }
+
+    private static void report(String name, BenchmarkHarness.Run run) {
+        BenchmarkHarness.Result result = BenchmarkHarness.measure(run);
+        double bytes = result.bytesPer(COUNT);
+        System.out.printf("%-36s %,16.0f %12s   (checksum %d)%n", name, result.perSecond(COUNT),
+                bytes < 0 ? "n/a" : String.format("%.1f", bytes), result.getChecksum());
+    }
+}
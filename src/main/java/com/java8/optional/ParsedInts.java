@@ -0,0 +1,86 @@
+package com.java8.optional;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+/**
+ * A column of parsed ints: the values in one {@code int[]} and the rows
+ * that failed to parse in a bitmap of {@code long} words. A failed row's
+ * value is 0. Built by {@link PrimitiveParsers}; the arrays are shared, not
+ * copied.
+ */
+public final class ParsedInts {
+
+    private final int[] values;
+    private final long[] failures;
+    private final int size;
+    private final int failureCount;
+
+    ParsedInts(int[] values, long[] failures, int size) {
+        this.values = values;
+        this.failures = failures;
+        this.size = size;
+        int count = 0;
+        for (int i = 0; i < words(size); i++) {
+            count += Long.bitCount(failures[i]);
+        }
+        this.failureCount = count;
+    }
+
+    static int words(int size) {
+        return (size + 63) >>> 6;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int failureCount() {
+        return failureCount;
+    }
+
+    public boolean isValid(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("row " + row + ", size " + size);
+        }
+        return (failures[row >>> 6] & 1L << row) == 0;
+    }
+
+    /** The row's value, or 0 if it failed to parse. */
+    public int get(int row) {
+        return isValid(row) ? values[row] : 0;
+    }
+
+    public OptionalInt find(int row) {
+        return isValid(row) ? OptionalInt.of(values[row]) : OptionalInt.empty();
+    }
+
+    /** All values, with 0 for failed rows; trimmed to {@link #size()} (a copy only if needed). */
+    public int[] values() {
+        return values.length == size ? values : Arrays.copyOf(values, size);
+    }
+
+    /** The values of the rows that parsed, in row order. */
+    public IntStream validValues() {
+        if (failureCount == 0) {
+            return Arrays.stream(values, 0, size);
+        }
+        return IntStream.range(0, size).filter(row -> (failures[row >>> 6] & 1L << row) == 0).map(row -> values[row]);
+    }
+
+    /** Indices of the rows that failed, ascending. */
+    public IntStream failedRows() {
+        return failures().stream();
+    }
+
+    public BitSet failures() {
+        return BitSet.valueOf(Arrays.copyOf(failures, words(size)));
+    }
+
+    @Override
+    public String toString() {
+        return "ParsedInts{size=" + size + ", failures=" + failureCount + "}";
+    }
+}
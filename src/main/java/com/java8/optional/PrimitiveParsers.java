@@ -0,0 +1,226 @@
+package com.java8.optional;
+
+import com.java8.datetime.ParallelChunks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * Exception-free parsing of decimal numbers into primitives, for imports
+ * where a malformed field is an expected outcome rather than an error.
+ *
+ * {@code Integer.parseInt} wrapped in {@code Optional.of} boxes every value
+ * and pays for a {@code NumberFormatException} (with its stack trace) on
+ * every bad field. Here integers are read directly from the characters:
+ * single values come back as {@link OptionalInt}/{@link OptionalLong}, or as
+ * a {@code long} that is {@link #INVALID} on failure, and whole columns go
+ * into a {@link ParsedInts} with a failure bitmap. Accepted syntax is an
+ * optional {@code +} or {@code -} followed by ASCII digits, with no
+ * whitespace; out-of-range values are failures.
+ */
+public final class PrimitiveParsers {
+
+    /** Returned by {@link #parseInt(CharSequence, int, int)} for anything that is not an int. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /** Returned by {@link #negativeMagnitude} for anything that is not a long. */
+    private static final long NOT_A_LONG = 1;
+
+    private PrimitiveParsers() {
+    }
+
+    public static OptionalInt parseInt(CharSequence text) {
+        long value = parseInt(text, 0, text.length());
+        return value == INVALID ? OptionalInt.empty() : OptionalInt.of((int) value);
+    }
+
+    /**
+     * The int in {@code text[from, to)} widened to a long, or {@link #INVALID};
+     * no object is created either way.
+     */
+    @HotPath
+    public static long parseInt(CharSequence text, int from, int to) {
+        if (from >= to) {
+            return INVALID;
+        }
+        char first = text.charAt(from);
+        boolean negative = first == '-';
+        int i = negative || first == '+' ? from + 1 : from;
+        if (i == to) {
+            return INVALID;
+        }
+        // At most 2^31 before each multiply, so the long cannot overflow
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            value = value * 10 + digit;
+            if (value > 1L << 31) {
+                return INVALID;
+            }
+        }
+        if (negative) {
+            return -value;
+        }
+        return value == 1L << 31 ? INVALID : value;
+    }
+
+    /** The int in the text, or {@code defaultValue} if it is not one. */
+    @HotPath
+    public static int parseInt(CharSequence text, int defaultValue) {
+        long value = parseInt(text, 0, text.length());
+        return value == INVALID ? defaultValue : (int) value;
+    }
+
+    public static OptionalLong parseLong(CharSequence text) {
+        long magnitude = negativeMagnitude(text, 0, text.length());
+        if (magnitude == NOT_A_LONG) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(text.charAt(0) == '-' ? magnitude : -magnitude);
+    }
+
+    /** The long in {@code text[from, to)}, or {@code defaultValue} if it is not one. */
+    @HotPath
+    public static long parseLong(CharSequence text, int from, int to, long defaultValue) {
+        long magnitude = negativeMagnitude(text, from, to);
+        if (magnitude == NOT_A_LONG) {
+            return defaultValue;
+        }
+        return text.charAt(from) == '-' ? magnitude : -magnitude;
+    }
+
+    /**
+     * Minus the absolute value of the long in {@code text[from, to)}, or
+     * {@link #NOT_A_LONG}. Accumulated negatively, since
+     * {@code Long.MIN_VALUE} has no positive counterpart; a valid result is
+     * never positive, so failure needs no separate flag.
+     */
+    private static long negativeMagnitude(CharSequence text, int from, int to) {
+        if (from >= to) {
+            return NOT_A_LONG;
+        }
+        char first = text.charAt(from);
+        boolean negative = first == '-';
+        int i = negative || first == '+' ? from + 1 : from;
+        if (i == to) {
+            return NOT_A_LONG;
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value < limit / 10) {
+                return NOT_A_LONG;
+            }
+            value *= 10;
+            if (value < limit + digit) {
+                return NOT_A_LONG;
+            }
+            value -= digit;
+        }
+        return value;
+    }
+
+    /**
+     * Delegates to {@link Double#parseDouble}, so the full Java syntax is
+     * accepted; only the exception is hidden, not its cost.
+     */
+    public static OptionalDouble parseDouble(CharSequence text) {
+        try {
+            return OptionalDouble.of(Double.parseDouble(text.toString()));
+        } catch (NumberFormatException e) {
+            return OptionalDouble.empty();
+        }
+    }
+
+    /** Parses every string; {@code null} elements are failures. */
+    public static ParsedInts parseInts(List<String> fields, boolean parallel) {
+        int size = fields.size();
+        int[] values = new int[size];
+        long[] failures = new long[ParsedInts.words(size)];
+        // Chunks start at multiples of 64, so parallel chunks never share a bitmap word
+        ParallelChunks.forEach(size, parallel, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                String field = fields.get(i);
+                long value = field == null ? INVALID : parseInt(field, 0, field.length());
+                if (value == INVALID) {
+                    failures[i >>> 6] |= 1L << i;
+                } else {
+                    values[i] = (int) value;
+                }
+            }
+        });
+        return new ParsedInts(values, failures, size);
+    }
+
+    /**
+     * Parses delimiter-separated fields, with line breaks ({@code \n} or
+     * {@code \r\n}) also ending a field, so a whole CSV buffer of integer
+     * columns is read row by row into one array. Each field is scanned once,
+     * accumulating digits on the way to its terminator. An empty field is a
+     * failure; a trailing line break does not start another field.
+     */
+    @HotPath
+    public static ParsedInts parseInts(CharSequence buffer, char delimiter) {
+        int length = buffer.length();
+        int[] values = new int[Math.max(16, length / 8)];
+        long[] failures = new long[ParsedInts.words(values.length)];
+        int count = 0;
+        int pos = 0;
+        while (length > 0) {
+            int i = pos;
+            boolean negative = false;
+            if (i < length) {
+                char sign = buffer.charAt(i);
+                if (sign == '-' || sign == '+') {
+                    negative = sign == '-';
+                    i++;
+                }
+            }
+            int digits = i;
+            long value = 0;
+            for (; i < length; i++) {
+                int digit = buffer.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                // Clamped once out of range, so long runs of digits cannot overflow
+                value = Math.min(value * 10 + digit, 1L << 32);
+            }
+            boolean valid = i > digits && (value < 1L << 31 || negative && value == 1L << 31);
+            // i is at the terminator, a "\r\n", or garbage that voids the field
+            if (i < length) {
+                char c = buffer.charAt(i);
+                if (c == '\r' && i + 1 < length && buffer.charAt(i + 1) == '\n') {
+                    i++;
+                } else if (c != delimiter && c != '\n') {
+                    valid = false;
+                    while (i < length && (c = buffer.charAt(i)) != delimiter && c != '\n') {
+                        i++;
+                    }
+                }
+            }
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                failures = Arrays.copyOf(failures, ParsedInts.words(values.length));
+            }
+            if (valid) {
+                values[count] = (int) (negative ? -value : value);
+            } else {
+                failures[count >>> 6] |= 1L << count;
+            }
+            count++;
+            if (i >= length - 1 && (i == length || buffer.charAt(i) == '\n')) {
+                break;
+            }
+            pos = i + 1;
+        }
+        return new ParsedInts(values, failures, count);
+    }
+}
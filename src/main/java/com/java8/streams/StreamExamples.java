@@ -1,5 +1,7 @@
 package com.java8.streams;
 
+import com.java8.datetime.NanoClock;
+
 import java.util.*;
 import java.util.concurrent.ForkJoinPool;
 import java.util.stream.*;
@@ -9,6 +11,8 @@ import java.util.stream.*;
  */
 public class StreamExamples {
     
+    private static final NanoClock CLOCK = NanoClock.monotonic();
+    
     public static void main(String[] args) {
         StreamExamples examples = new StreamExamples();
         
@@ -240,18 +244,18 @@ public class StreamExamples {
                 .collect(Collectors.toList());
         
         // Sequential processing
-        long startTime = System.currentTimeMillis();
+        long startTime = CLOCK.nanoTime();
         long sequentialSum = numbers.stream()
                 .mapToLong(Integer::longValue)
                 .sum();
-        long sequentialTime = System.currentTimeMillis() - startTime;
+        long sequentialTime = CLOCK.elapsedMillis(startTime);
         
         // Parallel processing
-        startTime = System.currentTimeMillis();
+        startTime = CLOCK.nanoTime();
         long parallelSum = numbers.parallelStream()
                 .mapToLong(Integer::longValue)
                 .sum();
-        long parallelTime = System.currentTimeMillis() - startTime;
+        long parallelTime = CLOCK.elapsedMillis(startTime);
         
         System.out.println("Sequential sum: " + sequentialSum + " (Time: " + sequentialTime + "ms)");
         System.out.println("Parallel sum: " + parallelSum + " (Time: " + parallelTime + "ms)");
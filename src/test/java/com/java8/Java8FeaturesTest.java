@@ -2,14 +2,114 @@ package com.java8;
 
 import com.java8.lambda.LambdaExamples;
 import com.java8.streams.StreamExamples;
+import com.java8.optional.HotPathLint;
+import com.java8.optional.Nullables;
 import com.java8.optional.OptionalExamples;
+import com.java8.optional.ParsedInts;
+import com.java8.optional.PrimitiveParsers;
 import com.java8.methodreferences.MethodReferenceExamples;
+import com.java8.datetime.BusinessCalendar;
+import com.java8.datetime.DateRange;
+import com.java8.datetime.DateRangeIndex;
 import com.java8.datetime.DateTimeExamples;
+import com.java8.datetime.DurationCollectors;
+import com.java8.datetime.DurationHistogram;
+import com.java8.datetime.LogLinearBuckets;
+import com.java8.datetime.DurationStatistics;
+import com.java8.datetime.DateTimeFormatterRegistry;
+import com.java8.datetime.CachedClock;
+import com.java8.datetime.FixedWidthFormat;
+import com.java8.datetime.LegacyDateConverter;
+import com.java8.datetime.NanoClock;
+import com.java8.datetime.PackedDateTime;
+import com.java8.datetime.PackedPeriod;
+import com.java8.datetime.PeriodCalculator;
+import com.java8.datetime.RecurrenceRule;
+import com.java8.datetime.TestClock;
+import com.java8.datetime.ZoneOffsetTable;
+import com.java8.datetime.ZoneService;
 import com.java8.defaultmethods.DefaultMethodExamples;
 import com.java8.completablefuture.CompletableFutureExamples;
+import com.java8.completablefuture.InstrumentedExecutorService;
+import com.java8.completablefuture.LatencyHistogram;
+import com.java8.completablefuture.WorkStealingExecutor;
+import com.java8.nashorn.CompiledExpression;
+import com.java8.nashorn.ExpressionCompiler;
+import com.java8.nashorn.ExpressionScriptEngine;
+import com.java8.nashorn.JsonReader;
+import com.java8.nashorn.JsonWriter;
+import com.java8.nashorn.LazyJson;
 import com.java8.nashorn.NashornExamples;
+import com.java8.nashorn.ParallelScriptExecutor;
+import com.java8.nashorn.SandboxedScriptRunner;
+import com.java8.nashorn.ScriptBackend;
+import com.java8.nashorn.ScriptBatchInvoker;
+import com.java8.nashorn.ScriptBudgetExceededException;
+import com.java8.nashorn.ScriptFunctionCache;
+import com.java8.nashorn.ScriptLoopGuard;
+import com.java8.nashorn.ScriptService;
+import com.java8.nashorn.ScriptWarmup;
+import com.java8.nashorn.TypedArrayView;
+import com.java8.nashorn.TypedArrays;
+import com.java8.nashorn.ValidationRule;
+import com.java8.nashorn.ValidationService;
 import org.junit.Test;
 
+import javax.script.Bindings;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
 /**
  * Basic tests for Java 8 features examples
  */
@@ -70,4 +170,1135 @@ public class Java8FeaturesTest {
         // Basic test to ensure the class can be instantiated
         assert examples != null;
     }
-} 
\ No newline at end of file
+    
+    @Test
+    public void testInstrumentedExecutorService() throws Exception {
+        InstrumentedExecutorService executor = new InstrumentedExecutorService("test",
+                Executors.newFixedThreadPool(2));
+        for (int i = 0; i < 20; i++) {
+            CompletableFuture.supplyAsync(() -> "task", executor).join();
+        }
+        // Failures captured by a future instead of thrown are still counted
+        assert executor.supplyAsync(() -> "tracked").join().equals("tracked");
+        CompletableFuture<String> failing = executor.supplyAsync(() -> {
+            throw new IllegalStateException("boom");
+        });
+        try {
+            failing.join();
+            assert false;
+        } catch (CompletionException e) {
+            assert e.getCause() instanceof IllegalStateException;
+        }
+        try {
+            executor.submit(() -> {
+                throw new IllegalStateException("boom");
+            }).get();
+            assert false;
+        } catch (ExecutionException e) {
+            assert e.getCause() instanceof IllegalStateException;
+        }
+        executor.runAsync(() -> { }).join();
+        // Cancelling the returned future keeps a queued task from running
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<Void>> blockers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            blockers.add(executor.runAsync(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        AtomicInteger ran = new AtomicInteger();
+        CompletableFuture<Integer> cancelled = executor.supplyAsync(ran::incrementAndGet);
+        assert cancelled.cancel(false);
+        release.countDown();
+        CompletableFuture.allOf(blockers.toArray(new CompletableFuture<?>[0])).join();
+        executor.shutdown();
+        assert executor.awaitTermination(5, TimeUnit.SECONDS);
+        assert ran.get() == 0;
+        assert executor.getCompletedCount() == 25 : executor.snapshot();
+        assert executor.getFailedCount() == 2 : executor.snapshot();
+        assert executor.getQueueLatency().getCount() == 27;
+        assert executor.getRunLatency().getCount() == 27;
+        assert executor.getQueuedCount() == 0 && executor.getRunningCount() == 0;
+        
+        // The last bucket holds Long.MAX_VALUE
+        assert LogLinearBuckets.indexOf(Long.MAX_VALUE) == LogLinearBuckets.COUNT - 1;
+        assert LogLinearBuckets.highestEquivalentValue(LogLinearBuckets.COUNT - 1) == Long.MAX_VALUE;
+        LatencyHistogram extremes = new LatencyHistogram();
+        extremes.record(Long.MAX_VALUE);
+        assert extremes.getValueAtPercentile(100) == Long.MAX_VALUE;
+    }
+    
+    @Test
+    public void testWorkStealingExecutor() throws Exception {
+        WorkStealingExecutor executor = new WorkStealingExecutor(1, false, "steal-test");
+        try {
+            assert !executor.isWorkerThread();
+            // External submissions go through the pool's submission queue
+            String externalThread = CompletableFuture.supplyAsync(() -> Thread.currentThread().getName(), executor)
+                    .get(5, TimeUnit.SECONDS);
+            assert externalThread.startsWith("steal-test-");
+            // Submissions from a worker are pushed onto its own deque
+            int[] localQueue = new int[1];
+            CompletableFuture.runAsync(() -> {
+                assert executor.isWorkerThread();
+                executor.execute(() -> { });
+                localQueue[0] = ForkJoinTask.getQueuedTaskCount();
+            }, executor).get(5, TimeUnit.SECONDS);
+            assert localQueue[0] == 1;
+        } finally {
+            executor.shutdown();
+        }
+        
+        // A chain of 40 continuations, each scheduling the next from inside itself.
+        // One worker, so forked stages only start once the current stack unwinds.
+        for (boolean inline : new boolean[] {false, true}) {
+            WorkStealingExecutor chained = new WorkStealingExecutor(1, inline, "inline-test");
+            AtomicInteger active = new AtomicInteger();
+            AtomicInteger deepest = new AtomicInteger();
+            AtomicInteger remaining = new AtomicInteger(40);
+            CountDownLatch done = new CountDownLatch(40);
+            Runnable[] stage = new Runnable[1];
+            stage[0] = () -> {
+                deepest.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    if (remaining.decrementAndGet() > 0) {
+                        chained.continuations().execute(stage[0]);
+                    }
+                } finally {
+                    active.decrementAndGet();
+                    done.countDown();
+                }
+            };
+            chained.execute(stage[0]);
+            assert done.await(5, TimeUnit.SECONDS);
+            chained.shutdown();
+            // Inlined up to the depth bound of 16 below the first stage, then re-dispatched
+            assert deepest.get() == (inline ? 17 : 1) : inline + ": " + deepest.get();
+        }
+        
+        // Tasks executed from a worker report failures and are rejected after shutdown
+        List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+        CountDownLatch reported = new CountDownLatch(1);
+        WorkStealingExecutor reporting = new WorkStealingExecutor(1, false, "report-test");
+        try {
+            CountDownLatch submitted = new CountDownLatch(1);
+            CountDownLatch shutDown = new CountDownLatch(1);
+            CompletableFuture<Void> afterShutdown = CompletableFuture.runAsync(() -> {
+                // The single worker runs the failing task too
+                Thread.currentThread().setUncaughtExceptionHandler((thread, e) -> {
+                    uncaught.add(e);
+                    reported.countDown();
+                });
+                reporting.execute(() -> {
+                    throw new IllegalStateException("lost continuation");
+                });
+                submitted.countDown();
+                try {
+                    assert shutDown.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                reporting.execute(() -> { });
+            }, reporting);
+            assert submitted.await(5, TimeUnit.SECONDS);
+            reporting.shutdown();
+            shutDown.countDown();
+            try {
+                afterShutdown.get(5, TimeUnit.SECONDS);
+                assert false : "task accepted after shutdown";
+            } catch (ExecutionException e) {
+                assert e.getCause() instanceof RejectedExecutionException : e.getCause();
+            }
+            assert reporting.awaitTermination(5, TimeUnit.SECONDS);
+            // The failing worker thread reports after it has left the pool
+            assert reported.await(5, TimeUnit.SECONDS);
+            assert uncaught.size() == 1 && "lost continuation".equals(uncaught.get(0).getMessage()) : uncaught;
+        } finally {
+            reporting.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void testExpressionScriptEngine() throws ScriptException {
+        ExpressionScriptEngine engine = new ExpressionScriptEngine();
+        assert Integer.valueOf(14).equals(engine.eval("2 + 3 * 4"));
+        
+        Bindings bindings = engine.createBindings();
+        bindings.put("x", 10);
+        bindings.put("y", 20);
+        assert Integer.valueOf(50).equals(engine.eval("x + y * 2", bindings));
+        assert Boolean.TRUE.equals(engine.eval("x < y && !(x === 0)", bindings));
+        assert Double.valueOf(2.5).equals(engine.eval("x > 5 ? x / 4 : 0", bindings));
+    }
+    
+    @Test
+    public void testExpressionCompiler() throws ScriptException {
+        CompiledExpression pricing = ExpressionCompiler.compile("a * b + c");
+        assert pricing.getVariables().length == 3 && pricing.slotOf("c") == 2;
+        assert pricing.evaluateNumber(5, 3, 10) == 25.0;
+        assert Integer.valueOf(25).equals(pricing.evaluate(5, 3, 10));
+        
+        CompiledExpression rule = ExpressionCompiler.compile("qty >= 10 && price < 100");
+        assert rule.isBoolean();
+        assert rule.evaluateBoolean(12, 99.5);
+        assert !rule.evaluateBoolean(9, 50);
+        
+        assert Integer.valueOf(14).equals(ExpressionCompiler.compile("2 + 3 * 4").evaluate());
+        assert ExpressionCompiler.tryCompile("x > 1 ? true : 0") == null;
+        assert ExpressionCompiler.tryCompile("Math.sqrt(x)") == null;
+    }
+    
+    @Test
+    public void testParallelScriptExecutor() throws ScriptException {
+        List<Map<String, Object>> inputs = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            inputs.add(Collections.singletonMap("x", i));
+        }
+        try (ParallelScriptExecutor executor = new ParallelScriptExecutor(ScriptBackend.EXPRESSION, 4)) {
+            List<CompletableFuture<Object>> results = executor.submitAll("x * 2 + 1", inputs);
+            for (int i = 0; i < results.size(); i++) {
+                assert ((Number) results.get(i).join()).intValue() == i * 2 + 1;
+            }
+        }
+        
+        ScriptBackend javaScript = ScriptBackend.selected();
+        if (!javaScript.isJavaScript()) {
+            return;
+        }
+        // One worker, so every task reuses the same global object
+        try (ParallelScriptExecutor executor = new ParallelScriptExecutor(javaScript, 1,
+                "function scale(v) { return v * 10; }")) {
+            assert ((Number) executor.submit("scale(y)", Collections.singletonMap("y", 4)).join()).intValue() == 40;
+            assert "undefined".equals(executor.submit("typeof y", null).join());
+            assert "undefined".equals(executor.submit("typeof z", Collections.singletonMap("y", 1)).join());
+            // A variable may shadow a setup function for one task only
+            assert "number".equals(executor.submit("typeof scale", Collections.singletonMap("scale", 1)).join());
+            assert ((Number) executor.submit("scale(2)", null).join()).intValue() == 20;
+        }
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testJsonReaderAndWriter() throws ScriptException {
+        String json = "{\"name\":\"Zo\\u00eb \\\"Z\\\"\",\"age\":30,\"score\":-1.5e2,"
+                + "\"tags\":[\"a\",true,null,{\"k\":[]}],\"city\":\"Montr\u00e9al\"}";
+        
+        Map<String, Object> eager = (Map<String, Object>) JsonReader.parse(json);
+        assert "Zo\u00eb \"Z\"".equals(eager.get("name"));
+        assert Integer.valueOf(30).equals(eager.get("age"));
+        assert Double.valueOf(-150.0).equals(eager.get("score"));
+        assert ((List<Object>) eager.get("tags")).size() == 4;
+        
+        Map<String, Object> fromBytes = (Map<String, Object>) JsonReader.parse(
+                ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+        assert eager.equals(fromBytes);
+        
+        Map<String, Object> lazy = (Map<String, Object>) LazyJson.parse(json);
+        assert eager.equals(lazy);
+        assert JsonWriter.stringify(eager).equals(JsonWriter.stringify(lazy));
+        assert JsonWriter.stringify(JsonReader.parse(JsonWriter.stringify(eager, 2)))
+                .equals(JsonWriter.stringify(eager));
+        
+        // Numbers print like JavaScript's, not like Double.toString
+        List<Double> numbers = Arrays.asList(1e-7, 1.5e20, 1e21, 0.000001, 123.456, -2.5e-10, 1e15, -0.0,
+                Double.MAX_VALUE, 5e-324, 0.1 + 0.2, 0.001, 1e15 + 0.5, 2.2250738585072014e-308);
+        String written = JsonWriter.stringify(numbers);
+        assert ("[1e-7,150000000000000000000,1e+21,0.000001,123.456,-2.5e-10,1000000000000000,0,"
+                + "1.7976931348623157e+308,5e-324,0.30000000000000004,0.001,1000000000000000.5,"
+                + "2.2250738585072014e-308]").equals(written) : written;
+        ScriptEngine nashorn = ScriptBackend.createJavaScriptEngine();
+        if (nashorn != null) {
+            assert written.equals(nashorn.eval("JSON.stringify([1e-7, 1.5e20, 1e21, 0.000001, 123.456, -2.5e-10, "
+                    + "1e15, -0, 1.7976931348623157e308, 5e-324, 0.1 + 0.2, 0.001, 1e15 + 0.5, "
+                    + "2.2250738585072014e-308])")) : written;
+        }
+        
+        // Strict like JSON.parse: no leading zeros, bare '.' or exponent, or raw control characters
+        assert Double.valueOf(-0.5).equals(JsonReader.parse("-0.5"));
+        assert Double.valueOf(100.0).equals(JsonReader.parse("1E+2"));
+        assert Integer.valueOf(0).equals(((List<?>) JsonReader.parse("[0]")).get(0));
+        for (String malformed : new String[] {"01", "-01", "1.", "1.e5", "1e", "1e+", "-", "1-2",
+                "\"a\u0001b\"", "[\"tab\there\"]"}) {
+            try {
+                JsonReader.parse(malformed);
+                assert false : malformed;
+            } catch (IllegalArgumentException expected) {
+                assert expected.getMessage().startsWith("Malformed JSON") : malformed;
+            }
+        }
+        assert "a\tb".equals(JsonReader.parse("\"a\\tb\""));
+    }
+    
+    @Test
+    public void testValidationService() throws ScriptException {
+        ValidationService validation = new ValidationService()
+                .register(ValidationRule.regex("zip", "\\d{5}"));
+        assert validation.validate("email", "john@example.com");
+        assert !validation.validate("email", "john@example");
+        assert !validation.validate("email", "jo hn@example.com");
+        assert validation.validate("phone", "+1234567890");
+        assert !validation.validate("phone", "0123");
+        assert validation.validate("zip", "12345") && !validation.validate("zip", "123456");
+        
+        List<String> values = Arrays.asList("a@b.co", "nope", "x@y.org", null);
+        boolean[] results = validation.validateAll("email", values);
+        assert results[0] && !results[1] && results[2] && !results[3];
+        assert validation.getCheckedCount("email") == 4;
+        assert new ValidationService().getCheckedCount("email") == 0 : "stats are per service";
+        validation.validateAll("zip", values, false);
+        assert validation.getCheckedCount("zip") == 4 && validation.report().contains("zip: 4 checked");
+        
+        // The per-thread matcher lets go of the last value it checked
+        StringBuilder checkedValue = new StringBuilder("kept@example.com");
+        assert validation.validate("email", checkedValue);
+        WeakReference<StringBuilder> lastValue = new WeakReference<>(checkedValue);
+        checkedValue = null;
+        for (int i = 0; i < 10 && lastValue.get() != null; i++) {
+            System.gc();
+        }
+        assert lastValue.get() == null;
+        
+        // JavaScript semantics: ASCII \d, '$' not before a trailing newline, JS whitespace for \s
+        assert !validation.validate("phone", "+1\u0662\u0663\u0664");
+        assert !validation.validate("phone", "+1234567890\n");
+        assert !validation.validate("email", "a@b.c\n");
+        assert !validation.validate("email", "a\u00A0b@c.de") && validation.validate("email", "a\u0085b@c.de");
+        ValidationRule brackets = ValidationRule.javaScriptRegex("brackets", "/^[^]x[]?$|^\\S+$/m");
+        assert brackets.test("\nx") && brackets.test("ab\ncd") && !brackets.test(" ");
+        
+        ScriptEngine nashorn = ScriptBackend.createJavaScriptEngine();
+        if (nashorn != null) {
+            Object[] inputs = {"+1\u0662\u0663\u0664", "+1234567890\n", "a@b.c\n", "a\u00A0b@c.de",
+                    "a\u0085b@c.de", "john@example.com", "+1234567890", "x@y\u2028z.org"};
+            for (Object input : inputs) {
+                nashorn.put("input", input);
+                assert Boolean.TRUE.equals(nashorn.eval("/^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$/.test(input)"))
+                        == ValidationService.EMAIL.test((String) input) : input;
+                assert Boolean.TRUE.equals(nashorn.eval("/^\\+?[1-9]\\d{1,14}$/.test(input)"))
+                        == ValidationService.PHONE.test((String) input) : input;
+            }
+        }
+    }
+    
+    @Test
+    public void testScriptWarmup() throws Exception {
+        Path dir = Files.createTempDirectory("warmup-test");
+        Files.write(dir.resolve("total.expr"), "price * qty".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("flag.expr"), "a > b".getBytes(StandardCharsets.UTF_8));
+        Files.write(dir.resolve("flag.inputs.json"),
+                "[{\"a\":2,\"b\":1}]".getBytes(StandardCharsets.UTF_8));
+        
+        List<ScriptWarmup.Script> scripts = ScriptWarmup.loadDirectory(dir);
+        assert scripts.size() == 2 && "flag".equals(scripts.get(0).getName());
+        assert scripts.get(0).getInputs().size() == 1;
+        assert !scripts.get(1).getInputs().isEmpty();
+        
+        assert ScriptWarmup.configuredCodeCache().length == 0;
+        ScriptService service = new ScriptService(ScriptBackend.EXPRESSION, 2, 16, ScriptWarmup.configuredCodeCache());
+        ScriptWarmup.Report report = new ScriptWarmup(service).evalsPerRound(50).maxRounds(5).run(dir);
+        assert report.getScripts() == 2 && report.getRounds() >= 1 && report.getRounds() <= 5;
+        assert service.getStats().getCacheMisses() == 4;
+        assert report.getEvaluations() == report.getRounds() * 100L;
+        
+        service.close();
+        try {
+            service.eval("price * qty");
+            assert false : "closed service still evaluated";
+        } catch (ScriptException expected) {
+            // engines released
+        }
+        for (ScriptWarmup.Script script : scripts) {
+            Files.delete(dir.resolve(script.getName() + ".expr"));
+        }
+        Files.delete(dir.resolve("flag.inputs.json"));
+        Files.delete(dir);
+    }
+    
+    @Test
+    public void testSandboxedScriptRunner() throws ScriptException {
+        if (!ScriptBackend.selected().isJavaScript()) {
+            return;
+        }
+        SandboxedScriptRunner.Budget budget = SandboxedScriptRunner.Budget.unlimited()
+                .cpuTime(100, TimeUnit.MILLISECONDS);
+        try (SandboxedScriptRunner sandbox = new SandboxedScriptRunner(ScriptBackend.selected(), budget,
+                Collections.singleton("ArrayList"), 1)) {
+            try {
+                sandbox.eval("while (true) {}", null);
+                assert false : "runaway script was not terminated";
+            } catch (ScriptBudgetExceededException e) {
+                assert e.getLimit() == ScriptBudgetExceededException.Limit.CPU_TIME;
+            }
+            assert ((Number) sandbox.eval("x + 1", Collections.singletonMap("x", 1))).intValue() == 2;
+            // The loop guard ends the thread without Thread.stop, even when the script catches errors
+            String nested = "for (var i = 0; ; i++) { try { do { i++; } while (true); } catch (e) {} }";
+            try {
+                sandbox.eval(nested, null);
+                assert false : "nested runaway script was not terminated";
+            } catch (ScriptBudgetExceededException e) {
+                assert e.getLimit() == ScriptBudgetExceededException.Limit.CPU_TIME;
+            }
+            assert sandbox.eval("var n = 0; while (n < 5000) { n++; } n", null).toString().startsWith("5000");
+            try {
+                sandbox.eval("function fib(n) { return n < 2 ? n : fib(n - 1) + fib(n - 2); } fib(60)", null);
+                assert false : "runaway recursion was not terminated";
+            } catch (ScriptBudgetExceededException expected) {
+                // guarded on function entry
+            }
+            try {
+                sandbox.eval("__sandboxGuard = function () { return true; }; while (true) {}", null);
+                assert false : "reassigned guard escaped the budget";
+            } catch (ScriptBudgetExceededException expected) {
+                // the guard is read-only
+            }
+            try {
+                sandbox.eval("Java.type('java.lang.System')", null);
+                assert false : "class outside the whitelist was reachable";
+            } catch (ScriptException | RuntimeException expected) {
+                // not on the whitelist
+            }
+            // Code created at run time is instrumented as well, so the abandoned worker exits
+            for (String escape : new String[] {"eval('while (true) {}')", "Function('while (true) {}')()",
+                    "(function () {}).constructor('while (true) {}')()", "engine.eval('while (true) {}')"}) {
+                try {
+                    sandbox.eval(escape, null);
+                    assert false : escape;
+                } catch (ScriptBudgetExceededException expected) {
+                    // guarded
+                } catch (ScriptException | RuntimeException expected) {
+                    assert escape.startsWith("engine") : escape;
+                }
+            }
+            assert ((Number) sandbox.eval("new Function('a', 'b', 'return a + b')(2, 3)", null)).intValue() == 5;
+            assert ((Number) sandbox.eval("eval('var k = 0; while (k < 10) k++; k')", null)).intValue() == 10;
+            assert sandbox.getTerminatedCount() == 7;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (runningSandboxWorkers() > 0 && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assert runningSandboxWorkers() == 0 : "an abandoned sandbox worker kept running";
+        }
+        assert ScriptLoopGuard.instrument("x + 1").equals("x + 1");
+        assert ScriptLoopGuard.instrument("var f = function (a) { return a.function(a); }")
+                .equals("var f = function (a) { __sandboxGuard(); return a.function(a); }");
+        assert ScriptLoopGuard.instrument("while (a) f('while (b)');")
+                .equals("while ( __sandboxGuard() && (a)) f('while (b)');");
+        assert ScriptLoopGuard.instrument("for (;;) {} for (k in o) {} do {} while (/[)]/.test(s))")
+                .equals("for (; __sandboxGuard() ;) {} for (k in o) {} "
+                        + "do {} while ( __sandboxGuard() && (/[)]/.test(s)))");
+    }
+    
+    private static long runningSandboxWorkers() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().matches("script-sandbox-\\d+") && t.getState() == Thread.State.RUNNABLE)
+                .count();
+    }
+    
+    @Test
+    public void testScriptBatchInvoker() throws ScriptException {
+        ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
+        if (engine == null) {
+            return;
+        }
+        String setup = "function square(x) { return x * x; } function even(x) { return x % 2 === 0; }";
+        engine.eval(setup);
+        // More than one chunk, with a partial last chunk
+        int[] ints = IntStream.range(0, 20_000).toArray();
+        double[] doubles = IntStream.range(0, 20_000).mapToDouble(i -> i / 2.0).toArray();
+        try (ScriptBatchInvoker squares = ScriptBatchInvoker.create(engine, "square")) {
+            int[] intSquares = squares.applyAsInt(ints);
+            assert intSquares.length == ints.length && intSquares[3] == 9 && intSquares[19_999] == 19_999 * 19_999;
+            double[] doubleSquares = squares.applyAsDouble(doubles);
+            assert doubleSquares[3] == 2.25 && doubleSquares[19_999] == 9999.5 * 9999.5;
+            List<Object> fromList = squares.apply(Arrays.asList(1, 2.5, 3));
+            assert fromList.size() == 3 && ((Number) fromList.get(1)).doubleValue() == 6.25;
+            try (Stream<Object> fromStream = squares.apply(IntStream.range(0, 20_000).boxed())) {
+                List<Object> values = fromStream.collect(Collectors.toList());
+                assert values.size() == 20_000 && ((Number) values.get(19_999)).intValue() == 19_999 * 19_999;
+            }
+        }
+        try (ScriptBatchInvoker evens = ScriptBatchInvoker.create(engine, "even")) {
+            boolean[] flags = evens.applyAsBoolean(ints);
+            assert flags[0] && !flags[1] && flags[19_998];
+        }
+        
+        try (ScriptBatchInvoker parallel = ScriptBatchInvoker.parallel(ScriptBackend::createJavaScriptEngine,
+                setup, "square", 3)) {
+            assert parallel.getWorkerCount() == 3;
+            int[] large = IntStream.range(0, 100_000).toArray();
+            int[] expected = Arrays.stream(large).map(i -> i * i).toArray();
+            assert Arrays.equals(parallel.applyAsInt(large), expected);
+        }
+        try (ScriptBatchInvoker failing = ScriptBatchInvoker.parallel(ScriptBackend::createJavaScriptEngine,
+                "function check(x) { if (x === 50000) throw new Error('bad input'); return x; }", "check", 2)) {
+            failing.applyAsInt(IntStream.range(0, 100_000).toArray());
+            assert false : "script error was not reported";
+        } catch (ScriptException expected) {
+            // raised on a worker thread, rethrown to the caller
+        }
+        
+        // Results that are not numbers convert the same way with and without the driver
+        String loose = "function loose(x) { return x === 0 ? undefined : x === 1 ? '0x10' : x === 2 ? '1d'"
+                + " : x === 3 ? 4294967301 : x === 4 ? '' : x; }";
+        int[] inputs = {0, 1, 2, 3, 4, 5};
+        ScriptEngine blocked = ScriptBackend.createJavaScriptEngine();
+        blocked.eval(loose);
+        // A read-only global of the driver's name makes its installation fail
+        blocked.eval("Object.defineProperty(this, '__java8_batchApply', {value: 0})");
+        engine.eval(loose);
+        try (ScriptBatchInvoker withDriver = ScriptBatchInvoker.create(engine, "loose");
+             ScriptBatchInvoker fallback = ScriptBatchInvoker.create(blocked, "loose")) {
+            double[] looseDoubles = fallback.applyAsDouble(inputs);
+            assert Double.isNaN(looseDoubles[0]) && looseDoubles[1] == 16 && Double.isNaN(looseDoubles[2]) && looseDoubles[4] == 0;
+            assert Arrays.equals(withDriver.applyAsInt(inputs), fallback.applyAsInt(inputs));
+            assert Arrays.equals(fallback.applyAsInt(inputs), new int[] {0, 16, 0, 5, 0, 5});
+            assert Arrays.equals(withDriver.applyAsDouble(inputs), looseDoubles);
+            assert Arrays.equals(withDriver.applyAsBoolean(inputs), fallback.applyAsBoolean(inputs));
+        }
+    }
+    
+    @Test
+    public void testTypedArrays() throws ScriptException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(5 * Integer.BYTES);
+        buffer.asIntBuffer().put(new int[] {1, 2, 3, 4, 5});
+        TypedArrayView view = TypedArrayView.ofInts(buffer);
+        assert view.length() == 5 && view.getInt(4) == 5 && !view.isArrayBacked();
+        view.set(0, 10.7);
+        assert buffer.getInt(0) == 10;
+        
+        javax.script.ScriptEngine engine = ScriptBackend.createJavaScriptEngine();
+        if (engine == null) {
+            return;
+        }
+        TypedArrays arrays = TypedArrays.install(engine);
+        engine.put("data", view.toScript(engine));
+        assert ((Number) engine.eval("data.length + data[1]")).intValue() == 7;
+        engine.eval("data[2] = 30");
+        assert view.getInt(2) == 30;
+        engine.eval("data['3'] = '40'; data[99] = 1; data.extra = 1; delete data[0]");
+        assert view.getInt(3) == 40 && view.getInt(0) == 10;
+        assert Boolean.TRUE.equals(engine.eval("data.extra == null"));
+        
+        engine.eval("function odd(x) { return x % 2 === 1; }");
+        TypedArrayView halves = arrays.map(view, engine.eval("(function(x) { return x / 2; })"));
+        assert halves.getType() == TypedArrayView.Type.INT32 && halves.getInt(0) == 5 && halves.getInt(2) == 15;
+        TypedArrayView odd = arrays.filter(TypedArrayView.of(new double[] {1, 2, 3, 5}), "odd");
+        assert odd.length() == 3 && odd.get(2) == 5.0;
+        assert arrays.sum(view) == 10 + 2 + 30 + 40 + 5;
+        
+        // Int32 stores wrap like ToInt32, and strings convert like ToNumber
+        int[] wrapped = new int[8];
+        TypedArrayView int32 = TypedArrayView.of(wrapped);
+        int32.set(0, 4294967301.0);
+        int32.set(1, 2147483648.0);
+        int32.set(2, Double.POSITIVE_INFINITY);
+        int32.set(3, -1e20);
+        assert wrapped[0] == 5 && wrapped[1] == Integer.MIN_VALUE && wrapped[2] == 0
+                && wrapped[3] == -1661992960;
+        engine.put("wrapped", int32.toScript(engine));
+        engine.put("buffered", TypedArrayView.ofInts(ByteBuffer.allocate(8 * Integer.BYTES)).toScript(engine));
+        for (String target : new String[] {"wrapped", "buffered"}) {
+            engine.eval(target + "[0] = 4294967301; " + target + "[1] = '0x10'; " + target + "[2] = '1d'; "
+                    + target + "[3] = ' -7.9 '; " + target + "[4] = '1e3'; " + target + "[5] = undefined; "
+                    + target + "[6] = -2147483649; " + target + "[7] = '1f';");
+        }
+        assert Arrays.equals(wrapped, new int[] {5, 16, 0, -7, 1000, 0, 2147483647, 0}) : Arrays.toString(wrapped);
+        assert Boolean.TRUE.equals(engine.eval("var expected = new Int32Array(8);"
+                + " expected[0] = 4294967301; expected[1] = '0x10'; expected[2] = '1d'; expected[3] = ' -7.9 ';"
+                + " expected[4] = '1e3'; expected[5] = undefined; expected[6] = -2147483649; expected[7] = '1f';"
+                + " var same = true; for (var i = 0; i < 8; i++) { same = same && buffered[i] === expected[i]; }"
+                + " same"));
+    }
+    
+    @Test
+    public void testMemoizedPureFunctions() throws ScriptException {
+        assert "fib|n5|s2:ab|btrue".equals(ScriptFunctionCache.key("fib", 5.0, "ab", true));
+        assert ScriptFunctionCache.key("fib", new Object()) == null;
+        // Keys spell numbers as JavaScript does
+        assert "f|n1e+21|n10000000000000000000|n1.5e-7|n12345678.5|n0|nNaN".equals(
+                ScriptFunctionCache.key("f", 1e21, 1e19, 1.5e-7, 12345678.5, -0.0, Double.NaN));
+        if (!ScriptBackend.selected().isJavaScript()) {
+            return;
+        }
+        try (ScriptService service = new ScriptService(ScriptBackend.selected(), 2, 16, 1_000)) {
+            service.definePure("fibonacci",
+                    "function fibonacci(n) { return n <= 1 ? n : fibonacci(n - 1) + fibonacci(n - 2); }");
+            service.define("function multiply(a, b) { return a * b; }");
+            
+            assert ((Number) service.invoke("fibonacci", 30)).longValue() == 832040L;
+            ScriptFunctionCache cache = service.getFunctionCache();
+            assert cache.size() == 31;
+            long misses = cache.getMisses();
+            assert misses == 31;
+            assert ((Number) service.invoke("fibonacci", 25)).longValue() == 75025L;
+            assert cache.getMisses() == misses && cache.getHits() > 0;
+            assert ((Number) service.eval("fibonacci(31)")).longValue() == 1346269L;
+            assert cache.size() == 32;
+            assert ((Number) service.invoke("multiply", 6, 7)).intValue() == 42;
+            
+            // Integral values beyond the long range and non-integral values get their own keys,
+            // and a call from Java and the same call from a script share one entry
+            service.definePure("half", "function half(x) { return x / 2; }");
+            assert ((Number) service.invoke("half", 1e19)).doubleValue() == 5e18;
+            assert ((Number) service.invoke("half", 2e19)).doubleValue() == 1e19;
+            assert ((Number) service.invoke("half", 1.5e-7)).doubleValue() == 7.5e-8;
+            assert ((Number) service.invoke("half", 12345678.5)).doubleValue() == 6172839.25;
+            int size = cache.size();
+            assert ((Number) service.eval("half(1e19) + half(1.5e-7) + half(12345678.5)")).doubleValue()
+                    == 5e18 + 7.5e-8 + 6172839.25;
+            assert cache.size() == size : cache;
+        }
+    }
+    
+    @Test
+    public void testScriptService() throws Exception {
+        // One engine with room for two compiled scripts
+        try (ScriptService service = new ScriptService(ScriptBackend.EXPRESSION, 1, 2)) {
+            assert ((Number) service.eval("a + 1", Collections.singletonMap("a", 1))).intValue() == 2;
+            service.eval("a + 1");
+            service.eval("a + 2");
+            service.eval("a + 3"); // evicts "a + 1", the least recently used
+            service.eval("a + 2");
+            service.eval("a + 1");
+            ScriptService.Stats stats = service.getStats();
+            assert stats.getCacheHits() == 2 && stats.getCacheMisses() == 4 : stats;
+            assert stats.getEvalCount() == 6;
+            
+            // Variables stay in the calling thread's bindings only
+            CompletableFuture.runAsync(() -> {
+                try {
+                    assert ((Number) service.eval("a * 10", Collections.singletonMap("a", 7))).intValue() == 70;
+                } catch (ScriptException e) {
+                    throw new AssertionError(e);
+                }
+            }).get(5, TimeUnit.SECONDS);
+            assert ((Number) service.eval("a * 10")).intValue() == 10;
+        }
+        
+        ScriptBackend javaScript = ScriptBackend.selected();
+        if (!javaScript.isJavaScript()) {
+            return;
+        }
+        // Eight threads share two engines; no more than two evaluations ever overlap
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        String script = "var n = active.incrementAndGet(); if (n > peak.get()) { peak.set(n); }"
+                + " for (var i = 0; i < 2000; i++) {} active.decrementAndGet(); id * 2";
+        ExecutorService threads = Executors.newFixedThreadPool(8);
+        try (ScriptService service = new ScriptService(javaScript, 2, 16)) {
+            List<CompletableFuture<Boolean>> callers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int id = t;
+                callers.add(CompletableFuture.supplyAsync(() -> {
+                    Map<String, Object> variables = new HashMap<>();
+                    variables.put("active", active);
+                    variables.put("peak", peak);
+                    variables.put("id", id);
+                    try {
+                        for (int i = 0; i < 50; i++) {
+                            if (((Number) service.eval(script, variables)).intValue() != id * 2) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    } catch (ScriptException e) {
+                        throw new AssertionError(e);
+                    }
+                }, threads));
+            }
+            // Precompiling while the callers borrow engines still reaches both engines
+            service.precompile("id + 1");
+            for (CompletableFuture<Boolean> caller : callers) {
+                assert caller.get(30, TimeUnit.SECONDS);
+            }
+            assert peak.get() >= 1 && peak.get() <= 2 : peak;
+            assert service.getStats().getEvalCount() == 400;
+            // Each engine compiles each script once
+            assert service.getStats().getCacheMisses() == 4;
+            List<CompletableFuture<Object>> precompiled = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                precompiled.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return service.eval("id + 1", Collections.singletonMap("id", 1));
+                    } catch (ScriptException e) {
+                        throw new AssertionError(e);
+                    }
+                }, threads));
+            }
+            for (CompletableFuture<Object> result : precompiled) {
+                assert ((Number) result.get(30, TimeUnit.SECONDS)).intValue() == 2;
+            }
+            assert service.getStats().getCacheMisses() == 4;
+        } finally {
+            threads.shutdown();
+        }
+    }
+    
+    @Test
+    public void testFormatterRegistryAndFixedWidthFormat() {
+        assert DateTimeFormatterRegistry.ofPattern("dd/MM/yyyy HH:mm:ss")
+                == DateTimeFormatterRegistry.ofPattern("dd/MM/yyyy HH:mm:ss");
+        assert DateTimeFormatterRegistry.ofPattern("yyyy", Locale.FRENCH)
+                != DateTimeFormatterRegistry.ofPattern("yyyy", Locale.GERMAN);
+        assert DateTimeFormatterRegistry.fixedWidth("EEEE, MMMM dd, yyyy") == null;
+        
+        LocalDateTime time = LocalDateTime.of(2023, 12, 25, 14, 30, 45, 123_456_789);
+        for (String pattern : new String[] {"dd/MM/yyyy HH:mm:ss", "yyyy-MM-dd'T'HH:mm:ss.SSS",
+                "yyyyMMddHHmmssSSSSSS", "HH:mm 'on' dd.MM.yyyy"}) {
+            FixedWidthFormat fixed = DateTimeFormatterRegistry.fixedWidth(pattern);
+            String expected = DateTimeFormatter.ofPattern(pattern).format(time);
+            assert fixed != null && fixed.width() == expected.length() : pattern;
+            assert expected.equals(fixed.format(time)) : pattern;
+            assert expected.equals(DateTimeFormatterRegistry.format(time, pattern, new StringBuilder()).toString());
+        }
+        
+        // Optional sections, reserved characters and year-of-era edge cases go to DateTimeFormatter
+        for (String pattern : new String[] {"yyyy-MM-dd[ HH:mm]", "yyyy{MM}", "dd#MM"}) {
+            assert DateTimeFormatterRegistry.fixedWidth(pattern) == null : pattern;
+        }
+        assert "2023-12-25 14:30".equals(
+                DateTimeFormatterRegistry.format(time, "yyyy-MM-dd[ HH:mm]", new StringBuilder()).toString());
+        assert "o'clock 14".equals(FixedWidthFormat.compile("'o''clock' HH").format(time));
+        for (LocalDateTime edge : new LocalDateTime[] {time.withYear(0), time.withYear(-5), time.withYear(12_345)}) {
+            for (String pattern : new String[] {"yyyy-MM-dd", "uuuu-MM-dd"}) {
+                String expected = DateTimeFormatter.ofPattern(pattern).format(edge);
+                assert expected.equals(DateTimeFormatterRegistry.format(edge, pattern, new StringBuilder()).toString())
+                        && expected.equals(DateTimeFormatterRegistry.format(edge.toLocalDate(), pattern,
+                        new StringBuilder()).toString()) : edge + " " + pattern;
+            }
+        }
+        assert "0000-12-25".equals(FixedWidthFormat.compile("uuuu-MM-dd").format(time.withYear(0)));
+        // A date has no time fields to write, as with DateTimeFormatter
+        try {
+            FixedWidthFormat.compile("yyyy-MM-dd HH:mm").format(time.toLocalDate(), new StringBuilder());
+            assert false : "date formatted with time fields";
+        } catch (DateTimeException expected) {
+            // needs a time
+        }
+        try {
+            FixedWidthFormat.compile("yyyy-MM-dd").parseEpochMilli("0000-01-01");
+            assert false : "year-of-era 0 parsed";
+        } catch (DateTimeParseException expected) {
+            // yyyy has no year 0, as in DateTimeFormatter
+        }
+        
+        StringBuilder out = new StringBuilder("ts=");
+        Instant instant = Instant.parse("1969-07-20T20:17:40.250Z");
+        FixedWidthFormat.ISO_LOCAL_DATE_TIME_MILLIS.formatEpochMilli(instant.toEpochMilli(),
+                ZoneOffset.ofHours(2), out);
+        assert "ts=1969-07-20T22:17:40.250".equals(out.toString());
+        
+        // Generated patterns stop being cached at the bound but still format
+        for (int i = 0; i < DateTimeFormatterRegistry.MAX_CACHED + 50; i++) {
+            String pattern = "'#" + i + "' yyyy";
+            assert ("#" + i + " 2023").equals(DateTimeFormatterRegistry.format(time, pattern, new StringBuilder())
+                    .toString()) : pattern;
+            assert ("#" + i + " 2023").equals(DateTimeFormatterRegistry.format(time, pattern)) : pattern;
+        }
+        assert DateTimeFormatterRegistry.size() <= DateTimeFormatterRegistry.MAX_CACHED;
+    }
+    
+    @Test
+    public void testFixedWidthTimestampParsing() {
+        FixedWidthFormat fixed = DateTimeFormatterRegistry.fixedWidth("dd/MM/yyyy HH:mm:ss");
+        DateTimeFormatter formatter = DateTimeFormatterRegistry.ofPattern("dd/MM/yyyy HH:mm:ss");
+        for (String text : new String[] {"25/12/2023 14:30:45", "29/02/2024 00:00:00", "01/01/1900 23:59:59"}) {
+            LocalDateTime expected = LocalDateTime.parse(text, formatter);
+            assert expected.equals(fixed.parseLocalDateTime(text)) : text;
+            assert fixed.parseEpochMilli(text) == expected.toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        
+        ZoneOffset plusTwo = ZoneOffset.ofHours(2);
+        ByteBuffer log = ByteBuffer.wrap(
+                "INFO 2023-12-25T14:30:45.123456789 ok".getBytes(StandardCharsets.US_ASCII));
+        FixedWidthFormat nanos = FixedWidthFormat.compile("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
+        Instant instant = LocalDateTime.of(2023, 12, 25, 14, 30, 45, 123_456_789)
+                .toInstant(plusTwo);
+        assert nanos.parseEpochNano(log, 5, plusTwo) == instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        assert log.position() == 0;
+        
+        for (String invalid : new String[] {"31/02/2023 10:00:00", "25-12-2023 14:30:45", "25/12/2023 24:00:00",
+                "25/12/2023 14:3", "2a/12/2023 14:30:45"}) {
+            try {
+                fixed.parseEpochMilli(invalid);
+                assert false : invalid;
+            } catch (DateTimeParseException e) {
+                assert e.getParsedString().equals(invalid);
+            }
+        }
+    }
+    
+    @Test
+    public void testBusinessCalendar() {
+        LocalDate jan1 = LocalDate.of(2023, 1, 1);
+        assert BusinessCalendar.weekdays().workingDaysBetween(jan1, jan1.plusMonths(1)) == 22;
+        
+        Random random = new Random(42);
+        BusinessCalendar[] calendars = {
+                BusinessCalendar.weekdays(),
+                BusinessCalendar.of(EnumSet.of(DayOfWeek.FRIDAY, DayOfWeek.SATURDAY)),
+                BusinessCalendar.of(EnumSet.of(DayOfWeek.SUNDAY))
+                        .withHolidays(random.longs(200, -400, 400).toArray())
+        };
+        for (BusinessCalendar calendar : calendars) {
+            for (int i = 0; i < 300; i++) {
+                long start = random.nextInt(600) - 300;
+                long end = start + random.nextInt(120) - 20;
+                long expected = 0;
+                for (long day = Math.min(start, end); day < Math.max(start, end); day++) {
+                    expected += calendar.isWorkingDay(day) ? 1 : 0;
+                }
+                assert calendar.workingDaysBetween(start, end) == (end >= start ? expected : -expected);
+                
+                int n = random.nextInt(41) - 20;
+                long deadline = start;
+                for (int left = Math.abs(n); left > 0; ) {
+                    deadline += n > 0 ? 1 : -1;
+                    left -= calendar.isWorkingDay(deadline) ? 1 : 0;
+                }
+                assert calendar.addWorkingDays(start, n) == deadline : calendar + " " + start + " " + n;
+            }
+        }
+    }
+    
+    @Test
+    public void testDateRangeAndIndex() {
+        DateRange january = DateRange.closed(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 31));
+        DateRange february = DateRange.halfOpen(LocalDate.of(2023, 2, 1), LocalDate.of(2023, 3, 1));
+        assert january.length() == 31 && january.epochDays().parallel().count() == 31;
+        assert january.dates().reduce((a, b) -> b).get().equals(january.getLastDate());
+        assert january.intersect(february).isEmpty() && january.intersect(february) == DateRange.EMPTY;
+        assert january.union(february).length() == 59 && january.union(february).contains(february);
+        assert !january.overlaps(february) && january.contains(LocalDate.of(2023, 1, 31));
+        
+        Random random = new Random(7);
+        long[][] ranges = new long[5000][];
+        DateRangeIndex.Builder builder = DateRangeIndex.builder();
+        for (int i = 0; i < ranges.length; i++) {
+            long start = random.nextInt(3000);
+            ranges[i] = new long[] {start, start + random.nextInt(30)};
+            assert builder.add(ranges[i][0], ranges[i][1]) == i;
+        }
+        DateRangeIndex index = builder.build();
+        for (int q = 0; q < 500; q++) {
+            DateRange query = DateRange.ofEpochDays(random.nextInt(3100) - 50, random.nextInt(3100) - 50);
+            Set<Integer> expected = new HashSet<>();
+            for (int i = 0; i < ranges.length; i++) {
+                if (query.overlaps(DateRange.ofEpochDays(ranges[i][0], ranges[i][1]))) {
+                    expected.add(i);
+                }
+            }
+            Set<Integer> actual = new HashSet<>();
+            for (int id : index.overlapping(query)) {
+                actual.add(id);
+            }
+            assert expected.equals(actual) : query;
+            assert index.isFree(query) == expected.isEmpty();
+        }
+    }
+    
+    @Test
+    public void testZoneOffsetTables() {
+        assert ZoneService.zone("Europe/London") == ZoneService.zone("Europe/London");
+        assert ZoneService.availableZoneIds().contains("Asia/Tokyo");
+        
+        Random random = new Random(3);
+        for (String id : new String[] {"America/New_York", "Europe/London", "Australia/Lord_Howe", "Asia/Kolkata", "UTC"}) {
+            ZoneId zone = ZoneService.zone(id);
+            ZoneOffsetTable table = ZoneService.offsetTable(zone);
+            long[] instants = new long[20_000];
+            for (int i = 0; i < instants.length; i++) {
+                instants[i] = (random.nextLong() % 8_000_000_000L) + (i % 2 == 0 ? 0 : 1_700_000_000L);
+            }
+            Arrays.sort(instants, 0, instants.length / 2);
+            long[] local = table.toLocalEpochSeconds(instants, new long[instants.length]);
+            long[] back = table.toEpochSeconds(local, new long[instants.length]);
+            for (int i = 0; i < instants.length; i++) {
+                ZonedDateTime expected = Instant.ofEpochSecond(instants[i]).atZone(zone);
+                assert local[i] == expected.toLocalDateTime().toEpochSecond(ZoneOffset.UTC) : id;
+                // Round trips resolve gaps and overlaps exactly like LocalDateTime.atZone
+                assert back[i] == expected.toLocalDateTime().atZone(zone).toEpochSecond() : id + " " + instants[i];
+            }
+        }
+        
+        ZoneId newYork = ZoneService.zone("America/New_York");
+        long gap = LocalDateTime.of(2023, 3, 12, 2, 30).toEpochSecond(ZoneOffset.UTC);
+        long overlap = LocalDateTime.of(2023, 11, 5, 1, 30).toEpochSecond(ZoneOffset.UTC);
+        long[] converted = ZoneService.convertLocal(new long[] {gap, overlap}, newYork, ZoneService.zone("UTC"), new long[2]);
+        assert converted[0] == LocalDateTime.of(2023, 3, 12, 7, 30).toEpochSecond(ZoneOffset.UTC);
+        assert converted[1] == LocalDateTime.of(2023, 11, 5, 5, 30).toEpochSecond(ZoneOffset.UTC);
+    }
+    
+    @Test
+    public void testClocks() throws Exception {
+        TestClock testClock = NanoClock.test(Instant.parse("2023-12-25T14:30:45Z"));
+        long start = testClock.nanoTime();
+        testClock.advance(Duration.ofMillis(1500));
+        assert testClock.elapsedMillis(start) == 1500;
+        assert LocalTime.now(testClock.withZone(ZoneId.of("Asia/Tokyo")))
+                .equals(LocalTime.of(23, 30, 46, 500_000_000));
+        new DateTimeExamples(testClock).dateTimeCalculations();
+        
+        Instant previous = NanoClock.monotonic().instant();
+        for (int i = 0; i < 10_000; i++) {
+            Instant next = NanoClock.monotonic().instant();
+            assert !next.isBefore(previous);
+            previous = next;
+        }
+        assert Math.abs(NanoClock.monotonic().millis() - System.currentTimeMillis()) < 1000;
+        
+        try (CachedClock cached = NanoClock.cached(Duration.ofMillis(1))) {
+            long first = cached.millis();
+            Thread.sleep(50);
+            assert cached.millis() > first && cached.nanoTime() > 0;
+            // Views share the ticker but cannot stop it
+            cached.withZone(ZoneId.of("Asia/Tokyo")).close();
+            first = cached.millis();
+            Thread.sleep(50);
+            assert cached.millis() > first;
+        }
+        // Closing the shared coarse clock leaves it running for everyone else
+        try (CachedClock coarse = NanoClock.coarse()) {
+            assert coarse == NanoClock.coarse();
+        }
+        long first = NanoClock.coarse().millis();
+        Thread.sleep(50);
+        assert NanoClock.coarse().millis() > first;
+    }
+    
+    @Test
+    public void testLegacyDateConverter() {
+        ZoneId zone = ZoneId.of("Europe/London");
+        LegacyDateConverter converter = new LegacyDateConverter(zone);
+        Random random = new Random(11);
+        Date[] dates = new Date[200_000];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = new Date(random.nextLong() % 7_000_000_000_000L);
+        }
+        long[] millis = LegacyDateConverter.epochMillis(dates);
+        long[] packed = converter.toPacked(millis, true);
+        String[] iso = converter.toIsoStrings(millis, true);
+        char[] chars = converter.toIsoChars(millis, false);
+        DateTimeFormatter formatter = DateTimeFormatter
+                .ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        for (int i = 0; i < dates.length; i++) {
+            LocalDateTime expected = LocalDateTime.ofInstant(dates[i].toInstant(), zone);
+            assert PackedDateTime.toLocalDateTime(packed[i]).equals(expected) : dates[i];
+            assert packed[i] == PackedDateTime.pack(expected);
+            assert iso[i].equals(expected.format(formatter));
+            assert new String(chars, i * 23, 23).equals(iso[i]);
+        }
+        long[] sorted = packed.clone();
+        Arrays.sort(sorted);
+        assert PackedDateTime.toLocalDateTime(sorted[0]).isBefore(PackedDateTime.toLocalDateTime(sorted[1]));
+        assert converter.toIsoStrings(LongStream.of(0L)).findFirst().get()
+                .equals("1970-01-01T01:00:00.000");
+    }
+    
+    @Test
+    public void testRecurrenceRules() {
+        LocalDate christmas = LocalDate.of(2023, 12, 25);
+        assert christmas.with(RecurrenceRule.compile("every last friday")).equals(LocalDate.of(2023, 12, 29));
+        assert christmas.with(RecurrenceRule.compile("Every Last Friday")).equals(LocalDate.of(2023, 12, 29));
+        assert RecurrenceRule.compile("first business day of month").nextAfter(christmas)
+                .equals(LocalDate.of(2024, 1, 1));
+        assert RecurrenceRule.compile("day 31 of month").occurrences(christmas).skip(1).findFirst().get()
+                .equals(LocalDate.of(2024, 1, 31));
+        assert RecurrenceRule.compile("day 30 of month").nextAfter(LocalDate.of(2024, 1, 30))
+                .equals(LocalDate.of(2024, 3, 30));
+        assert LocalDateTime.of(2023, 12, 25, 9, 15).with(RecurrenceRule.compile("last day of year"))
+                .equals(LocalDateTime.of(2023, 12, 31, 9, 15));
+        
+        Map<String, Predicate<LocalDate>> rules = new LinkedHashMap<>();
+        rules.put("every day", d -> true);
+        rules.put("every business day", d -> d.getDayOfWeek().getValue() <= 5);
+        rules.put("every wednesday", d -> d.getDayOfWeek() == DayOfWeek.WEDNESDAY);
+        rules.put("every second tuesday", d -> d.getDayOfWeek() == DayOfWeek.TUESDAY
+                && (d.getDayOfMonth() - 1) / 7 == 1);
+        rules.put("every last friday", d -> d.getDayOfWeek() == DayOfWeek.FRIDAY
+                && d.plusWeeks(1).getMonth() != d.getMonth());
+        rules.put("last business day of month", d -> d.getDayOfWeek().getValue() <= 5
+                && IntStream.rangeClosed(1, 3).mapToObj(d::plusDays)
+                        .filter(next -> next.getMonth() == d.getMonth())
+                        .allMatch(next -> next.getDayOfWeek().getValue() > 5));
+        rules.put("first day of year", d -> d.getDayOfYear() == 1);
+        LocalDate from = LocalDate.of(1999, 11, 1);
+        for (Map.Entry<String, Predicate<LocalDate>> rule : rules.entrySet()) {
+            List<LocalDate> expected = from.datesUntil(from.plusYears(3))
+                    .filter(rule.getValue())
+                    .collect(Collectors.toList());
+            List<LocalDate> actual = RecurrenceRule.compile(rule.getKey()).occurrences(from)
+                    .limit(expected.size())
+                    .collect(Collectors.toList());
+            assert expected.equals(actual) : rule.getKey();
+        }
+        
+        try {
+            RecurrenceRule.compile("every blue moon");
+            assert false;
+        } catch (IllegalArgumentException expected) {
+            // unsupported rule
+        }
+    }
+    
+    @Test
+    public void testDurationCollectors() {
+        Random random = new Random(5);
+        List<Duration> durations = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            durations.add(Duration.ofSeconds(random.nextInt(7200) - 600, random.nextInt(1_000_000_000)));
+        }
+        Duration expectedSum = durations.stream().reduce(Duration.ZERO, Duration::plus);
+        DurationStatistics stats = durations.parallelStream().collect(DurationCollectors.summarizing());
+        assert stats.getCount() == durations.size();
+        assert stats.getSum().equals(expectedSum);
+        assert durations.parallelStream().collect(DurationCollectors.summing()).equals(expectedSum);
+        assert stats.getMin().equals(Collections.min(durations));
+        assert durations.stream().collect(DurationCollectors.maximum()).get().equals(Collections.max(durations));
+        assert durations.stream().collect(DurationCollectors.averaging()).equals(expectedSum.dividedBy(durations.size()));
+        assert !Stream.<Duration>empty().collect(DurationCollectors.minimum()).isPresent();
+        
+        try {
+            Stream.of(Duration.ofSeconds(Long.MAX_VALUE), Duration.ofSeconds(1))
+                    .collect(DurationCollectors.summing());
+            assert false;
+        } catch (ArithmeticException expected) {
+            // sum beyond the Duration range
+        }
+        
+        long[] nanos = random.longs(200_000, 0, 10_000_000_000L).toArray();
+        DurationHistogram histogram = Arrays.stream(nanos).boxed().parallel()
+                .collect(DurationCollectors.percentilesNanos(Long::longValue));
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = sorted[(int) Math.ceil(percentile / 100 * sorted.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile).toNanos();
+            assert reported >= exact && reported <= exact * 1.02 : percentile;
+        }
+    }
+    
+    @Test
+    public void testPeriodCalculator() {
+        Random random = new Random(13);
+        int size = 300_000;
+        long[] starts = new long[size];
+        long[] ends = new long[size];
+        for (int i = 0; i < size; i++) {
+            starts[i] = random.nextInt(200_000) - 100_000;
+            // Many pairs land near month ends and within a few days of each other
+            ends[i] = i % 3 == 0 ? starts[i] + random.nextInt(70) - 35 : random.nextInt(200_000) - 100_000;
+        }
+        long[] periods = PeriodCalculator.between(starts, ends, new long[size], true);
+        long[] days = PeriodCalculator.daysBetween(starts, ends, new long[size], false);
+        for (int i = 0; i < size; i++) {
+            LocalDate start = LocalDate.ofEpochDay(starts[i]);
+            LocalDate end = LocalDate.ofEpochDay(ends[i]);
+            Period expected = Period.between(start, end);
+            assert PackedPeriod.toPeriod(periods[i]).equals(expected) : start + " -> " + end;
+            assert periods[i] == PackedPeriod.pack(expected);
+            assert days[i] == ChronoUnit.DAYS.between(start, end);
+        }
+        
+        LocalDate today = LocalDate.of(2024, 2, 29);
+        int[] ages = PeriodCalculator.ages(new long[] {LocalDate.of(1990, 2, 28).toEpochDay(),
+                LocalDate.of(2000, 3, 1).toEpochDay()}, today.toEpochDay(), false);
+        assert ages[0] == 34 && ages[1] == 23;
+    }
+    
+    @Test
+    public void testNullablesAndHotPathLint() {
+        Map<String, Map<String, String>> config = new HashMap<>();
+        config.put("db", Collections.singletonMap("host", "localhost"));
+        assert Nullables.getOrDefault(config, c -> c.get("db"), db -> db.get("host"), "none").equals("localhost");
+        assert Nullables.getOrDefault(config, c -> c.get("cache"), db -> db.get("host"), "none").equals("none");
+        assert Nullables.get(null, Object::toString) == null;
+        assert Nullables.get("a", s -> s + "b", s -> s + "c", String::length, n -> n * 2) == 6;
+        assert Nullables.orElseGet(null, () -> "lazy").equals("lazy");
+        
+        String source = "class A {\n"
+                + "    @HotPath\n"
+                + "    int hot(String s) {\n"
+                + "        // Optional.of(s) in a comment is fine\n"
+                + "        String t = \"Optional.empty()\";\n"
+                + "        return Optional.ofNullable(s).map(String::length).orElse(0);\n"
+                + "    }\n"
+                + "    @HotPath abstract int declared();\n"
+                + "    int cold(String s) { return OptionalInt.of(s.length()).getAsInt(); }\n"
+                + "    @com.java8.optional.HotPath\n"
+                + "    long count(List<String> l) { return l.stream().findFirst().isPresent() ? OptionalLong.empty().orElse(1) : 0; }\n"
+                + "}\n";
+        List<HotPathLint.Finding> findings = HotPathLint.scan("A.java", source);
+        assert findings.size() == 3 : findings;
+        assert findings.get(0).getLine() == 6 && findings.get(0).getMethod().equals("hot");
+        assert findings.get(0).getExpression().equals("Optional.ofNullable(");
+        assert findings.get(1).getMethod().equals("count") && findings.get(2).getLine() == 11;
+        
+        // The project's own hot paths stay Optional-free
+        assert HotPathLint.scan(Paths.get("src/main/java")).isEmpty();
+    }
+    
+    @Test
+    public void testPrimitiveParsers() {
+        List<String> inputs = new ArrayList<>(Arrays.asList(
+                "0", "-0", "+7", "-", "+", "", "2147483647", "2147483648", "-2147483648", "-2147483649",
+                "00000000000000000042", "99999999999999999999", "12a", " 1", "1 ", "--1", "9223372036854775807",
+                "9223372036854775808", "-9223372036854775808", "-9223372036854775809"));
+        Random random = new Random(5);
+        for (int i = 0; i < 20_000; i++) {
+            inputs.add(i % 3 == 0 ? Long.toString(random.nextLong() >> random.nextInt(64))
+                    : Integer.toString(random.nextInt() >> random.nextInt(32)));
+        }
+        for (String input : inputs) {
+            OptionalInt expectedInt;
+            OptionalLong expectedLong;
+            try {
+                expectedInt = OptionalInt.of(Integer.parseInt(input));
+            } catch (NumberFormatException e) {
+                expectedInt = OptionalInt.empty();
+            }
+            try {
+                expectedLong = OptionalLong.of(Long.parseLong(input));
+            } catch (NumberFormatException e) {
+                expectedLong = OptionalLong.empty();
+            }
+            assert PrimitiveParsers.parseInt(input).equals(expectedInt) : input;
+            assert PrimitiveParsers.parseLong(input).equals(expectedLong) : input;
+            assert PrimitiveParsers.parseLong(input, 0, input.length(), -1) == expectedLong.orElse(-1) : input;
+            assert PrimitiveParsers.parseInt(input, -1) == expectedInt.orElse(-1) : input;
+        }
+        assert PrimitiveParsers.parseInt("x12y", 1, 3) == 12;
+        assert PrimitiveParsers.parseInt("x12y", 0, 3) == PrimitiveParsers.INVALID;
+        assert PrimitiveParsers.parseDouble("1e3").getAsDouble() == 1000.0;
+        assert !PrimitiveParsers.parseDouble("1e").isPresent();
+        
+        ParsedInts fromList = PrimitiveParsers.parseInts(inputs, true);
+        assert fromList.size() == inputs.size();
+        for (int i = 0; i < inputs.size(); i++) {
+            assert fromList.find(i).equals(PrimitiveParsers.parseInt(inputs.get(i))) : inputs.get(i);
+        }
+        assert fromList.failureCount() == fromList.failures().cardinality();
+        
+        ParsedInts csv = PrimitiveParsers.parseInts("1,-2,x\r\n,2147483648,+3\n99999999999,4,5y\n6,", ',');
+        assert csv.size() == 11 : csv;
+        assert Arrays.equals(csv.failedRows().toArray(), new int[] {2, 3, 4, 6, 8, 10});
+        assert Arrays.equals(csv.validValues().toArray(), new int[] {1, -2, 3, 4, 6});
+        assert csv.values().length == 11 && csv.get(2) == 0 && csv.get(9) == 6 && !csv.isValid(10);
+        assert PrimitiveParsers.parseInts("7\r\n8\n", ',').validValues().sum() == 15;
+        assert PrimitiveParsers.parseInts("", ',').size() == 0;
+        
+        StringBuilder big = new StringBuilder();
+        for (String input : inputs) {
+            big.append(input.replace(",", "")).append(big.length() % 3 == 0 ? '\n' : ';');
+        }
+        ParsedInts bulk = PrimitiveParsers.parseInts(big, ';');
+        assert bulk.size() == inputs.size();
+        for (int i = 0; i < inputs.size(); i++) {
+            assert bulk.find(i).equals(fromList.find(i)) : inputs.get(i);
+        }
+    }
+}